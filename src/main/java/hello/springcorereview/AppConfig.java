@@ -2,6 +2,7 @@ package hello.springcorereview;
 
 import hello.springcorereview.discount.DiscountPolicy;
 import hello.springcorereview.discount.RateDiscountPolicy;
+import hello.springcorereview.member.MemberRepository;
 import hello.springcorereview.member.MemberService;
 import hello.springcorereview.member.MemberServiceImpl;
 import hello.springcorereview.member.MemoryMemberRepository;
@@ -14,14 +15,19 @@ import org.springframework.context.annotation.Configuration;
  * 구현 객체를 생성하고 연결하는 책임을 가지는 별도의 설정 클래스
  * 할인 정책을 변경할 경우에도 AppConfig 만 변경하면 된다
  * 클라이언트 코드 OrderServiceImpl 를 포함해서 사용 영역의 어떤 코드도 변경할 필요 없다
+
+ * 서비스는 memberRepository() 를 직접 호출하지 않고 MemberRepository 를 파라미터로 주입받는다.
+ * AppConfig 만으로 띄우면 memberRepository 빈이 주입되고(싱글톤), 스프링 부트로 띄울 때 복제(ReplicationConfig), 등급 색인 같은 설정이
+ * @Primary 로 저장소 데코레이터를 등록하면 그 저장소가 주입된다. 이름으로 조회하는 memberService, orderService 도 같은 저장소를 사용한다.
+ * (데코레이터가 없는 부트 환경에는 MemoryMemberRepository 빈이 둘이므로 파라미터 이름으로 memberRepository 빈을 고른다)
  */
 @Configuration
 public class AppConfig {
 
     @Bean
-    public MemberService memberService() {
+    public MemberService memberService(MemberRepository memberRepository) {
         System.out.println("call AppConfig.memberService");
-        return new MemberServiceImpl(memberRepository());
+        return new MemberServiceImpl(memberRepository);
     }
 
     @Bean
@@ -31,9 +37,9 @@ public class AppConfig {
     }
 
     @Bean
-    public OrderService orderService() {
+    public OrderService orderService(MemberRepository memberRepository) {
         System.out.println("call AppConfig.orderService");
-        return new OrderServiceImpl(memberRepository(), discountPolicy());
+        return new OrderServiceImpl(memberRepository, discountPolicy());
     }
 
     @Bean
@@ -0,0 +1,55 @@
+package hello.springcorereview;
+
+import hello.springcorereview.common.ConcurrencyLimiter;
+import hello.springcorereview.member.LimitedMemberService;
+import hello.springcorereview.member.MemberService;
+import hello.springcorereview.order.LimitedOrderService;
+import hello.springcorereview.order.OrderService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * service.limit.enabled=true 일 때 OrderService, MemberService 앞에 ConcurrencyLimiter 를 둔다.
+ * 데코레이터를 @Primary 로 등록해서 타입으로 주입받는 곳(컨트롤러, 프로토콜 서버 등)은 모두 제한된 서비스를 사용하게 된다.
+ * 데코레이터 자신은 @Qualifier 로 원래 빈(orderService, memberService)을 주입받는다.
+ * 주문과 가입은 뒤쪽 저장소가 다를 수 있으므로 limiter 를 따로 사용한다.
+ * 각 limiter 의 한도, 실행중인 호출 수, 거절 수는 ConcurrencyLimitController(/metrics/limits)로 볼 수 있다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "service.limit.enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    @Value("${service.limit.initial:20}")
+    private int initialLimit;
+    @Value("${service.limit.min:1}")
+    private int minLimit;
+    @Value("${service.limit.max:200}")
+    private int maxLimit;
+    @Value("${service.limit.target-latency-ms:50}")
+    private long targetLatencyMillis;
+    @Value("${service.limit.backoff-ratio:0.9}")
+    private double backoffRatio;
+
+    @Bean
+    @Primary
+    public LimitedOrderService limitedOrderService(@Qualifier("orderService") OrderService orderService) {
+        return new LimitedOrderService(orderService, limiter("createOrder"));
+    }
+
+    @Bean
+    @Primary
+    public LimitedMemberService limitedMemberService(@Qualifier("memberService") MemberService memberService) {
+        return new LimitedMemberService(memberService, limiter("join"));
+    }
+
+    private ConcurrencyLimiter limiter(String name) {
+        return new ConcurrencyLimiter(name, initialLimit, minLimit, maxLimit,
+                targetLatencyMillis, TimeUnit.MILLISECONDS, backoffRatio);
+    }
+}
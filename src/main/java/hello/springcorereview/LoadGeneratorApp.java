@@ -0,0 +1,275 @@
+package hello.springcorereview;
+
+import hello.springcorereview.common.LongHistogram;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberService;
+import hello.springcorereview.order.OrderService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * MemberApp, OrderApp 과 같은 설정으로 컨테이너를 띄우고 서비스 계층에 부하를 주는 실행 클래스
+ * 사용법 : key=value 형태로 옵션을 넘긴다. 넘기지 않은 옵션은 기본값을 사용한다.
+ * config=app|auto          AppConfig(수동 등록) 또는 AutoAppConfig(컴포넌트 스캔)
+ * members=10000            미리 가입시킬 회원 수
+ * vipRatio=0.1             미리 가입시킬 회원 중 VIP 비율
+ * threads=4                부하를 주는 스레드 수
+ * mode=closed|open         closed : 응답을 받으면 바로 다음 요청, open : rate 에 맞춰 정해진 시각에 요청
+ * rate=10000               open 모드의 전체 초당 요청 수
+ * mix=join:10,find:50,order:40   요청 종류별 비중
+ * warmup=2, duration=10    워밍업, 측정 시간(초)
+ * expectedIntervalMicros=0 closed 모드에서 coordinated omission 보정에 사용할 기대 요청 간격, 0 이면 보정하지 않는다
+
+ * 지연시간과 coordinated omission
+ * open 모드는 요청을 실제로 보낸 시각이 아니라 보냈어야 할 시각부터 지연시간을 잰다.
+ * 앞선 요청이 밀려서 늦게 보낸 요청도 그만큼 기다린 것으로 기록되므로 별도의 보정이 필요 없다.
+ * closed 모드는 느린 응답이 있으면 그동안 요청을 보내지 않기 때문에 지연시간이 실제보다 좋게 보인다.
+ * expectedIntervalMicros 를 주면 느린 응답 동안 보내지 못한 요청의 지연시간을 추가로 기록해서 보정한다.
+ */
+public class LoadGeneratorApp {
+
+    private static final String[] OPERATIONS = {"join", "find", "order"};
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        String config = options.getOrDefault("config", "app");
+        int members = Integer.parseInt(options.getOrDefault("members", "10000"));
+        double vipRatio = Double.parseDouble(options.getOrDefault("vipRatio", "0.1"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "4"));
+        boolean open = "open".equals(options.getOrDefault("mode", "closed"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "10000"));
+        int[] mix = parseMix(options.getOrDefault("mix", "join:10,find:50,order:40"));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "2")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "10")));
+        long expectedIntervalNanos = TimeUnit.MICROSECONDS.toNanos(Long.parseLong(options.getOrDefault("expectedIntervalMicros", "0")));
+
+        ConfigurableApplicationContext ac = "auto".equals(config)
+                ? new AnnotationConfigApplicationContext(AutoAppConfig.class)
+                : new AnnotationConfigApplicationContext(AppConfig.class);
+        MemberService memberService = ac.getBean(MemberService.class);
+        OrderService orderService = ac.getBean(OrderService.class);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long id = 1; id <= members; id++) {
+            Grade grade = random.nextDouble() < vipRatio ? Grade.VIP : Grade.BASIC;
+            memberService.join(new Member(id, "member" + id, grade));
+        }
+        System.out.println("prepared members = " + members + ", config = " + config + ", mode = " + (open ? "open" : "closed"));
+
+        AtomicLong nextMemberId = new AtomicLong(members);
+        long start = System.nanoTime();
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+        long periodNanos = open ? (long) (TimeUnit.SECONDS.toNanos(1) * threads / rate) : 0;
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(i, memberService, orderService, nextMemberId, members, mix,
+                    start + i * periodNanos / threads, periodNanos, measureStart, end, expectedIntervalNanos);
+            workers.add(worker);
+            worker.thread.start();
+        }
+
+        LongHistogram[] histograms = new LongHistogram[OPERATIONS.length];
+        long[] errors = new long[OPERATIONS.length];
+        long[] completed = new long[OPERATIONS.length];
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            histograms[op] = new LongHistogram();
+        }
+        for (Worker worker : workers) {
+            worker.thread.join();
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                histograms[op].add(worker.histograms[op]);
+                errors[op] += worker.errors[op];
+                completed[op] += worker.completed[op];
+            }
+        }
+        ac.close();
+
+        report(histograms, errors, completed, durationNanos);
+    }
+
+    static class Worker implements Runnable {
+
+        final MemberService memberService;
+        final OrderService orderService;
+        final AtomicLong nextMemberId;
+        final int members;
+        final int[] mix;
+        final long firstIntended;
+        final long periodNanos;
+        final long measureStart;
+        final long end;
+        final long expectedIntervalNanos;
+        final LongHistogram[] histograms = new LongHistogram[OPERATIONS.length];
+        final long[] errors = new long[OPERATIONS.length];
+        final long[] completed = new long[OPERATIONS.length];    //실제로 끝난 요청 수, 보정으로 추가된 표본은 세지 않는다
+        final Thread thread;
+
+        Worker(int index, MemberService memberService, OrderService orderService, AtomicLong nextMemberId, int members, int[] mix,
+               long firstIntended, long periodNanos, long measureStart, long end, long expectedIntervalNanos) {
+            this.memberService = memberService;
+            this.orderService = orderService;
+            this.nextMemberId = nextMemberId;
+            this.members = members;
+            this.mix = mix;
+            this.firstIntended = firstIntended;
+            this.periodNanos = periodNanos;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.expectedIntervalNanos = expectedIntervalNanos;
+            this.thread = new Thread(this, "load-generator-" + index);
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                histograms[op] = new LongHistogram();
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long intended = firstIntended;
+            while (true) {
+                long now = System.nanoTime();
+                if (periodNanos > 0) {
+                    //open 모드 : 정해진 시각까지 기다린다, 이미 늦었다면 바로 보낸다
+                    while (now < intended) {
+                        LockSupport.parkNanos(intended - now);
+                        now = System.nanoTime();
+                    }
+                } else {
+                    intended = now;
+                }
+                if (intended >= end) {
+                    return;
+                }
+
+                int op = pick(random);
+                boolean failed = false;
+                try {
+                    execute(op, random);
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+                long latency = System.nanoTime() - intended;
+
+                if (intended >= measureStart) {
+                    completed[op]++;
+                    if (failed) {
+                        errors[op]++;
+                    }
+                    if (periodNanos > 0) {
+                        histograms[op].record(latency);
+                    } else {
+                        histograms[op].recordCorrected(latency, expectedIntervalNanos);
+                    }
+                }
+                intended += periodNanos;
+            }
+        }
+
+        private int pick(ThreadLocalRandom random) {
+            int value = random.nextInt(mix[OPERATIONS.length]);
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                if (value < mix[op]) {
+                    return op;
+                }
+            }
+            return OPERATIONS.length - 1;
+        }
+
+        private void execute(int op, ThreadLocalRandom random) {
+            switch (op) {
+                case 0:
+                    long id = nextMemberId.incrementAndGet();
+                    memberService.join(new Member(id, "member" + id, Grade.BASIC));
+                    break;
+                case 1:
+                    memberService.findMember(random.nextLong(1, members + 1));
+                    break;
+                default:
+                    orderService.createOrder(random.nextLong(1, members + 1), "itemA", 10000);
+            }
+        }
+    }
+
+    /**
+     * ops/s 는 실제로 끝난 요청 수로 계산한다. closed 모드의 히스토그램에는 recordCorrected 가 추가한 표본이 들어 있어서
+     * 시스템이 느릴수록 히스토그램의 개수가 커지기 때문이다.(지연시간 분포에만 사용한다)
+     */
+    private static void report(LongHistogram[] histograms, long[] errors, long[] completed, long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        LongHistogram total = new LongHistogram();
+        long totalErrors = 0;
+        long totalCompleted = 0;
+        System.out.println(String.format("%-6s %12s %10s %10s %10s %10s %10s %10s %8s",
+                "op", "ops/s", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "p99.99(us)", "max(us)", "errors"));
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            printLine(OPERATIONS[op], histograms[op], errors[op], completed[op], seconds);
+            total.add(histograms[op]);
+            totalErrors += errors[op];
+            totalCompleted += completed[op];
+        }
+        printLine("total", total, totalErrors, totalCompleted, seconds);
+    }
+
+    private static void printLine(String name, LongHistogram histogram, long errors, long completed, double seconds) {
+        System.out.println(String.format("%-6s %12.1f %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %8d",
+                name, completed / seconds,
+                histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(90) / 1e3,
+                histogram.getValueAtPercentile(99) / 1e3, histogram.getValueAtPercentile(99.9) / 1e3,
+                histogram.getValueAtPercentile(99.99) / 1e3, histogram.getMax() / 1e3, errors));
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("option must be key=value : " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    /**
+     * @return 누적 비중, 마지막 칸은 전체 합
+     */
+    private static int[] parseMix(String mix) {
+        int[] cumulative = new int[OPERATIONS.length + 1];
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.split(":");
+            int op = indexOfOperation(pair[0].trim());
+            cumulative[op] = Integer.parseInt(pair[1].trim());
+        }
+        int sum = 0;
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            sum += cumulative[op];
+            cumulative[op] = sum;
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("mix must have a positive weight : " + mix);
+        }
+        cumulative[OPERATIONS.length] = sum;
+        return cumulative;
+    }
+
+    private static int indexOfOperation(String name) {
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            if (OPERATIONS[op].equals(name)) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("unknown operation : " + name);
+    }
+}
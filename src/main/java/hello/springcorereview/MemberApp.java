@@ -10,7 +10,7 @@ public class MemberApp {
 
     public static void main(String[] args) {
 //        AppConfig appConfig = new AppConfig();
-//        MemberService memberService = appConfig.memberService();
+//        MemberService memberService = appConfig.memberService(appConfig.memberRepository());
 
         ApplicationContext applicationContext = new AnnotationConfigApplicationContext(AppConfig.class);
         MemberService memberService = applicationContext.getBean("memberService", MemberService.class);
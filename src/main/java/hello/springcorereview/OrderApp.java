@@ -12,8 +12,8 @@ public class OrderApp {
 
     public static void main(String[] args) {
 //        AppConfig appConfig = new AppConfig();
-//        MemberService memberService = appConfig.memberService();
-//        OrderService orderService = appConfig.orderService();
+//        MemberService memberService = appConfig.memberService(appConfig.memberRepository());
+//        OrderService orderService = appConfig.orderService(appConfig.memberRepository());
 
         ApplicationContext applicationContext = new AnnotationConfigApplicationContext(AppConfig.class);
         MemberService memberService = applicationContext.getBean("memberService", MemberService.class);
@@ -0,0 +1,115 @@
+package hello.springcorereview;
+
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberRepository;
+import hello.springcorereview.member.MemoryMemberRepository;
+import hello.springcorereview.replication.ReplicaMemberRepository;
+import hello.springcorereview.replication.ReplicatedMemberRepository;
+import hello.springcorereview.replication.ReplicationLeader;
+import hello.springcorereview.replication.ReplicationLog;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 복제 노드 하나를 실행하는 클래스, 한 호스트에서 여러 JVM 으로 리더와 팔로워를 띄워 볼 수 있다.
+ * 사용법 : key=value 형태로 옵션을 넘긴다.
+ * role=leader|follower     역할
+ * host=localhost           팔로워가 연결할 리더 주소
+ * port=7171                리더가 받을 포트(0 이면 아무 포트), 팔로워는 연결할 포트
+ * logCapacity=100000       리더가 보관할 로그 tail 크기
+
+ * 시작하면 "ready port=..." 를 출력하고 표준 입력으로 한 줄에 하나씩 명령을 받는다.
+ * save <id> <name> <grade>   리더만 가능
+ * get <id>                   "member <id> <name> <grade>" 또는 "null"
+ * await <sequence>           팔로워가 sequence 까지 적용할 때까지 최대 AWAIT_TIMEOUT_SECONDS 동안 기다린 뒤 "applied <적용한 순번>"
+ * status                     리더 : "leader sequence=... followers=...", 팔로워 : "follower applied=... lag=... lagMillis=..."
+ * quit
+ */
+public class ReplicationNodeApp {
+
+    private static final long AWAIT_TIMEOUT_SECONDS = 30;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String role = options.getOrDefault("role", "leader");
+        int port = Integer.parseInt(options.getOrDefault("port", "7171"));
+
+        if ("leader".equals(role)) {
+            ReplicationLog log = new ReplicationLog(Integer.parseInt(options.getOrDefault("logCapacity", "100000")));
+            ReplicatedMemberRepository repository = new ReplicatedMemberRepository(new MemoryMemberRepository(), log);
+            ReplicationLeader leader = new ReplicationLeader(repository, port);
+            leader.start();
+            System.out.println("ready port=" + leader.getPort());
+            runCommands(repository, line -> "leader sequence=" + log.getLastSequence() + " followers=" + leader.getFollowerCount());
+            leader.close();
+        } else {
+            ReplicaMemberRepository replica = new ReplicaMemberRepository(options.getOrDefault("host", "localhost"), port);
+            replica.start();
+            System.out.println("ready port=" + port);
+            runCommands(replica, line -> {
+                if (line.startsWith("await ")) {
+                    long sequence = Long.parseLong(line.substring(6).trim());
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_TIMEOUT_SECONDS);
+                    while (replica.getAppliedSequence() < sequence && System.nanoTime() - deadline < 0) {
+                        Thread.sleep(1);
+                    }
+                    return "applied " + replica.getAppliedSequence();
+                }
+                return "follower applied=" + replica.getAppliedSequence() + " lag=" + replica.getLag()
+                        + " lagMillis=" + replica.getLagMillis() + " snapshots=" + replica.getSnapshotCount();
+            });
+            replica.close();
+        }
+    }
+
+    private interface Command {
+        String run(String line) throws Exception;
+    }
+
+    /**
+     * save, get, quit 은 공통으로 처리하고 나머지 명령(status, await)은 역할별로 처리한다
+     */
+    private static void runCommands(MemberRepository repository, Command other) throws Exception {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            try {
+                switch (tokens[0]) {
+                    case "quit":
+                        return;
+                    case "save":
+                        repository.save(new Member(Long.parseLong(tokens[1]), tokens[2], Grade.valueOf(tokens[3])));
+                        System.out.println("saved " + tokens[1]);
+                        break;
+                    case "get":
+                        Member member = repository.findById(Long.parseLong(tokens[1]));
+                        System.out.println(member == null ? "null"
+                                : "member " + member.getId() + " " + member.getName() + " " + member.getGrade());
+                        break;
+                    default:
+                        System.out.println(other.run(line.trim()));
+                }
+            } catch (RuntimeException e) {
+                System.out.println("error " + e.getMessage());
+            }
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("option must be key=value : " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
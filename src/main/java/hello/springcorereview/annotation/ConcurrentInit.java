@@ -0,0 +1,17 @@
+package hello.springcorereview.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 다른 빈의 초기화와 동시에 실행해도 안전한 초기화 메서드 (파라미터 없는 메서드)
+ * @PostConstruct 대신 사용하고, ConcurrentInitProcessor 가 의존관계 순서를 지켜서 별도 스레드에서 호출한다.
+ * 초기화 메서드 안에서는 주입받은 의존관계만 사용하고 컨테이너에서 빈을 조회하지 않아야 한다.
+ * required = false 이면 컨테이너 시작(refresh)이 이 초기화를 기다리지 않는다.(캐시 워밍 등)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConcurrentInit {
+
+    boolean required() default true;
+}
@@ -0,0 +1,225 @@
+package hello.springcorereview.common;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * 측정한 지연시간으로 동시 실행 수 한도를 조절하는 limiter (AIMD, additive increase multiplicative decrease)
+ * 호출이 targetLatency 안에 끝나고 한도를 절반 이상 사용중이면 한도를 1 늘린다.
+ * 호출이 targetLatency 보다 오래 걸리면 한도를 backoffRatio 배로 줄인다.
+ * 단, 마지막으로 한도를 줄인 뒤에 시작한 호출이 느릴 때만 줄인다. 느린 호출은 targetLatency 보다 길기 때문에 한도는 targetLatency 마다 최대 한 번 줄어든다.
+ * (같은 순간 느려진 호출들이 한꺼번에 끝날 때 호출마다 곱하면 한 번의 지연에 한도가 minLimit 까지 떨어진다)
+ * 한도와 마지막으로 줄인 시각은 CAS 로 바꾸므로 호출이 끝날 때 락을 잡지 않는다.
+ * 한도에 도달하면 기다리지 않고 바로 OverloadException 으로 거절한다.
+ * 뒤쪽 저장소가 느려지면 한도가 줄어들어 요청이 스레드에 쌓이지 않고, 받아들인 요청의 지연시간은 targetLatency 근처로 유지된다.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+    private final double backoffRatio;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+    private final AtomicLong lastDecreaseNanos;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder slowCalls = new LongAdder();
+
+    /**
+     * @param name          거절할 때 오류 메시지에 사용한다
+     * @param backoffRatio  느린 호출이 있을 때 한도에 곱하는 값 (0 ~ 1)
+     */
+    public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                              long targetLatency, TimeUnit unit, double backoffRatio) {
+        this(name, initialLimit, minLimit, maxLimit, targetLatency, unit, backoffRatio, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock 지연시간을 재는 시계 (System.nanoTime 과 같은 단위), 테스트에서는 직접 움직이는 시계를 넘긴다
+     */
+    public ConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                              long targetLatency, TimeUnit unit, double backoffRatio, LongSupplier nanoClock) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.name = name;
+        this.limit = new AtomicInteger(initialLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = unit.toNanos(targetLatency);
+        this.backoffRatio = backoffRatio;
+        this.nanoClock = nanoClock;
+        this.lastDecreaseNanos = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * 한도 안이면 task 를 실행하고, 한도에 도달했으면 실행하지 않고 거절한다.
+     * @throws OverloadException 한도에 도달한 경우
+     */
+    public <T> T call(Supplier<T> task) {
+        if (!tryAcquire()) {
+            throw new OverloadException(name + " is overloaded, limit = " + limit.get());
+        }
+        long start = nanoClock.getAsLong();
+        try {
+            return task.get();
+        } finally {
+            release(start);
+        }
+    }
+
+    /**
+     * 비동기 호출을 제한한다. 한도는 반환된 future 가 완료될 때 돌려준다.
+     * @return 한도에 도달했으면 OverloadException 으로 실패한 future
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> task) {
+        if (!tryAcquire()) {
+            return CompletableFuture.failedFuture(new OverloadException(name + " is overloaded, limit = " + limit.get()));
+        }
+        long start = nanoClock.getAsLong();
+        CompletableFuture<T> future;
+        try {
+            future = task.get();
+        } catch (RuntimeException e) {
+            release(start);
+            throw e;
+        }
+        return future.whenComplete((result, e) -> release(start));
+    }
+
+    public void run(Runnable task) {
+        call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 성공하면 호출이 끝난 뒤 반드시 release 를 호출해야 한다.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param startNanos 호출을 시작한 시각 (생성자에 넘긴 시계, 기본은 System.nanoTime())
+     */
+    public void release(long startNanos) {
+        long endNanos = nanoClock.getAsLong();
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        onSample(startNanos, endNanos, inFlightAtEnd);
+    }
+
+    void onSample(long startNanos, long endNanos, int inFlight) {
+        if (endNanos - startNanos > targetLatencyNanos) {
+            slowCalls.increment();
+            long lastDecrease = lastDecreaseNanos.get();
+            //한도를 줄이기 전에 시작한 호출은 줄이기 전의 한도로 실행된 것이므로 다시 줄이지 않는다
+            if (startNanos - lastDecrease >= 0 && lastDecreaseNanos.compareAndSet(lastDecrease, endNanos)) {
+                limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+            }
+        } else if (inFlight * 2 >= limit.get()) {
+            //한도를 충분히 사용하고 있을 때만 늘린다
+            limit.updateAndGet(current -> inFlight * 2 >= current ? Math.min(maxLimit, current + 1) : current);
+        }
+    }
+
+    /**
+     * 지금의 한도, 실행중인 호출 수, 누적 통과, 거절, 느린 호출 수
+     */
+    public Stats snapshot() {
+        return new Stats(limit.get(), inFlight.get(), accepted.sum(), rejected.sum(), slowCalls.sum());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getSlowCallCount() {
+        return slowCalls.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimiter{" +
+                "name='" + name + '\'' +
+                ", limit=" + limit.get() +
+                ", inFlight=" + inFlight.get() +
+                ", accepted=" + accepted.sum() +
+                ", rejected=" + rejected.sum() +
+                '}';
+    }
+
+    public static class Stats {
+
+        private final int limit;
+        private final int inFlight;
+        private final long accepted;
+        private final long rejected;
+        private final long slowCalls;
+
+        Stats(int limit, int inFlight, long accepted, long rejected, long slowCalls) {
+            this.limit = limit;
+            this.inFlight = inFlight;
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.slowCalls = slowCalls;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public long getAccepted() {
+            return accepted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getSlowCalls() {
+            return slowCalls;
+        }
+    }
+}
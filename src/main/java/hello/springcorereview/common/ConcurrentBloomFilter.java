@@ -0,0 +1,107 @@
+package hello.springcorereview.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * long 키를 위한 동시성 Bloom filter
+ * mightContain 이 false 면 절대 put 된 적이 없는 키이고, true 면 falsePositiveRate 확률로 틀릴 수 있다.
+ * 비트 배열을 AtomicLongArray 로 두고 CAS 로 비트를 켜기 때문에 락 없이 여러 스레드가 동시에 put, mightContain 할 수 있다.
+ * 삭제는 지원하지 않는다. 지워진 키가 많아지면 새로 만들어야 한다.
+ */
+public class ConcurrentBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder setBits = new LongAdder();
+
+    /**
+     * @param expectedInsertions 넣을 것으로 예상하는 키의 수
+     * @param falsePositiveRate  expectedInsertions 만큼 넣었을 때의 목표 오탐률 (0 ~ 1)
+     */
+    public ConcurrentBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and falsePositiveRate must be in (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * @return 새로 켜진 비트가 있으면 true
+     */
+    public boolean put(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        boolean changed = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            changed |= setBit(bit);
+        }
+        return changed;
+    }
+
+    public boolean mightContain(long key) {
+        long hash1 = mix(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 켜진 비트의 비율 (0 ~ 1), 높을수록 오탐률이 올라간다
+     */
+    public double getFillRatio() {
+        return (double) setBits.sum() / bitCount;
+    }
+
+    /**
+     * @return 현재 채워진 정도로 추정한 오탐률
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(getFillRatio(), hashCount);
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private boolean setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        setBits.increment();
+        return true;
+    }
+
+    /**
+     * MurmurHash3 의 fmix64, 연속된 id 도 비트 전체에 고르게 퍼지도록 섞는다
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
@@ -0,0 +1,123 @@
+package hello.springcorereview.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 지연시간, 바이트 수 같은 0 이상의 long 값 분포를 기록하는 고정 크기 히스토그램
+ * 값의 크기를 2의 거듭제곱 구간으로 나누고, 각 구간을 다시 64개로 나눠서 기록한다.
+ * 따라서 기록되는 값의 상대 오차는 약 1.6% 이내이고, 기록 횟수와 관계없이 메모리 사용량이 일정하다.(약 30KB)
+ * 기록은 여러 스레드에서 동시에 해도 안전하다.
+ */
+public class LongHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;          //128, 이 값보다 작은 값은 그대로 기록
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT >> 1;    //64
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    /**
+     * 응답이 expectedInterval 보다 오래 걸렸다면, 그동안 보내지 못한 요청들이 겪었을 지연시간도 함께 기록한다.
+     * 닫힌 루프(closed-loop) 부하에서 느린 응답 때문에 요청을 덜 보내서 생기는 coordinated omission 을 보정한다.
+     */
+    public void recordCorrected(long value, long expectedInterval) {
+        record(value);
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+            record(missing);
+        }
+    }
+
+    public void add(LongHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public double getMean() {
+        long total = 0;
+        double sum = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = counts.get(i);
+            if (count != 0) {
+                total += count;
+                sum += (double) valueOf(i) * count;
+            }
+        }
+        return total == 0 ? 0 : sum / total;
+    }
+
+    public long getMax() {
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return valueOf(i);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return 전체 기록 중 percentile 만큼이 이 값 이하 (구간의 상한값으로 반환)
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return valueOf(i);
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift) - HALF_SUB_BUCKET_COUNT;
+    }
+
+    /**
+     * @return 해당 구간에 기록될 수 있는 가장 큰 값
+     */
+    static long valueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        long upper = ((subBucket + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -0,0 +1,184 @@
+package hello.springcorereview.common;
+
+/**
+ * long -> long 기본형 해시맵 (open addressing, linear probing)
+ * HashMap<Long, Long> 은 항목마다 Entry, Long 키, Long 값 객체를 만들지만 이 맵은 long 배열 두 개만 사용한다.
+ * 항목당 약 16~32 byte 로, 박싱된 맵보다 메모리를 훨씬 적게 쓰고 GC 가 따라갈 참조도 없다.
+ * 동기화하지 않는다. 여러 스레드에서 사용할 때는 사용하는 쪽에서 락을 잡아야 한다.
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY = 0;   //빈 칸 표시, 키 0 은 별도 필드로 관리한다
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int resizeThreshold;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public long get(long key, long missingValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        long[] keys = this.keys;
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == EMPTY) {
+                return missingValue;
+            }
+        }
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return 이전 값, 없었으면 missingValue
+     */
+    public long put(long key, long value, long missingValue) {
+        if (key == EMPTY) {
+            long previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                size++;
+            }
+            hasZeroKey = true;
+            zeroValue = value;
+            return previous;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (current == EMPTY) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > resizeThreshold) {
+                    resize();
+                }
+                return missingValue;
+            }
+        }
+    }
+
+    /**
+     * @return 지운 값, 없었으면 missingValue
+     */
+    public long remove(long key, long missingValue) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                return missingValue;
+            }
+            hasZeroKey = false;
+            size--;
+            return zeroValue;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == EMPTY) {
+                return missingValue;
+            }
+            if (current == key) {
+                long previous = values[slot];
+                shiftBack(slot, mask);
+                size--;
+                return previous;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 키, 값 배열이 차지하는 대략적인 바이트 수
+     */
+    public long memoryBytes() {
+        return (long) keys.length * Long.BYTES * 2;
+    }
+
+    /**
+     * 지운 칸 뒤에 같은 탐색 경로로 밀려난 항목들을 앞으로 당겨서 탐색이 끊기지 않게 한다 (tombstone 을 쓰지 않는다)
+     */
+    private void shiftBack(int emptied, int mask) {
+        int slot = emptied;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == EMPTY) {
+                break;
+            }
+            int home = slot(key, mask);
+            //home 이 (emptied, slot] 구간 밖에 있으면 emptied 로 옮겨도 탐색 경로가 유지된다
+            boolean movable = emptied <= slot
+                    ? (home <= emptied || home > slot)
+                    : (home <= emptied && home > slot);
+            if (movable) {
+                keys[emptied] = key;
+                values[emptied] = values[slot];
+                emptied = slot;
+            }
+        }
+        keys[emptied] = EMPTY;
+        values[emptied] = 0;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key, mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
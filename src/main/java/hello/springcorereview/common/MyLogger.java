@@ -25,18 +25,37 @@ import java.util.UUID;
  * 빈이 생성되는 시점에 @PostConstruct 를 사용해서 UUID 를 생성하고 저장해둔다. UUID 를 저장해두면 다른 HTTP 요청과 구분할 수 있다.
  * 빈이 소멸디는 시점에 @PreDestroy 를 사용해서 종료 메시지를 남긴다.
  * requestURL 은 빈이 생성되는 시점에 알 수 없으므로, 외부에서 setter 로 입력 받는다.
+
+ * RequestMetrics 가 켜져 있으면 생성 시점과 소멸 시점의 스레드별 할당량과 CPU 시간을 읽어서 요청 하나의 사용량을 URL 패턴별로 기록한다.
+ * 소멸 메서드는 응답을 보낸 뒤 요청을 처리한 스레드에서 호출되므로 빈이 처음 사용된 뒤의 처리가 모두 포함된다.
+ * 다른 스레드에서 소멸되면(비동기 요청) 스레드별 값을 비교할 수 없으므로 기록하지 않는다.
+ * URL 패턴(/members/{memberId}/orders 처럼)은 인터셉터가 setRequestPattern 으로 넣어준다. 없으면 requestURL 로 기록한다.
  */
 @Component
 @Scope(value = "request", proxyMode = ScopedProxyMode.TARGET_CLASS)
 public class MyLogger {
 
+    private final RequestMetrics requestMetrics;
+
     private String uuid;
     private String requestURL;
+    private String requestPattern;
+    private long threadId;
+    private long startAllocatedBytes;
+    private long startCpuTimeNanos;
+
+    public MyLogger(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
 
     public void setRequestURL(String requestURL) {
         this.requestURL = requestURL;
     }
 
+    public void setRequestPattern(String requestPattern) {
+        this.requestPattern = requestPattern;
+    }
+
     public void log(String message) {
         System.out.println("[" + uuid + "]" + "[" + requestURL + "] " + message);
     }
@@ -45,10 +64,23 @@ public class MyLogger {
     public void init() {
         uuid = UUID.randomUUID().toString();
         System.out.println("[" + uuid + "] request scope bean create : " + this);
+        if (requestMetrics.isEnabled()) {
+            threadId = Thread.currentThread().getId();
+            startAllocatedBytes = requestMetrics.currentThreadAllocatedBytes();
+            startCpuTimeNanos = requestMetrics.currentThreadCpuTimeNanos();
+        }
     }
 
     @PreDestroy
     public void close() {
-        System.out.println("[" + uuid + "] request scope bean close : " + this);
+        if (!requestMetrics.isEnabled() || threadId != Thread.currentThread().getId()) {
+            System.out.println("[" + uuid + "] request scope bean close : " + this);
+            return;
+        }
+        long allocatedBytes = startAllocatedBytes < 0 ? -1 : requestMetrics.currentThreadAllocatedBytes() - startAllocatedBytes;
+        long cpuTimeNanos = startCpuTimeNanos < 0 ? -1 : requestMetrics.currentThreadCpuTimeNanos() - startCpuTimeNanos;
+        requestMetrics.record(requestPattern != null ? requestPattern : String.valueOf(requestURL), allocatedBytes, cpuTimeNanos);
+        System.out.println("[" + uuid + "] request scope bean close : " + this
+                + " allocated=" + allocatedBytes + "B cpu=" + (cpuTimeNanos < 0 ? -1 : cpuTimeNanos / 1000) + "us");
     }
 }
@@ -0,0 +1,16 @@
+package hello.springcorereview.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * ConcurrencyLimiter 가 한도에 도달해서 요청을 거절한 경우
+ * HTTP 요청 처리 중에 발생하면 503(Service Unavailable) 로 응답한다.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OverloadException extends RuntimeException {
+
+    public OverloadException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,181 @@
+package hello.springcorereview.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * URL 패턴별로 요청 하나가 할당한 메모리(byte)와 사용한 CPU 시간을 히스토그램으로 모은다.
+ * request 스코프 빈인 MyLogger 가 생성될 때(init)와 소멸될 때(close) 현재 스레드의 값을 읽어서 차이를 기록한다.
+
+ * 값은 com.sun.management.ThreadMXBean 의 스레드별 누적값을 사용한다. (HotSpot 계열 JVM 에서만 지원, 지원하지 않으면 -1)
+ * 요청을 처리하는 스레드 하나의 값만 재므로 비동기로 다른 스레드에 넘긴 작업은 포함되지 않는다.
+
+ * request.metrics.enabled=true 일 때만 측정한다. 꺼져 있으면 MyLogger 는 isEnabled 만 확인하고 ThreadMXBean 을 호출하지 않는다.
+ * URL 패턴이 계속 늘어나지 않도록 MAX_PATTERNS 를 넘으면 나머지는 OTHER 로 모은다.
+ */
+@Component
+public class RequestMetrics {
+
+    public static final String OTHER = "other";
+    static final int MAX_PATTERNS = 1000;
+
+    private final boolean enabled;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final boolean allocationSupported;
+    private final boolean cpuTimeSupported;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public RequestMetrics(@Value("${request.metrics.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threadMXBean = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+        this.allocationSupported = enabled && threadMXBean != null && threadMXBean.isThreadAllocatedMemorySupported();
+        this.cpuTimeSupported = enabled && bean.isCurrentThreadCpuTimeSupported();
+        if (allocationSupported) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+        if (cpuTimeSupported) {
+            bean.setThreadCpuTimeEnabled(true);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return 현재 스레드가 지금까지 할당한 byte, 측정할 수 없으면 -1
+     */
+    public long currentThreadAllocatedBytes() {
+        return allocationSupported ? threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * @return 현재 스레드가 지금까지 사용한 CPU 시간(ns), 측정할 수 없으면 -1
+     */
+    public long currentThreadCpuTimeNanos() {
+        return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * @param allocatedBytes 측정하지 못했으면 음수, 히스토그램에 기록하지 않는다
+     * @param cpuTimeNanos   측정하지 못했으면 음수, 히스토그램에 기록하지 않는다
+     */
+    public void record(String pattern, long allocatedBytes, long cpuTimeNanos) {
+        Endpoint endpoint = endpoints.get(pattern);
+        if (endpoint == null) {
+            String key = endpoints.size() < MAX_PATTERNS ? pattern : OTHER;
+            endpoint = endpoints.computeIfAbsent(key, k -> new Endpoint());
+        }
+        endpoint.requests.increment();
+        if (allocatedBytes >= 0) {
+            endpoint.allocatedBytes.record(allocatedBytes);
+        }
+        if (cpuTimeNanos >= 0) {
+            endpoint.cpuTimeNanos.record(cpuTimeNanos);
+        }
+    }
+
+    /**
+     * @return URL 패턴 순으로 정렬된 요청 수와 할당량, CPU 시간 분포
+     */
+    public Map<String, EndpointStats> snapshot() {
+        Map<String, EndpointStats> result = new TreeMap<>();
+        endpoints.forEach((pattern, endpoint) -> result.put(pattern, new EndpointStats(
+                endpoint.requests.sum(),
+                new Distribution(endpoint.allocatedBytes, 1),
+                new Distribution(endpoint.cpuTimeNanos, 1000))));
+        return result;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private static class Endpoint {
+        final LongAdder requests = new LongAdder();
+        final LongHistogram allocatedBytes = new LongHistogram();
+        final LongHistogram cpuTimeNanos = new LongHistogram();
+    }
+
+    public static class EndpointStats {
+
+        private final long requests;
+        private final Distribution allocatedBytes;
+        private final Distribution cpuTimeMicros;
+
+        EndpointStats(long requests, Distribution allocatedBytes, Distribution cpuTimeMicros) {
+            this.requests = requests;
+            this.allocatedBytes = allocatedBytes;
+            this.cpuTimeMicros = cpuTimeMicros;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public Distribution getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public Distribution getCpuTimeMicros() {
+            return cpuTimeMicros;
+        }
+    }
+
+    /**
+     * 히스토그램 값을 divisor 로 나눠서 보여준다. (CPU 시간은 ns 로 기록하고 us 로 보여준다)
+     */
+    public static class Distribution {
+
+        private final long count;
+        private final long mean;
+        private final long p50;
+        private final long p99;
+        private final long max;
+        private final long total;
+
+        Distribution(LongHistogram histogram, long divisor) {
+            this.count = histogram.getCount();
+            this.mean = (long) (histogram.getMean() / divisor);
+            this.p50 = histogram.getValueAtPercentile(50) / divisor;
+            this.p99 = histogram.getValueAtPercentile(99) / divisor;
+            this.max = histogram.getMax() / divisor;
+            this.total = (long) (histogram.getMean() * count / divisor);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return 대략적인 합계 (평균 x 개수), 어떤 엔드포인트가 할당을 가장 많이 하는지 비교하는 용도
+         */
+        public long getTotal() {
+            return total;
+        }
+    }
+}
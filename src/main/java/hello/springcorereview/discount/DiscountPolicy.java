@@ -1,5 +1,6 @@
 package hello.springcorereview.discount;
 
+import hello.springcorereview.member.Grade;
 import hello.springcorereview.member.Member;
 
 public interface DiscountPolicy {
@@ -8,4 +9,24 @@ public interface DiscountPolicy {
      * @return 할인 대상 금액
      */
     int discount(Member member, int price);
+
+    /**
+     * 등급만으로 할인 금액을 계산한다. 회원 전체를 조회하지 않고 등급만 조회하는 경로(MemberRepository.findGrade 등)에서 사용한다.
+     * 기본 구현은 등급만 채운 Member 로 discount(Member, int) 를 호출한다. 등급만 보는 구현체는 재정의해서 Member 를 만들지 않는다.
+     * @return 할인 대상 금액
+     */
+    default int discount(Grade grade, int price) {
+        return discount(new Member(null, null, grade), price);
+    }
+
+    /**
+     * 여러 건을 한 번에 계산하는 배치 할인
+     * grades[i] 는 Grade.code() 값, out[i] 에 prices[i] 에 대한 할인 금액을 채운다.
+     * 기본 구현은 건마다 discount(Grade, int) 를 호출하고, 구현체는 분기 없는 루프로 재정의할 수 있다.
+     */
+    default void discountAll(byte[] grades, int[] prices, int[] out, int len) {
+        for (int i = 0; i < len; i++) {
+            out[i] = discount(Grade.fromCode(grades[i]), prices[i]);
+        }
+    }
 }
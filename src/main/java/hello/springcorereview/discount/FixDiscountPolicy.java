@@ -12,10 +12,25 @@ public class FixDiscountPolicy implements DiscountPolicy {
 
     @Override
     public int discount(Member member, int price) {
-        if(member.getGrade() == Grade.VIP) {    //equals 도 == 을 비교하고 있다, == 의 경우 compile 타임에 타입 미스매칭 까지 확인 가능
+        return discount(member.getGrade(), price);
+    }
+
+    @Override
+    public int discount(Grade grade, int price) {
+        if(grade == Grade.VIP) {    //equals 도 == 을 비교하고 있다, == 의 경우 compile 타임에 타입 미스매칭 까지 확인 가능
             return discountFixAmount;
         } else {
             return 0;
         }
     }
+
+    @Override
+    public void discountAll(byte[] grades, int[] prices, int[] out, int len) {
+        final int vip = Grade.VIP.code();
+        for (int i = 0; i < len; i++) {
+            int diff = grades[i] - vip;
+            int isVip = 1 - ((diff | -diff) >>> 31);    //분기 없이 VIP 여부를 0/1 로 계산
+            out[i] = discountFixAmount * isVip;
+        }
+    }
 }
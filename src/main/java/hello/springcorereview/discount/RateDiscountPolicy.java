@@ -15,10 +15,29 @@ public class RateDiscountPolicy implements DiscountPolicy {
 
     @Override
     public int discount(Member member, int price) {
-        if(member.getGrade() == Grade.VIP) {
+        return discount(member.getGrade(), price);
+    }
+
+    @Override
+    public int discount(Grade grade, int price) {
+        if(grade == Grade.VIP) {
             return price * discountPercent / 100;
         } else {
             return 0;
         }
     }
+
+    /**
+     * 분기 없는 배치 할인
+     * VIP 여부를 0/1 값으로 만들어 곱하기 때문에 루프 안에 조건 분기가 없고, JIT 가 루프를 펼치거나 벡터화하기 쉽다.
+     */
+    @Override
+    public void discountAll(byte[] grades, int[] prices, int[] out, int len) {
+        final int vip = Grade.VIP.code();
+        for (int i = 0; i < len; i++) {
+            int diff = grades[i] - vip;
+            int isVip = 1 - ((diff | -diff) >>> 31);    //diff == 0 이면 1, 아니면 0
+            out[i] = prices[i] * discountPercent / 100 * isVip;
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package hello.springcorereview.lifecycle;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @ConcurrentInit 을 처리하는 ConcurrentInitProcessor 를 등록한다. startup.concurrent-init.enabled=true 일 때만 등록한다.
+ * 꺼져 있으면 @ConcurrentInit 메서드는 호출되지 않으므로 @ConcurrentInit 을 사용하는 빈을 추가할 때는 함께 켜야 한다.
+ * startup.concurrent-init.threads=0 이면 동시에 실행하지 않고 차례대로 실행한다.
+ * BeanPostProcessor 는 다른 빈보다 먼저 만들어져야 하므로 static @Bean 메서드로 등록한다.(설정 클래스를 먼저 만들지 않는다)
+ */
+@Configuration
+@ConditionalOnProperty(name = "startup.concurrent-init.enabled", havingValue = "true")
+public class ConcurrentInitConfig {
+
+    @Bean
+    public static ConcurrentInitProcessor concurrentInitProcessor(@Value("${startup.concurrent-init.threads:4}") int threads) {
+        return new ConcurrentInitProcessor(threads);
+    }
+}
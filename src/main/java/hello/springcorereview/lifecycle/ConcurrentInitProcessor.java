@@ -0,0 +1,335 @@
+package hello.springcorereview.lifecycle;
+
+import hello.springcorereview.annotation.ConcurrentInit;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ConcurrentInit 이 붙은 초기화 메서드를 제한된 스레드 풀에서 동시에 실행하는 BeanPostProcessor
+ * 초기화 콜백을 모두 메인 스레드에서 차례대로 실행하면 시작 시간은 모든 초기화 시간의 합이 된다.
+ * 서로 의존하지 않는 초기화(커넥션 연결, 캐시 워밍 등)를 동시에 실행하면 시작 시간은 가장 긴 의존 경로(critical path)로 줄어든다.
+
+ * 순서
+ * 빈의 의존관계 주입, 초기화가 끝나면(postProcessAfterInitialization) 초기화 작업을 등록한다.
+ * 의존하는 빈(직접 또는 일반 빈을 거쳐서 간접적으로)의 @ConcurrentInit 이 모두 끝난 뒤에 실행된다.
+ * @ConcurrentInit 이 없는 일반 빈은 자신의 초기화(@PostConstruct 등) 전에 의존하는 @ConcurrentInit 이 끝나기를 기다린다.
+ * 그래서 PriorityOrdered 로 다른 BeanPostProcessor(@PostConstruct 를 처리하는 CommonAnnotationBeanPostProcessor 등)보다 먼저 실행한다.
+ * 모든 싱글톤 빈이 만들어지면(afterSingletonsInstantiated) required 인 초기화가 끝날 때까지 기다린 뒤 컨테이너 시작을 마친다.
+ * required 인 초기화가 실패하면 컨테이너 시작이 실패한다. required = false 인 초기화의 실패는 출력만 한다.
+
+ * threads 가 0 이면 동시에 실행하지 않고 등록 즉시 현재 스레드에서 실행한다.(기존 @PostConstruct 와 같은 동작)
+ * 시작이 끝난 뒤에 만들어진 빈(lazy, prototype 등)도 현재 스레드에서 실행한다. 스레드 풀은 시작할 때 등록한 초기화가 모두 끝나면 종료하는데,
+ * 스레드 풀에 넘길지 정하는 것과 시작을 끝내는 것을 같은 락 안에서 하므로 종료된 스레드 풀에 작업을 넘기지 않는다.(RejectedExecutionException)
+ * 시작이 끝나면 빈마다 초기화 시간과 critical path 를 출력한다.(getReport)
+ */
+public class ConcurrentInitProcessor implements BeanPostProcessor, BeanFactoryAware, SmartInitializingSingleton,
+        PriorityOrdered, DisposableBean {
+
+    private final long createdNanos = System.nanoTime();
+    private final int threads;
+    private final ExecutorService executor;
+    private final Map<String, InitTask> tasks = new ConcurrentHashMap<>();
+    private final Object startupLock = new Object();
+    private boolean started;    //startupLock 으로 보호한다, true 이면 더 이상 스레드 풀에 작업을 넘기지 않는다
+    private ConfigurableListableBeanFactory beanFactory;
+
+    /**
+     * @param threads 초기화를 실행할 스레드 수, 0 이면 현재 스레드에서 차례대로 실행한다
+     */
+    public ConcurrentInitProcessor(int threads) {
+        this.threads = threads;
+        if (threads > 0) {
+            AtomicInteger sequence = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "concurrent-init-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        if (!(beanFactory instanceof ConfigurableListableBeanFactory)) {
+            throw new IllegalArgumentException("ConcurrentInitProcessor requires a ConfigurableListableBeanFactory");
+        }
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (initMethods(bean).isEmpty()) {
+            for (InitTask dependency : dependencyTasks(beanName)) {
+                await(dependency);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        List<Method> methods = initMethods(bean);
+        if (methods.isEmpty()) {
+            return bean;
+        }
+        boolean required = false;
+        for (Method method : methods) {
+            required |= method.getAnnotation(ConcurrentInit.class).required();
+        }
+        List<InitTask> dependencies = dependencyTasks(beanName);
+        InitTask task = new InitTask(beanName, bean, methods, required, dependencies);
+
+        if (!scheduleAsync(task)) {
+            //순차 모드, 또는 시작이 끝난 뒤에 만들어진 빈(lazy, prototype 등)은 바로 실행한다
+            dependencies.forEach(ConcurrentInitProcessor::await);
+            try {
+                task.run();
+                task.future = CompletableFuture.completedFuture(null);
+            } catch (RuntimeException e) {
+                task.future = CompletableFuture.failedFuture(e);
+                throw e;
+            } finally {
+                tasks.put(beanName, task);
+            }
+            return bean;
+        }
+        if (!required) {
+            task.future.whenComplete((result, e) -> {
+                if (e != null) {
+                    System.out.println("ConcurrentInitProcessor optional init failed, bean = " + beanName + ", " + unwrap(e));
+                }
+            });
+        }
+        return bean;
+    }
+
+    /**
+     * 시작 중이면 의존하는 초기화가 끝난 뒤 스레드 풀에서 실행하도록 등록한다.
+     * @return 시작이 끝났거나 순차 모드라서 등록하지 않았으면 false
+     */
+    private boolean scheduleAsync(InitTask task) {
+        synchronized (startupLock) {
+            if (executor == null || started) {
+                return false;
+            }
+            CompletableFuture<?>[] dependencyFutures = task.dependencies.stream().map(t -> t.future).toArray(CompletableFuture[]::new);
+            task.future = CompletableFuture.allOf(dependencyFutures).thenRunAsync(task::run, executor);
+            tasks.put(task.beanName, task);
+            return true;
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (InitTask task : tasks.values()) {
+            if (task.required) {
+                await(task);
+            }
+        }
+        if (executor != null) {
+            //이후에 만들어지는 빈은 현재 스레드에서 실행하므로, 지금까지 등록한 초기화(아직 실행중인 required = false 포함)가 끝나면 스레드 풀을 정리한다
+            CompletableFuture<?>[] all;
+            synchronized (startupLock) {
+                started = true;
+                all = tasks.values().stream().map(t -> t.future).toArray(CompletableFuture[]::new);
+            }
+            CompletableFuture.allOf(all).whenComplete((result, e) -> executor.shutdown());
+        }
+        System.out.println(getReport());
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 빈마다 초기화 시작 시각(프로세서 생성 기준), 기다린 시간, 실행 시간과 critical path
+     */
+    public String getReport() {
+        List<InitTask> sorted = new ArrayList<>(tasks.values());
+        sorted.sort(Comparator.comparingLong(t -> t.startNanos));
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("concurrent init report (threads = %d)%n", threads));
+        report.append(String.format("%-30s %-20s %10s %10s %10s %8s%n", "bean", "thread", "start(ms)", "wait(ms)", "init(ms)", "required"));
+        long totalInit = 0;
+        for (InitTask task : sorted) {
+            if (!task.isFinished()) {
+                report.append(String.format("%-30s %-20s %10s %10s %10s %8s%n", task.beanName, "-", "-", "-", "running", task.required));
+                continue;
+            }
+            totalInit += task.endNanos - task.startNanos;
+            report.append(String.format("%-30s %-20s %10.1f %10.1f %10.1f %8s%n", task.beanName, task.thread,
+                    millis(task.startNanos - createdNanos), millis(task.startNanos - task.scheduledNanos),
+                    millis(task.endNanos - task.startNanos), task.required));
+        }
+        report.append(String.format("sum of init = %.1fms%n", millis(totalInit)));
+        report.append(criticalPathReport());
+        return report.toString();
+    }
+
+    /**
+     * 가장 늦게 끝난 초기화에서 시작해서, 그 초기화를 가장 늦게까지 붙잡은(가장 늦게 끝난) 의존 초기화를 따라간다.
+     * @return 시작 순서의 빈 이름 목록
+     */
+    public List<String> getCriticalPath() {
+        InitTask current = null;
+        for (InitTask task : tasks.values()) {
+            if (task.isFinished() && (current == null || task.endNanos > current.endNanos)) {
+                current = task;
+            }
+        }
+        List<String> path = new ArrayList<>();
+        while (current != null) {
+            path.add(0, current.beanName);
+            InitTask latest = null;
+            for (InitTask dependency : current.dependencies) {
+                if (dependency.isFinished() && (latest == null || dependency.endNanos > latest.endNanos)) {
+                    latest = dependency;
+                }
+            }
+            current = latest;
+        }
+        return path;
+    }
+
+    private String criticalPathReport() {
+        List<String> path = getCriticalPath();
+        StringBuilder line = new StringBuilder("critical path = ");
+        long total = 0;
+        for (int i = 0; i < path.size(); i++) {
+            InitTask task = tasks.get(path.get(i));
+            long duration = task.endNanos - task.startNanos;
+            total += duration;
+            line.append(i == 0 ? "" : " -> ").append(task.beanName).append(String.format("(%.1fms)", millis(duration)));
+        }
+        return line.append(String.format(", %.1fms", millis(total))).toString();
+    }
+
+    /**
+     * 일반 빈을 거쳐서 간접적으로 의존하는 초기화 작업까지 찾는다.
+     * 초기화 작업을 찾으면 그 작업이 자신의 의존 작업을 기다리므로 더 따라가지 않는다.
+     */
+    private List<InitTask> dependencyTasks(String beanName) {
+        List<InitTask> result = new ArrayList<>();
+        collectDependencyTasks(beanName, new HashSet<>(), result);
+        return result;
+    }
+
+    private void collectDependencyTasks(String beanName, Set<String> visited, List<InitTask> result) {
+        for (String dependency : beanFactory.getDependenciesForBean(beanName)) {
+            if (!visited.add(dependency)) {
+                continue;
+            }
+            InitTask task = tasks.get(dependency);
+            if (task != null) {
+                result.add(task);
+            } else {
+                collectDependencyTasks(dependency, visited, result);
+            }
+        }
+    }
+
+    private static List<Method> initMethods(Object bean) {
+        List<Method> methods = new ArrayList<>();
+        ReflectionUtils.doWithMethods(ClassUtils.getUserClass(bean), methods::add,
+                method -> method.isAnnotationPresent(ConcurrentInit.class) && method.getParameterCount() == 0);
+        return methods;
+    }
+
+    private static void await(InitTask task) {
+        try {
+            task.future.join();
+        } catch (CompletionException e) {
+            throw new BeanCreationException(task.beanName, "concurrent init failed", unwrap(e));
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof BeanCreationException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class InitTask {
+
+        final String beanName;
+        final Object bean;
+        final List<Method> methods;
+        final boolean required;
+        final List<InitTask> dependencies;
+        final long scheduledNanos = System.nanoTime();
+        volatile CompletableFuture<Void> future;
+        volatile long startNanos;
+        volatile long endNanos;
+        volatile String thread;
+
+        InitTask(String beanName, Object bean, List<Method> methods, boolean required, List<InitTask> dependencies) {
+            this.beanName = beanName;
+            this.bean = bean;
+            this.methods = methods;
+            this.required = required;
+            this.dependencies = dependencies;
+        }
+
+        void run() {
+            thread = Thread.currentThread().getName();
+            startNanos = System.nanoTime();
+            try {
+                for (Method method : methods) {
+                    ReflectionUtils.makeAccessible(method);
+                    method.invoke(bean);
+                }
+            } catch (InvocationTargetException e) {
+                throw new BeanCreationException(beanName, "concurrent init failed", e.getTargetException());
+            } catch (IllegalAccessException e) {
+                throw new BeanCreationException(beanName, "concurrent init method is not accessible", e);
+            } finally {
+                endNanos = System.nanoTime();
+            }
+        }
+
+        boolean isFinished() {
+            return endNanos != 0;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package hello.springcorereview.member;
+
+import hello.springcorereview.common.ConcurrentBloomFilter;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 존재하지 않는 회원 조회를 저장소까지 보내지 않고 걸러내는 MemberRepository 데코레이터
+ * save 된 id 를 Bloom filter 에 기록해두고, filter 에 없는 id 는 저장소를 조회하지 않고 바로 null 을 반환한다.
+ * filter 는 false negative 가 없으므로 실제로 있는 회원을 놓치는 일은 없고, 오탐(false positive)일 때만 저장소를 한 번 더 조회한다.
+
+ * filter 는 처음부터 채워지지 않으므로 기존 데이터가 있는 저장소를 감쌀 때는 rebuild 로 전체 회원을 한 번 훑어서 채운다.
+ * 회원이 많이 늘어 채움 비율(fill ratio)이 높아졌을 때도 더 큰 크기로 rebuild 할 수 있다.
+ * 스프링 빈으로 자동 등록하지 않는다.(MemberRepository 타입 빈이 여러개가 되면 자동 주입이 실패한다)
+ */
+public class BloomFilterMemberRepository implements MemberRepository {
+
+    private final MemberRepository delegate;
+    private volatile ConcurrentBloomFilter filter;
+    private volatile ConcurrentBloomFilter rebuilding;     //rebuild 중에 들어온 save 도 새 filter 에 기록하기 위해 사용
+
+    private final LongAdder avoidedLookups = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public BloomFilterMemberRepository(MemberRepository delegate, long expectedMembers, double falsePositiveRate) {
+        this.delegate = delegate;
+        this.filter = new ConcurrentBloomFilter(expectedMembers, falsePositiveRate);
+    }
+
+    @Override
+    public void save(Member member) {
+        delegate.save(member);
+        long id = member.getId();
+        //rebuilding 을 filter 보다 먼저 읽는다. (rebuild 는 rebuilding 을 정한 뒤 훑기 시작하고, filter 를 바꾼 뒤 rebuilding 을 지운다)
+        //rebuilding 이 null 이면 저장소 반영이 훑기 전에 끝났거나(새 filter 에 포함된다) 교체가 끝난 뒤라서 filter 가 이미 새 filter 다.
+        //filter 를 먼저 읽으면 이전 filter 에만 기록한 뒤 교체가 끝난 rebuilding(null)을 읽어서 새 filter 에서 빠질 수 있다.
+        ConcurrentBloomFilter next = rebuilding;
+        filter.put(id);
+        if (next != null) {
+            next.put(id);
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        if (memberId != null && !filter.mightContain(memberId)) {
+            avoidedLookups.increment();
+            return null;
+        }
+        Member member = delegate.findById(memberId);
+        if (member == null) {
+            falsePositives.increment();
+        }
+        return member;
+    }
+
+    /**
+     * 저장소 전체를 훑은 결과로 새 filter 를 만들어 교체한다.
+     * 새 filter 를 채우는 동안 들어온 save 도 새 filter 에 기록되므로 교체 후에 빠지는 id 는 없다.
+     * 그러려면 전체 조회가 새 filter 를 준비한 뒤에 시작되어야 하므로 조회 결과가 아니라 조회하는 방법을 받는다.
+     * @param scan 저장소의 전체 회원을 조회한다 (예 : memoryMemberRepository::findAll)
+     */
+    public synchronized void rebuild(Supplier<? extends Iterable<Member>> scan, long expectedMembers, double falsePositiveRate) {
+        ConcurrentBloomFilter next = new ConcurrentBloomFilter(expectedMembers, falsePositiveRate);
+        rebuilding = next;
+        for (Member member : scan.get()) {
+            next.put(member.getId());
+        }
+        filter = next;
+        rebuilding = null;
+    }
+
+    /**
+     * @return filter 덕분에 저장소를 조회하지 않고 끝난 조회 수
+     */
+    public long getAvoidedLookupCount() {
+        return avoidedLookups.sum();
+    }
+
+    /**
+     * @return filter 를 통과했지만 저장소에 없었던 조회 수
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    public double getFillRatio() {
+        return filter.getFillRatio();
+    }
+}
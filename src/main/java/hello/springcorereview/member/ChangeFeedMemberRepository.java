@@ -0,0 +1,40 @@
+package hello.springcorereview.member;
+
+/**
+ * save 가 성공하면 변경 이벤트를 MemberChangeFeed 로 발행하는 MemberRepository 데코레이터
+ * 저장소에 반영한 뒤에 발행하므로 구독자가 이벤트를 받은 시점에는 findById 로 저장된 값을 조회할 수 있다.
+ * 저장에 실패하면 발행하지 않는다.
+ */
+public class ChangeFeedMemberRepository implements MemberRepository {
+
+    private final MemberRepository delegate;
+    private final MemberChangeFeed feed;
+
+    public ChangeFeedMemberRepository(MemberRepository delegate, MemberChangeFeed feed) {
+        this.delegate = delegate;
+        this.feed = feed;
+    }
+
+    @Override
+    public void save(Member member) {
+        delegate.save(member);
+        feed.publish(member);
+    }
+
+    @Override
+    public void saveAll(Iterable<Member> members) {
+        delegate.saveAll(members);
+        for (Member member : members) {
+            feed.publish(member);
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        return delegate.findById(memberId);
+    }
+
+    public MemberChangeFeed getFeed() {
+        return feed;
+    }
+}
@@ -2,5 +2,18 @@ package hello.springcorereview.member;
 
 public enum Grade {
     BASIC,
-    VIP
+    VIP;
+
+    private static final Grade[] VALUES = values();
+
+    /**
+     * 배열, 버퍼 등에 1 byte 로 저장하기 위한 등급 코드 (ordinal 과 동일)
+     */
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    public static Grade fromCode(byte code) {
+        return VALUES[code];
+    }
 }
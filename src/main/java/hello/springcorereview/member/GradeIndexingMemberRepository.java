@@ -0,0 +1,84 @@
+package hello.springcorereview.member;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * save 할 때마다 MemberGradeIndex 에 회원 등급을 기록하는 MemberRepository 데코레이터
+ * 저장소에 반영한 뒤에 색인을 바꾸므로, 색인에서 등급을 읽은 회원은 findById 로도 조회할 수 있다.
+ * findGrade, findGrades 는 색인에서 먼저 읽고, 색인에 없는 회원만 감싼 저장소에서 조회한다.
+ * 색인은 이 저장소의 save 로만 갱신되므로 이 저장소를 통해서만 읽는다.(다른 저장소를 쓰는 서비스가 색인을 읽으면 등급이 어긋난다)
+ * 기존 데이터가 있는 저장소를 감쌀 때는 rebuild 로 색인을 채운다.
+ */
+public class GradeIndexingMemberRepository implements MemberRepository {
+
+    private final MemberRepository delegate;
+    private final MemberGradeIndex index;
+
+    public GradeIndexingMemberRepository(MemberRepository delegate, MemberGradeIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public void save(Member member) {
+        delegate.save(member);
+        index.put(member.getId(), member.getGrade());
+    }
+
+    @Override
+    public void saveAll(Iterable<Member> members) {
+        delegate.saveAll(members);
+        for (Member member : members) {
+            index.put(member.getId(), member.getGrade());
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        return delegate.findById(memberId);
+    }
+
+    @Override
+    public Grade findGrade(long memberId) {
+        byte code = index.get(memberId);
+        return code != MemberGradeIndex.MISSING ? Grade.fromCode(code) : delegate.findGrade(memberId);
+    }
+
+    @Override
+    public Map<Long, Grade> findGrades(Collection<Long> memberIds) {
+        Map<Long, Grade> result = new HashMap<>(memberIds.size() * 2);
+        List<Long> misses = new ArrayList<>();
+        for (Long memberId : memberIds) {
+            byte code = index.get(memberId);
+            if (code != MemberGradeIndex.MISSING) {
+                result.put(memberId, Grade.fromCode(code));
+            } else {
+                misses.add(memberId);
+            }
+        }
+        if (!misses.isEmpty()) {
+            result.putAll(delegate.findGrades(misses));
+        }
+        return result;
+    }
+
+    /**
+     * 저장소 전체를 훑어서 색인에 없는 회원을 채운다.
+     * 훑는 동안 들어온 save 가 더 최신이므로 이미 색인에 있는 회원은 덮어쓰지 않는다.
+     * @param scan 저장소의 전체 회원을 조회한다 (예 : memoryMemberRepository::findAll)
+     */
+    public void rebuild(Supplier<? extends Iterable<Member>> scan) {
+        for (Member member : scan.get()) {
+            index.putIfAbsent(member.getId(), member.getGrade());
+        }
+    }
+
+    public MemberGradeIndex getIndex() {
+        return index;
+    }
+}
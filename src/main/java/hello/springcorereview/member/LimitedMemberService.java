@@ -0,0 +1,32 @@
+package hello.springcorereview.member;
+
+import hello.springcorereview.common.ConcurrencyLimiter;
+
+/**
+ * join 을 ConcurrencyLimiter 안에서 실행하는 MemberService 데코레이터
+ * 한도에 도달하면 OverloadException 으로 바로 거절한다.
+ */
+public class LimitedMemberService implements MemberService {
+
+    private final MemberService delegate;
+    private final ConcurrencyLimiter limiter;
+
+    public LimitedMemberService(MemberService delegate, ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public void join(Member member) {
+        limiter.run(() -> delegate.join(member));
+    }
+
+    @Override
+    public Member findMember(Long memberId) {
+        return delegate.findMember(memberId);
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
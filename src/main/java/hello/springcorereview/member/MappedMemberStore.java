@@ -0,0 +1,110 @@
+package hello.springcorereview.member;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 로컬 파일을 메모리 매핑(mmap)해서 Member 레코드를 저장하는 cold tier
+ * 레코드는 파일 뒤쪽에 이어 붙이고, 덮어쓰거나 지운 레코드는 빈 공간으로 남긴다.
+ * 공간이 모자라면 살아있는 레코드를 앞쪽으로 당겨서 압축하고, 그래도 모자라면 IllegalStateException 이 발생한다.
+ * 파일 내용은 OS 페이지 캐시가 관리하므로 GC 대상이 아니다. 힙에는 id -> 위치 색인만 남는다.
+ * 동기화는 사용하는 쪽(TieredMemberRepository)이 책임진다.
+ */
+class MappedMemberStore implements AutoCloseable {
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Map<Long, Integer> offsets = new HashMap<>();
+    private int writePosition;
+    private int deadBytes;
+
+    MappedMemberStore(Path file, int capacityBytes) {
+        this.file = file;
+        try {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacityBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to map cold tier file " + file, e);
+        }
+    }
+
+    void put(Member member) {
+        remove(member.getId());
+        byte[] name = MemberRecords.encodeName(member);
+        int size = MemberRecords.recordSize(name);
+        if (writePosition + size > buffer.capacity()) {
+            compact();
+            if (writePosition + size > buffer.capacity()) {
+                throw new IllegalStateException("cold tier is full, capacity = " + buffer.capacity() + " bytes");
+            }
+        }
+        MemberRecords.write(buffer, writePosition, member, name);
+        offsets.put(member.getId(), writePosition);
+        writePosition += size;
+    }
+
+    Member get(Long memberId) {
+        Integer offset = offsets.get(memberId);
+        return offset == null ? null : MemberRecords.read(buffer, offset);
+    }
+
+    boolean remove(Long memberId) {
+        Integer offset = offsets.remove(memberId);
+        if (offset == null) {
+            return false;
+        }
+        deadBytes += MemberRecords.readRecordSize(buffer, offset);
+        return true;
+    }
+
+    int size() {
+        return offsets.size();
+    }
+
+    int usedBytes() {
+        return writePosition - deadBytes;
+    }
+
+    /**
+     * 앞에서부터 레코드를 훑으면서 색인이 가리키는 살아있는 레코드만 앞쪽으로 당긴다.
+     * 옮기는 위치는 항상 원래 위치보다 앞이므로 아직 읽지 않은 레코드를 덮어쓰지 않는다.
+     */
+    private void compact() {
+        int read = 0;
+        int write = 0;
+        while (read < writePosition) {
+            long id = MemberRecords.readId(buffer, read);
+            int size = MemberRecords.readRecordSize(buffer, read);
+            Integer live = offsets.get(id);
+            if (live != null && live == read) {
+                if (write != read) {
+                    MemberRecords.moveDown(buffer, read, write, size);
+                    offsets.put(id, write);
+                }
+                write += size;
+            }
+            read += size;
+        }
+        writePosition = write;
+        deadBytes = 0;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
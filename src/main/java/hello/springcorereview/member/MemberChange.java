@@ -0,0 +1,46 @@
+package hello.springcorereview.member;
+
+/**
+ * MemberChangeFeed 가 구독자에게 전달하는 변경 이벤트 (저장된 회원의 id, 이름, 등급)
+ * 구독마다 하나를 재사용하므로 ChangeHandler.onChange 안에서만 유효하다. 보관하려면 값을 복사해야 한다.
+ */
+public class MemberChange {
+
+    private long sequence;
+    private long memberId;
+    private String name;
+    private Grade grade;
+
+    void set(long sequence, long memberId, String name, Grade grade) {
+        this.sequence = sequence;
+        this.memberId = memberId;
+        this.name = name;
+        this.grade = grade;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Grade getGrade() {
+        return grade;
+    }
+
+    @Override
+    public String toString() {
+        return "MemberChange{" +
+                "sequence=" + sequence +
+                ", memberId=" + memberId +
+                ", name='" + name + '\'' +
+                ", grade=" + grade +
+                '}';
+    }
+}
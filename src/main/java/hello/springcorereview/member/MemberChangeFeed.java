@@ -0,0 +1,313 @@
+package hello.springcorereview.member;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 회원 저장(save) 이벤트를 구독자에게 전달하는 링 버퍼 (여러 생산자, 여러 구독자)
+ * 캐시, 색인처럼 MemberRepository 위에 만든 데이터가 polling 없이 변경을 알 수 있도록 한다.
+
+ * 이벤트는 id, 이름, 등급만 가지는 작은 레코드이고, 링의 칸은 생성할 때 배열로 미리 만들어 두고 돌려 쓴다.(발행할 때 객체를 만들지 않는다)
+ * 생산자는 AtomicLong 으로 순번(sequence)을 받아 칸에 쓰고, 칸의 published 값을 순번으로 바꿔서 발행한다.
+ * 구독자는 각자 순번 커서를 가지고 발행된 이벤트를 최대 maxBatch 개씩 모아서 처리한다.(endOfBatch 로 묶음의 끝을 알린다)
+
+ * 링이 가득 차면 생산자는 가장 느린 구독자가 칸을 비울 때까지 기다린다.
+ * slowConsumerTimeout 이 지나도 비워지지 않으면 그 구독자를 느린 구독자로 판단하고 기다리는 대상에서 뺀다.(save 가 구독자 때문에 멈추지 않도록)
+ * 빠진 구독자는 다음 poll 에서 onOverrun 으로 놓친 이벤트 수를 받고 현재 위치부터 다시 구독한다.(저장소에서 다시 읽어서 재구성해야 한다)
+
+ * 칸을 읽을 때는 seqlock 처럼 읽기 전후의 published 값을 비교해서, 읽는 도중 덮어쓰인 칸은 처리하지 않고 overrun 으로 처리한다.
+ * 같은 id 를 여러 스레드가 동시에 저장하면 이벤트 순서와 저장소에 반영된 순서가 다를 수 있다.
+ * 최신 값이 꼭 필요한 구독자는 이벤트의 id 로 저장소를 다시 조회해야 한다.
+ */
+public class MemberChangeFeed {
+
+    public enum WaitStrategy {
+        BUSY_SPIN,  //지연시간이 가장 짧지만 CPU 하나를 계속 사용한다
+        YIELDING,   //다른 스레드에 양보하면서 확인한다
+        SLEEPING,   //짧게 잠들면서 확인한다, CPU 사용이 적다
+        BLOCKING    //발행될 때 깨워준다, 발행하는 쪽에서 대기중인 구독자가 있을 때만 lock 을 잡는다
+    }
+
+    public interface ChangeHandler {
+
+        /**
+         * @param change      재사용되는 객체이므로 메서드 안에서만 사용한다
+         * @param endOfBatch  이번 묶음의 마지막 이벤트인지, 모아서 처리하는 구독자가 한 번에 반영하는 시점으로 사용한다
+         */
+        void onChange(MemberChange change, boolean endOfBatch);
+
+        /**
+         * 느린 구독자로 판단되어 이벤트를 놓쳤을 때 호출된다. 이후 이벤트는 현재 위치부터 다시 전달된다.
+         */
+        default void onOverrun(long missed) {
+        }
+    }
+
+    private static final long SLEEP_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final int capacity;
+    private final int mask;
+    private final long slowConsumerTimeoutNanos;
+
+    private final long[] ids;
+    private final String[] names;
+    private final byte[] grades;
+    private final AtomicLongArray published;    //칸에 발행된 순번, 쓰는 중이면 -1
+
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final AtomicInteger blockedWaiters = new AtomicInteger();
+
+    private final LongAdder publishedCount = new LongAdder();
+    private final LongAdder producerWaits = new LongAdder();
+    private final LongAdder slowConsumers = new LongAdder();
+
+    /**
+     * @param capacity 2의 거듭제곱
+     */
+    public MemberChangeFeed(int capacity, long slowConsumerTimeout, TimeUnit unit) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two : " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slowConsumerTimeoutNanos = unit.toNanos(slowConsumerTimeout);
+        this.ids = new long[capacity];
+        this.names = new String[capacity];
+        this.grades = new byte[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+    }
+
+    public void publish(Member member) {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - capacity;
+        if (wrapPoint >= 0) {
+            awaitCapacity(wrapPoint);
+        }
+        int slot = (int) (sequence & mask);
+        published.set(slot, -1);
+        VarHandle.storeStoreFence();    //-1 이 칸의 값보다 먼저 보이도록
+        ids[slot] = member.getId();
+        names[slot] = member.getName();
+        grades[slot] = member.getGrade().code();
+        published.setRelease(slot, sequence);
+        publishedCount.increment();
+
+        if (blockedWaiters.get() > 0) {
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 모든 구독자가 wrapPoint 를 처리할 때까지 기다린다. slowConsumerTimeout 이 지나면 뒤처진 구독자를 뺀다.
+     * save 경로이므로 로그를 남기지 않는다. 뺀 수는 getSlowConsumerCount 로, 빠진 구독자는 다음 poll 의 onOverrun 으로 알 수 있다.
+     */
+    private void awaitCapacity(long wrapPoint) {
+        long deadline = 0;
+        while (minimumSequence() < wrapPoint) {
+            long now = System.nanoTime();
+            if (deadline == 0) {
+                deadline = now + slowConsumerTimeoutNanos;
+                producerWaits.increment();
+            } else if (now - deadline > 0) {
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.sequence < wrapPoint && subscriptions.remove(subscription)) {
+                        subscription.detached = true;
+                        slowConsumers.increment();
+                    }
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private long minimumSequence() {
+        long minimum = Long.MAX_VALUE;
+        for (Subscription subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence);
+        }
+        return minimum;
+    }
+
+    /**
+     * 구독을 시작한다. 구독 이후에 발행된 이벤트부터 받는다.
+     */
+    public Subscription subscribe(String name, WaitStrategy waitStrategy) {
+        Subscription subscription = new Subscription(name, waitStrategy);
+        subscription.sequence = claimed.get();
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public class Subscription implements AutoCloseable {
+
+        private final String name;
+        private final WaitStrategy waitStrategy;
+        private final MemberChange change = new MemberChange();
+        private volatile long sequence;     //처리를 마친 마지막 순번
+        private volatile boolean detached;
+
+        private Subscription(String name, WaitStrategy waitStrategy) {
+            this.name = name;
+            this.waitStrategy = waitStrategy;
+        }
+
+        /**
+         * 발행된 이벤트를 최대 maxBatch 개 처리하고 바로 반환한다.
+         * @return 처리한 이벤트 수
+         */
+        public int poll(ChangeHandler handler, int maxBatch) {
+            if (detached) {
+                rejoin(handler);
+            }
+            long next = sequence + 1;
+            int available = 0;
+            while (available < maxBatch && published.get((int) ((next + available) & mask)) == next + available) {
+                available++;
+            }
+            for (int i = 0; i < available; i++) {
+                long current = next + i;
+                if (!read(current)) {
+                    detached = true;    //읽는 도중 덮어쓰였다, 이미 기다리는 대상에서 빠진 구독자
+                    return i;
+                }
+                handler.onChange(change, i == available - 1);
+                sequence = current;
+            }
+            return available;
+        }
+
+        /**
+         * 이벤트가 발행될 때까지 대기 전략에 따라 최대 timeout 동안 기다린 뒤 처리한다.
+         * @return 처리한 이벤트 수, 시간 안에 발행된 이벤트가 없으면 0
+         */
+        public int await(ChangeHandler handler, int maxBatch, long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (true) {
+                int processed = poll(handler, maxBatch);
+                if (processed > 0) {
+                    return processed;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return 0;
+                }
+                switch (waitStrategy) {
+                    case BUSY_SPIN:
+                        Thread.onSpinWait();
+                        break;
+                    case YIELDING:
+                        Thread.yield();
+                        break;
+                    case SLEEPING:
+                        LockSupport.parkNanos(Math.min(remaining, SLEEP_NANOS));
+                        break;
+                    case BLOCKING:
+                        block(remaining);
+                        break;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        private void block(long nanos) throws InterruptedException {
+            lock.lock();
+            blockedWaiters.incrementAndGet();
+            try {
+                if (!hasAvailable()) {      //등록한 뒤에 다시 확인해서 signal 을 놓치지 않는다
+                    notEmpty.awaitNanos(nanos);
+                }
+            } finally {
+                blockedWaiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+
+        private boolean hasAvailable() {
+            long next = sequence + 1;
+            return detached || published.get((int) (next & mask)) == next;
+        }
+
+        private boolean read(long current) {
+            int slot = (int) (current & mask);
+            change.set(current, ids[slot], names[slot], Grade.fromCode(grades[slot]));
+            VarHandle.acquireFence();       //칸의 값을 읽은 뒤에 published 를 다시 읽도록
+            return published.get(slot) == current;
+        }
+
+        private void rejoin(ChangeHandler handler) {
+            long resume = claimed.get();
+            long missed = resume - sequence;
+            sequence = resume;
+            detached = false;
+            subscriptions.remove(this);     //읽다가 스스로 overrun 을 알아챈 경우에는 아직 목록에 있다
+            subscriptions.add(this);
+            handler.onOverrun(missed);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * @return 발행 순번과 처리한 순번의 차이
+         */
+        public long getLag() {
+            return claimed.get() - sequence;
+        }
+
+        public boolean isDetached() {
+            return detached;
+        }
+
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getPublishedCount() {
+        return publishedCount.sum();
+    }
+
+    /**
+     * @return 링이 가득 차서 생산자가 기다린 횟수
+     */
+    public long getProducerWaitCount() {
+        return producerWaits.sum();
+    }
+
+    public long getSlowConsumerCount() {
+        return slowConsumers.sum();
+    }
+}
@@ -0,0 +1,153 @@
+package hello.springcorereview.member;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 회원 id -> 등급 코드(Grade.code) 만 가지는 기본형 색인 (open addressing, linear probing)
+ * 할인 계산처럼 등급만 필요한 곳에서 Member 전체를 조회하지 않도록 한다.
+
+ * 메모리
+ * ConcurrentHashMap<Long, Member> 는 회원마다 Node, Long 키, Member, 이름 String 과 byte[] 까지 여러 객체를 따라가야 한다. (회원당 약 100 byte 이상)
+ * 이 색인은 long[] 키 배열과 byte[] 등급 배열 두 개뿐이라 회원당 (8 + 1) / 채움 비율 = 약 15 byte 이고,
+ * 키 배열을 순서대로 탐색하므로 같은 캐시 라인 안에서 조회가 끝나는 경우가 많다. GC 가 따라갈 참조도 없다.
+
+ * 동시성
+ * 쓰기(put)는 synchronized 로 하나씩 처리하고, 읽기(get)는 락 없이 처리한다.
+ * 새 칸은 등급을 먼저 쓰고 키를 release 로 써서, 키가 보이는 칸은 등급도 보이게 한다. 등급 변경은 byte 하나라서 찢어지지 않는다.
+ * 크기를 늘릴 때는 새 테이블을 다 채운 뒤 volatile 필드로 교체하므로, 읽는 쪽은 이전 테이블이나 새 테이블 중 하나를 온전히 본다.
+ * 회원 삭제는 없으므로 지우기는 지원하지 않는다.
+ */
+public class MemberGradeIndex {
+
+    public static final byte MISSING = -1;
+    private static final long EMPTY = 0;   //빈 칸 표시, 키 0 은 별도 필드로 관리한다
+    private static final float LOAD_FACTOR = 0.6f;
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final class Table {
+        final long[] keys;
+        final byte[] grades;
+        final int mask;
+        final int resizeThreshold;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            grades = new byte[capacity];
+            mask = capacity - 1;
+            resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+
+    private volatile Table table;
+    private volatile byte zeroGrade = MISSING;
+    private int size;
+
+    public MemberGradeIndex(int expectedSize) {
+        table = new Table(Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    /**
+     * @return 등급 코드, 색인에 없으면 MISSING
+     */
+    public byte get(long memberId) {
+        if (memberId == EMPTY) {
+            return zeroGrade;
+        }
+        Table table = this.table;
+        long[] keys = table.keys;
+        int mask = table.mask;
+        for (int slot = slot(memberId, mask); ; slot = (slot + 1) & mask) {
+            long current = (long) KEYS.getAcquire(keys, slot);
+            if (current == memberId) {
+                return table.grades[slot];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * @return 등급, 색인에 없으면 null
+     */
+    public Grade findGrade(long memberId) {
+        byte code = get(memberId);
+        return code == MISSING ? null : Grade.fromCode(code);
+    }
+
+    public synchronized void put(long memberId, Grade grade) {
+        put(memberId, grade.code(), true);
+    }
+
+    /**
+     * 이미 있는 회원은 바꾸지 않는다. 저장소를 훑어서 채우는 동안 들어온 save 를 오래된 값으로 덮어쓰지 않기 위해 사용한다.
+     */
+    public synchronized void putIfAbsent(long memberId, Grade grade) {
+        put(memberId, grade.code(), false);
+    }
+
+    private void put(long memberId, byte code, boolean overwrite) {
+        if (memberId == EMPTY) {
+            if (zeroGrade == MISSING) {
+                size++;
+                zeroGrade = code;
+            } else if (overwrite) {
+                zeroGrade = code;
+            }
+            return;
+        }
+        Table table = this.table;
+        long[] keys = table.keys;
+        int mask = table.mask;
+        for (int slot = slot(memberId, mask); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == memberId) {
+                if (overwrite) {
+                    table.grades[slot] = code;
+                }
+                return;
+            }
+            if (current == EMPTY) {
+                table.grades[slot] = code;
+                KEYS.setRelease(keys, slot, memberId);
+                if (++size > table.resizeThreshold) {
+                    resize(table);
+                }
+                return;
+            }
+        }
+    }
+
+    private void resize(Table old) {
+        Table resized = new Table(old.keys.length << 1);
+        for (int i = 0; i < old.keys.length; i++) {
+            long key = old.keys[i];
+            if (key != EMPTY) {
+                int slot = slot(key, resized.mask);
+                while (resized.keys[slot] != EMPTY) {
+                    slot = (slot + 1) & resized.mask;
+                }
+                resized.keys[slot] = key;
+                resized.grades[slot] = old.grades[i];
+            }
+        }
+        table = resized;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return 키, 등급 배열이 차지하는 대략적인 바이트 수
+     */
+    public long memoryBytes() {
+        return (long) table.keys.length * (Long.BYTES + 1);
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,28 @@
+package hello.springcorereview.member;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * member.grade-index.enabled=true 일 때 컴포넌트 스캔된 memoryMemberRepository 를 GradeIndexingMemberRepository 로 감싸서 @Primary 로 등록한다.
+ * 할인 계산(OrderServiceImpl)은 저장소의 findGrade, findGrades 로 등급을 읽으므로, 이 저장소를 주입받은 서비스만 색인을 사용한다.
+ * MemberGradeIndex 는 데코레이터만 갱신하고 읽어야 하므로 빈으로 등록하지 않는다.(getIndex 로 꺼낼 수 있다)
+ * replication.role=leader 도 MemberRepository 를 @Primary 로 등록하므로 함께 켤 수 없다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.grade-index.enabled", havingValue = "true")
+public class MemberGradeIndexConfig {
+
+    @Bean
+    @Primary
+    public GradeIndexingMemberRepository gradeIndexingMemberRepository(@Qualifier("memoryMemberRepository") MemoryMemberRepository store,
+                                                                       @Value("${member.grade-index.expected-members:1024}") int expectedMembers) {
+        GradeIndexingMemberRepository repository = new GradeIndexingMemberRepository(store, new MemberGradeIndex(expectedMembers));
+        repository.rebuild(store::findAll);
+        return repository;
+    }
+}
@@ -0,0 +1,78 @@
+package hello.springcorereview.member;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Member 를 힙 밖(파일, direct buffer)에 저장하기 위한 바이트 레코드 형식
+ * [id : long 8][grade : byte 1][name 길이 : int 4][name : UTF-8 가변 길이]
+ * grade, name 이 null 이면 각각 -1 로 기록한다.
+ * 레코드를 읽고 쓸 때 buffer 의 position 은 바꾸지 않는다.(절대 위치 접근)
+ */
+final class MemberRecords {
+
+    static final int ID_OFFSET = 0;
+    static final int GRADE_OFFSET = 8;
+    static final int NAME_LENGTH_OFFSET = 9;
+    static final int HEADER_SIZE = 13;
+
+    private MemberRecords() {
+    }
+
+    static byte[] encodeName(Member member) {
+        return member.getName() == null ? null : member.getName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int recordSize(byte[] name) {
+        return HEADER_SIZE + (name == null ? 0 : name.length);
+    }
+
+    static void write(ByteBuffer buffer, int offset, Member member, byte[] name) {
+        buffer.putLong(offset + ID_OFFSET, member.getId());
+        buffer.put(offset + GRADE_OFFSET, member.getGrade() == null ? -1 : member.getGrade().code());
+        buffer.putInt(offset + NAME_LENGTH_OFFSET, name == null ? -1 : name.length);
+        if (name != null) {
+            for (int i = 0; i < name.length; i++) {
+                buffer.put(offset + HEADER_SIZE + i, name[i]);
+            }
+        }
+    }
+
+    static long readId(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + ID_OFFSET);
+    }
+
+    static Grade readGrade(ByteBuffer buffer, int offset) {
+        byte code = buffer.get(offset + GRADE_OFFSET);
+        return code < 0 ? null : Grade.fromCode(code);
+    }
+
+    static String readName(ByteBuffer buffer, int offset) {
+        int length = buffer.getInt(offset + NAME_LENGTH_OFFSET);
+        if (length < 0) {
+            return null;
+        }
+        byte[] name = new byte[length];
+        for (int i = 0; i < length; i++) {
+            name[i] = buffer.get(offset + HEADER_SIZE + i);
+        }
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    static int readRecordSize(ByteBuffer buffer, int offset) {
+        return HEADER_SIZE + Math.max(0, buffer.getInt(offset + NAME_LENGTH_OFFSET));
+    }
+
+    static Member read(ByteBuffer buffer, int offset) {
+        return new Member(readId(buffer, offset), readName(buffer, offset), readGrade(buffer, offset));
+    }
+
+    /**
+     * 같은 buffer 안에서 레코드를 앞쪽(from 보다 작은 위치)으로 옮긴다. 압축(compaction)에 사용한다.
+     */
+    static void moveDown(ByteBuffer buffer, int from, int to, int size) {
+        for (int i = 0; i < size; i++) {
+            buffer.put(to + i, buffer.get(from + i));
+        }
+    }
+}
@@ -1,8 +1,60 @@
 package hello.springcorereview.member;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 public interface MemberRepository {
 
     void save(Member member);
 
     Member findById(Long memberId);
+
+    /**
+     * 회원의 등급만 조회한다. 할인 계산처럼 등급만 필요한 곳에서 사용한다.
+     * 기본 구현은 findById 로 회원 전체를 조회하고, 레코드를 직렬화해서 저장하는 저장소는 재정의해서 등급만 읽을 수 있다.
+     * @return 회원이 없으면 null
+     */
+    default Grade findGrade(long memberId) {
+        Member member = findById(memberId);
+        return member == null ? null : member.getGrade();
+    }
+
+    /**
+     * 여러 회원을 한 번에 저장한다.
+     * 기본 구현은 save 를 반복 호출하고, 일괄 저장을 지원하는 저장소는 재정의해서 I/O 횟수를 줄일 수 있다.
+     */
+    default void saveAll(Iterable<Member> members) {
+        for (Member member : members) {
+            save(member);
+        }
+    }
+
+    /**
+     * 여러 회원을 한 번에 조회한다. 없는 회원은 결과에 넣지 않는다.
+     * 기본 구현은 findById 를 반복 호출하고, 원격 저장소처럼 조회마다 왕복 비용이 있는 저장소는 재정의해서 한 번에 조회할 수 있다.
+     * @return 회원 id -> 회원
+     */
+    default Map<Long, Member> findAllById(Collection<Long> memberIds) {
+        Map<Long, Member> result = new HashMap<>(memberIds.size() * 2);
+        for (Long memberId : memberIds) {
+            Member member = findById(memberId);
+            if (member != null) {
+                result.put(memberId, member);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 여러 회원의 등급만 한 번에 조회한다. 없는 회원은 결과에 넣지 않는다.
+     * 기본 구현은 findAllById 로 조회해서 등급만 꺼내고, 등급 색인이 있는 저장소는 재정의해서 색인에 없는 회원만 조회할 수 있다.
+     * @return 회원 id -> 등급
+     */
+    default Map<Long, Grade> findGrades(Collection<Long> memberIds) {
+        Map<Long, Member> members = findAllById(memberIds);
+        Map<Long, Grade> result = new HashMap<>(members.size() * 2);
+        members.forEach((memberId, member) -> result.put(memberId, member.getGrade()));
+        return result;
+    }
 }
@@ -0,0 +1,49 @@
+package hello.springcorereview.member;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * OffHeapMemberRepository 의 레코드를 Member 로 역직렬화하지 않고 필드만 담아두는 flyweight
+ * 하나를 만들어 두고 readInto 로 대상 회원만 바꿔가며 재사용한다.
+ * readInto 가 레코드의 id, 등급 코드, 이름 바이트를 이 객체의 필드로 복사하므로 getter 는 저장소를 다시 조회하지 않는다.
+ * 값은 readInto 를 호출한 시점의 것이다.(그 뒤에 다른 스레드가 저장한 값은 다시 readInto 해야 보인다)
+ * 상태를 가지므로 스레드 사이에 공유하면 안 된다.
+ */
+public class MemberView {
+
+    private long memberId;
+    private byte gradeCode = -1;
+    private byte[] name = new byte[32];
+    private int nameLength = -1;
+
+    /**
+     * buffer 의 offset 위치에 있는 레코드를 복사한다. (레코드 형식은 MemberRecords 참고)
+     */
+    void load(ByteBuffer buffer, int offset) {
+        memberId = MemberRecords.readId(buffer, offset);
+        gradeCode = buffer.get(offset + MemberRecords.GRADE_OFFSET);
+        nameLength = buffer.getInt(offset + MemberRecords.NAME_LENGTH_OFFSET);
+        if (nameLength > name.length) {
+            name = new byte[Math.max(nameLength, name.length * 2)];
+        }
+        for (int i = 0; i < nameLength; i++) {
+            name[i] = buffer.get(offset + MemberRecords.HEADER_SIZE + i);
+        }
+    }
+
+    public long getId() {
+        return memberId;
+    }
+
+    public Grade getGrade() {
+        return gradeCode < 0 ? null : Grade.fromCode(gradeCode);
+    }
+
+    /**
+     * 이름은 UTF-8 을 디코딩해야 하므로 String 이 새로 만들어진다.
+     */
+    public String getName() {
+        return nameLength < 0 ? null : new String(name, 0, nameLength, StandardCharsets.UTF_8);
+    }
+}
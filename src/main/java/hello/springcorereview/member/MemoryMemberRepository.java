@@ -2,13 +2,32 @@ package hello.springcorereview.member;
 
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 저장소는 인스턴스마다 따로 가진다.
+ * static 으로 두면 한 JVM 안의 모든 스프링 컨테이너(테스트, 테넌트)가 하나의 map 을 공유하게 되어
+ * 한 쪽의 대량 저장이 다른 쪽의 map 크기 조정과 경합에 영향을 준다.
+ * 스프링 빈은 싱글톤이므로 같은 컨테이너 안에서는 인스턴스가 하나뿐이다.
+ */
 @Component
 public class MemoryMemberRepository implements MemberRepository {
 
-    private static final Map<Long, Member> store = new ConcurrentHashMap<>(); //동시성 이슈 때문에 사용
+    private final Map<Long, Member> store; //동시성 이슈 때문에 사용
+
+    public MemoryMemberRepository() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity 예상 회원 수, 미리 크게 잡아두면 대량 저장 중에 map 크기 조정이 일어나지 않는다
+     */
+    public MemoryMemberRepository(int initialCapacity) {
+        this.store = new ConcurrentHashMap<>(initialCapacity);
+    }
 
     @Override
     public void save(Member member) {
@@ -19,4 +38,15 @@ public class MemoryMemberRepository implements MemberRepository {
     public Member findById(Long memberId) {
         return store.get(memberId);
     }
+
+    /**
+     * 전체 회원 조회, 저장소 전체를 훑어야 하는 작업(색인 재구성 등)에 사용한다
+     */
+    public List<Member> findAll() {
+        return new ArrayList<>(store.values());
+    }
+
+    public int size() {
+        return store.size();
+    }
 }
@@ -0,0 +1,286 @@
+package hello.springcorereview.member;
+
+import hello.springcorereview.common.LongLongHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Member 를 힙 밖의 direct ByteBuffer(slab)에 직렬화해서 저장하는 MemberRepository
+ * 레코드 형식은 MemberRecords 를 따른다.(고정 헤더 + UTF-8 이름, 등급은 1 byte)
+ * 색인은 id -> 주소(slab 번호 << 32 | slab 안의 위치)를 담는 기본형 맵(LongLongHashMap)이라 회원마다 힙 객체가 생기지 않는다.
+ * GC 가 따라가야 하는 것은 slab 몇 개와 색인 배열 두 개뿐이다.
+
+ * 같은 id 를 다시 저장하면 새 레코드를 뒤에 붙이고 예전 레코드는 빈 공간이 된다.
+ * 빈 공간이 compactionRatio 이상인 slab 은 살아있는 레코드를 현재 slab 으로 옮기고 비운 뒤 다시 사용한다.(compaction)
+ * 현재 slab 은 레코드를 쓰는 중이라 옮기지 않고, 다 써서 다음 slab 으로 넘어갈 때 같은 기준으로 확인한다.
+
+ * findById 는 매번 Member 를 새로 만들어 반환한다.(역직렬화)
+ * 등급만 필요하면 findGrade(OrderServiceImpl 의 할인 계산이 사용한다), 여러 필드를 객체 생성 없이 읽으려면 MemberView 를 재사용해서 readInto 를 사용한다.
+ * 쓰기는 StampedLock 의 쓰기 락으로, 읽기는 낙관적 읽기(optimistic read)로 처리한다.
+ * 스프링 빈으로 자동 등록하지 않는다.(MemberRepository 타입 빈이 여러개가 되면 자동 주입이 실패한다)
+ */
+public class OffHeapMemberRepository implements MemberRepository {
+
+    private static final long NO_ADDRESS = -1;
+
+    private final int slabSize;
+    private final double compactionRatio;
+    private final StampedLock lock = new StampedLock();
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private final List<int[]> slabUsage = new ArrayList<>();    //[사용한 바이트, 빈 공간이 된 바이트]
+    private final Deque<Integer> freeSlabs = new ArrayDeque<>();
+    private final BitSet free = new BitSet();     //freeSlabs 에 들어 있는 slab, 같은 slab 을 두 번 넣지 않도록 한다
+    private final LongLongHashMap index;
+    private int currentSlab;
+    private int writePosition;
+    private long compactions;
+
+    /**
+     * @param slabSize        slab 하나의 크기 (레코드 하나는 slab 보다 클 수 없다)
+     * @param expectedMembers 예상 회원 수, 색인 크기를 미리 잡는다
+     * @param compactionRatio slab 에서 빈 공간이 이 비율 이상이 되면 compaction 한다 (0 ~ 1)
+     */
+    public OffHeapMemberRepository(int slabSize, int expectedMembers, double compactionRatio) {
+        this.slabSize = slabSize;
+        this.compactionRatio = compactionRatio;
+        this.index = new LongLongHashMap(expectedMembers);
+        addSlab();
+    }
+
+    @Override
+    public void save(Member member) {
+        byte[] name = MemberRecords.encodeName(member);
+        int size = MemberRecords.recordSize(name);
+        if (size > slabSize) {
+            throw new IllegalArgumentException("member record is larger than slab size, record = " + size + " bytes");
+        }
+        long stamp = lock.writeLock();
+        try {
+            //예전 레코드를 먼저 죽은 레코드로 만든다. append 가 다음 slab 으로 넘어가면서 예전 레코드가 있는 slab 을 compaction 해도
+            //예전 레코드는 옮기지 않고, compaction 으로 비워진 slab 을 다시 release 하지 않는다
+            long previous = index.remove(member.getId(), NO_ADDRESS);
+            if (previous != NO_ADDRESS) {
+                markDead(previous);
+            }
+            long address = append(member, name, size);
+            index.put(member.getId(), address, NO_ADDRESS);
+            if (previous != NO_ADDRESS) {
+                compactIfSparse((int) (previous >>> 32));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        long stamp = lock.readLock();
+        try {
+            long address = index.get(memberId, NO_ADDRESS);
+            return address == NO_ADDRESS ? null : MemberRecords.read(slab(address), offset(address));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 레코드 전체를 역직렬화하지 않고 등급 1 byte 만 읽는다.
+     * @return 회원이 없으면 null
+     */
+    @Override
+    public Grade findGrade(long memberId) {
+        long stamp = lock.tryOptimisticRead();
+        Grade grade = null;
+        try {
+            long address = index.get(memberId, NO_ADDRESS);
+            grade = address == NO_ADDRESS ? null : MemberRecords.readGrade(slab(address), offset(address));
+        } catch (RuntimeException e) {
+            stamp = 0;  //쓰기 도중의 색인을 읽은 경우, 아래에서 읽기 락으로 다시 읽는다
+        }
+        if (lock.validate(stamp)) {
+            return grade;
+        }
+        stamp = lock.readLock();
+        try {
+            long address = index.get(memberId, NO_ADDRESS);
+            return address == NO_ADDRESS ? null : MemberRecords.readGrade(slab(address), offset(address));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 회원 레코드의 필드를 view 에 복사한다. 색인 조회와 복사를 한 번의 읽기 락 안에서 하므로 getter 는 락 없이 view 의 필드만 읽는다.
+     * view 의 이름 버퍼는 더 긴 이름을 만날 때만 늘어나므로 view 를 재사용하면 할당이 없다.
+     * @return 회원이 없으면 false
+     */
+    public boolean readInto(long memberId, MemberView view) {
+        long stamp = lock.readLock();
+        try {
+            long address = index.get(memberId, NO_ADDRESS);
+            if (address == NO_ADDRESS) {
+                return false;
+            }
+            view.load(slab(address), offset(address));
+            return true;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private long append(Member member, byte[] name, int size) {
+        while (writePosition + size > slabSize) {
+            nextSlab();     //다 쓴 slab 을 compaction 하면서 새 slab 을 채울 수 있으므로 다시 확인한다
+        }
+        int offset = writePosition;
+        MemberRecords.write(slabs.get(currentSlab), offset, member, name);
+        slabUsage.get(currentSlab)[0] += size;
+        writePosition += size;
+        return ((long) currentSlab << 32) | offset;
+    }
+
+    private void markDead(long address) {
+        int slab = (int) (address >>> 32);
+        slabUsage.get(slab)[1] += MemberRecords.readRecordSize(slabs.get(slab), offset(address));
+    }
+
+    /**
+     * 현재 slab 이나 이미 비워진 slab 은 건너뛴다.(append 도중에 compaction 되었거나 다시 현재 slab 이 되었을 수 있다)
+     */
+    private void compactIfSparse(int slab) {
+        int[] usage = slabUsage.get(slab);
+        if (slab != currentSlab && !free.get(slab) && usage[1] > 0 && usage[1] >= usage[0] * compactionRatio) {
+            compact(slab);
+        }
+    }
+
+    /**
+     * slab 의 살아있는 레코드를 현재 slab 으로 옮기고 비운 slab 을 재사용 목록에 넣는다.
+     * 색인이 이 위치를 가리키는 레코드만 살아있는 레코드다.
+     */
+    private void compact(int slab) {
+        ByteBuffer source = slabs.get(slab);
+        int[] usage = slabUsage.get(slab);
+        int position = 0;
+        while (position < usage[0]) {
+            int size = MemberRecords.readRecordSize(source, position);
+            long id = MemberRecords.readId(source, position);
+            long address = ((long) slab << 32) | position;
+            if (index.get(id, NO_ADDRESS) == address) {
+                Member member = MemberRecords.read(source, position);
+                index.put(id, append(member, MemberRecords.encodeName(member), size), NO_ADDRESS);
+            }
+            position += size;
+        }
+        usage[0] = 0;
+        usage[1] = 0;
+        free.set(slab);
+        freeSlabs.push(slab);
+        compactions++;
+    }
+
+    /**
+     * 현재 slab 에서 죽은 레코드는 compaction 하지 않고 넘어가므로(release 참고), 다음 slab 으로 넘어갈 때 다 쓴 slab 을 확인한다.
+     * 그렇지 않으면 현재 slab 이었던 동안 빈 공간이 된 slab 은 이후에 그 slab 의 레코드가 다시 저장되기 전까지 compaction 되지 않는다.
+     * 옮길 살아있는 레코드는 slab 크기보다 작으므로 비어있는 새 slab 에 모두 들어간다.
+     */
+    private void nextSlab() {
+        int previous = currentSlab;
+        if (freeSlabs.isEmpty()) {
+            addSlab();
+        } else {
+            currentSlab = freeSlabs.pop();
+            free.clear(currentSlab);
+        }
+        writePosition = 0;
+        compactIfSparse(previous);
+    }
+
+    private void addSlab() {
+        slabs.add(ByteBuffer.allocateDirect(slabSize));
+        slabUsage.add(new int[2]);
+        currentSlab = slabs.size() - 1;
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int getSlabCount() {
+        long stamp = lock.readLock();
+        try {
+            return slabs.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return 살아있는 레코드가 차지하는 바이트 수 (힙 밖)
+     */
+    public long getLiveBytes() {
+        long stamp = lock.readLock();
+        try {
+            long live = 0;
+            for (int[] usage : slabUsage) {
+                live += usage[0] - usage[1];
+            }
+            return live;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return 색인이 힙에서 차지하는 바이트 수
+     */
+    public long getIndexBytes() {
+        long stamp = lock.readLock();
+        try {
+            return index.memoryBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return 비어서 재사용을 기다리는 slab 수
+     */
+    public int getFreeSlabCount() {
+        long stamp = lock.readLock();
+        try {
+            return freeSlabs.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public long getCompactionCount() {
+        long stamp = lock.readLock();
+        try {
+            return compactions;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
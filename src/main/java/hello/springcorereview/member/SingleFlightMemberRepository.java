@@ -0,0 +1,114 @@
+package hello.springcorereview.member;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 동시에 들어온 같은 id 조회를 한 번의 저장소 호출로 합쳐주는 MemberRepository 데코레이터 (single-flight)
+ * 같은 id 에 대해 이미 진행중인 조회가 있으면 새로 호출하지 않고 그 결과를 기다렸다가 함께 사용한다.
+ * 진행중인 조회가 끝나면 바로 지워지므로 캐시는 아니다. 다음 조회는 다시 저장소를 호출한다.
+
+ * 먼저 도착한 스레드(leader)가 실제 조회를 수행하고, 실패하면 기다리던 스레드에게도 같은 예외가 전달된다.
+ * 기다리는 스레드는 timeout 까지만 기다리고, 넘으면 IllegalStateException 을 던진다.
+ * 스프링 빈으로 자동 등록하지 않는다.(MemberRepository 타입 빈이 여러개가 되면 자동 주입이 실패한다) 필요한 설정에서 직접 감싸서 사용한다.
+ */
+public class SingleFlightMemberRepository implements MemberRepository {
+
+    private final MemberRepository delegate;
+    private final long timeoutNanos;
+    private final ConcurrentMap<Long, CompletableFuture<Member>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder backendCalls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlightMemberRepository(MemberRepository delegate, long timeout, TimeUnit unit) {
+        this.delegate = delegate;
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    @Override
+    public void save(Member member) {
+        delegate.save(member);
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        lookups.increment();
+
+        CompletableFuture<Member> call = new CompletableFuture<>();
+        CompletableFuture<Member> existing = inFlight.putIfAbsent(memberId, call);
+        if (existing != null) {
+            coalesced.increment();
+            return await(memberId, existing);
+        }
+
+        //leader : 실제 저장소를 호출하고 결과를 기다리던 스레드와 공유한다
+        backendCalls.increment();
+        try {
+            Member member = delegate.findById(memberId);
+            call.complete(member);
+            return member;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(memberId, call);
+        }
+    }
+
+    private Member await(Long memberId, CompletableFuture<Member> call) {
+        try {
+            return call.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("member lookup timed out, memberId = " + memberId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for member lookup, memberId = " + memberId, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * @return 전체 조회 요청 수
+     */
+    public long getLookupCount() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return 실제 저장소를 호출한 횟수
+     */
+    public long getBackendCallCount() {
+        return backendCalls.sum();
+    }
+
+    /**
+     * 진행중인 조회에 합류한 조회 수, 합류하는 시점에 센다.(결과를 기다리는 중인 조회도 포함)
+     * @return 합치기 덕분에 줄어든 저장소 호출 수
+     */
+    public long getSavedCallCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return 저장소 호출 1번당 처리한 조회 요청 수 (1.0 이면 합쳐진 조회가 없다)
+     */
+    public double getCoalescingRatio() {
+        long calls = getBackendCallCount();
+        return calls == 0 ? 1.0 : (double) getLookupCount() / calls;
+    }
+}
@@ -0,0 +1,147 @@
+package hello.springcorereview.member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * 테넌트마다 별도의 저장소(파티션)로 나눠서 저장하는 MemberRepository
+ * 현재 요청의 테넌트는 tenantResolver 로 알아낸다.(ThreadLocal, request scope 빈 등)
+ * 파티션은 테넌트가 처음 사용될 때 만들어지고, 크기는 initialCapacity 로 테넌트마다 따로 정할 수 있다.
+ * 테넌트끼리 map 을 공유하지 않으므로 한 테넌트의 대량 저장이 다른 테넌트의 크기 조정, 경합에 영향을 주지 않는다.
+ * evictTenant 는 파티션 하나를 통째로 떼어내므로 회원 수와 관계없이 빠르다.
+
+ * 스프링 빈으로 자동 등록하지 않는다.(MemberRepository 타입 빈이 여러개가 되면 자동 주입이 실패한다)
+ */
+public class TenantMemberRepository implements MemberRepository {
+
+    private final Supplier<String> tenantResolver;
+    private final ToIntFunction<String> initialCapacity;
+    private final ConcurrentMap<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    public TenantMemberRepository(Supplier<String> tenantResolver, ToIntFunction<String> initialCapacity) {
+        this.tenantResolver = tenantResolver;
+        this.initialCapacity = initialCapacity;
+    }
+
+    @Override
+    public void save(Member member) {
+        Partition partition = currentPartition();
+        partition.repository.save(member);
+        partition.saves.increment();
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        Partition partition = currentPartition();
+        Member member = partition.repository.findById(memberId);
+        partition.lookups.increment();
+        if (member == null) {
+            partition.misses.increment();
+        }
+        return member;
+    }
+
+    /**
+     * 테넌트의 파티션을 통째로 제거한다.
+     * @return 제거된 회원 수, 파티션이 없었으면 0
+     */
+    public int evictTenant(String tenant) {
+        Partition removed = partitions.remove(tenant);
+        return removed == null ? 0 : removed.repository.size();
+    }
+
+    public TenantStats getStats(String tenant) {
+        Partition partition = partitions.get(tenant);
+        return partition == null ? null : partition.stats(tenant);
+    }
+
+    public List<TenantStats> getStats() {
+        List<TenantStats> stats = new ArrayList<>();
+        partitions.forEach((tenant, partition) -> stats.add(partition.stats(tenant)));
+        return stats;
+    }
+
+    private Partition currentPartition() {
+        String tenant = tenantResolver.get();
+        if (tenant == null) {
+            throw new IllegalStateException("tenant is not resolved for the current request");
+        }
+        Partition partition = partitions.get(tenant);
+        if (partition != null) {
+            return partition;
+        }
+        return partitions.computeIfAbsent(tenant, t -> new Partition(initialCapacity.applyAsInt(t)));
+    }
+
+    private static class Partition {
+
+        final MemoryMemberRepository repository;
+        final LongAdder saves = new LongAdder();
+        final LongAdder lookups = new LongAdder();
+        final LongAdder misses = new LongAdder();
+
+        Partition(int initialCapacity) {
+            this.repository = new MemoryMemberRepository(initialCapacity);
+        }
+
+        TenantStats stats(String tenant) {
+            return new TenantStats(tenant, repository.size(), saves.sum(), lookups.sum(), misses.sum());
+        }
+    }
+
+    /**
+     * 조회 시점의 테넌트별 크기, 연산 횟수
+     */
+    public static class TenantStats {
+
+        private final String tenant;
+        private final int size;
+        private final long saveCount;
+        private final long lookupCount;
+        private final long missCount;
+
+        public TenantStats(String tenant, int size, long saveCount, long lookupCount, long missCount) {
+            this.tenant = tenant;
+            this.size = size;
+            this.saveCount = saveCount;
+            this.lookupCount = lookupCount;
+            this.missCount = missCount;
+        }
+
+        public String getTenant() {
+            return tenant;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getSaveCount() {
+            return saveCount;
+        }
+
+        public long getLookupCount() {
+            return lookupCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        @Override
+        public String toString() {
+            return "TenantStats{" +
+                    "tenant='" + tenant + '\'' +
+                    ", size=" + size +
+                    ", saveCount=" + saveCount +
+                    ", lookupCount=" + lookupCount +
+                    ", missCount=" + missCount +
+                    '}';
+        }
+    }
+}
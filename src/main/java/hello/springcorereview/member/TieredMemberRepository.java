@@ -0,0 +1,126 @@
+package hello.springcorereview.member;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+
+/**
+ * 최근에 사용한 회원만 힙(hot tier)에 두고, 나머지는 메모리 매핑 파일(cold tier)로 내리는 2단계 MemberRepository
+ * hot tier 는 접근 순서를 기억하는 LinkedHashMap 으로, hotCapacity 가 가득 차면 가장 오래 사용하지 않은 회원을 cold tier 로 내린다.(demote)
+ * cold tier 가 가득 차면 save 는 IllegalStateException 으로 실패하고 hot tier 와 cold tier 는 바뀌지 않는다.
+ * cold tier 에 있는 회원을 조회하면 다시 hot tier 로 올린다.(promote)
+ * 대부분의 회원이 cold tier 에 있으므로 힙과 GC 가 다뤄야 하는 객체 수가 hotCapacity 정도로 유지된다.
+
+ * cold tier 파일은 프로세스가 살아있는 동안만 사용하는 저장 공간이다.(영속 저장소가 아니다) 종료시 @PreDestroy 에서 삭제한다.
+ * cold tier 에서 올라온 회원은 새로 만든 객체이므로 조회할 때마다 같은 인스턴스라는 보장이 없다.
+ * 모든 연산은 하나의 락으로 동기화한다.
+ * 스프링 빈으로 자동 등록하지 않는다.(MemberRepository 타입 빈이 여러개가 되면 자동 주입이 실패한다)
+ */
+public class TieredMemberRepository implements MemberRepository {
+
+    private final int hotCapacity;
+    private final LinkedHashMap<Long, Member> hot;
+    private final MappedMemberStore cold;
+
+    private long hotHits;
+    private long coldHits;
+    private long promotions;
+    private long demotions;
+
+    /**
+     * @param hotCapacity       힙에 둘 최대 회원 수
+     * @param coldFile          cold tier 로 사용할 파일 경로
+     * @param coldCapacityBytes cold tier 파일 크기
+     */
+    public TieredMemberRepository(int hotCapacity, Path coldFile, int coldCapacityBytes) {
+        this.hotCapacity = hotCapacity;
+        this.cold = new MappedMemberStore(coldFile, coldCapacityBytes);
+        this.hot = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    public synchronized void save(Member member) {
+        demoteEldest(member.getId());
+        cold.remove(member.getId());    //cold tier 에 남은 예전 값은 버린다
+        hot.put(member.getId(), member);
+    }
+
+    @Override
+    public synchronized Member findById(Long memberId) {
+        Member member = hot.get(memberId);
+        if (member != null) {
+            hotHits++;
+            return member;
+        }
+        member = cold.get(memberId);
+        if (member != null) {
+            coldHits++;
+            cold.remove(memberId);      //자리를 먼저 비워야 가득 찬 cold tier 에서도 맞바꿀 수 있다
+            try {
+                demoteEldest(memberId);
+            } catch (IllegalStateException e) {
+                cold.put(member);       //방금 비운 자리라서 다시 들어간다, 올리지 못한 회원은 cold tier 에 그대로 둔다
+                return member;
+            }
+            hot.put(memberId, member);
+            promotions++;
+        }
+        return member;
+    }
+
+    /**
+     * hot tier 가 가득 찼으면 들어올 회원의 자리를 만들기 위해 가장 오래 사용하지 않은 회원을 cold tier 로 내린다.
+     * cold tier 에 먼저 기록하고 hot tier 에서 지우므로, cold tier 가 가득 차서 실패하면 hot tier 는 바뀌지 않는다.
+     */
+    private void demoteEldest(Long incomingId) {
+        if (hot.size() < hotCapacity || hot.containsKey(incomingId)) {
+            return;
+        }
+        Member eldest = hot.values().iterator().next();
+        cold.put(eldest);
+        hot.remove(eldest.getId());
+        demotions++;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        hot.clear();
+        cold.close();
+    }
+
+    public synchronized int getHotSize() {
+        return hot.size();
+    }
+
+    public synchronized int getColdSize() {
+        return cold.size();
+    }
+
+    public synchronized int getColdUsedBytes() {
+        return cold.usedBytes();
+    }
+
+    public synchronized long getHotHitCount() {
+        return hotHits;
+    }
+
+    public synchronized long getColdHitCount() {
+        return coldHits;
+    }
+
+    public synchronized long getPromotionCount() {
+        return promotions;
+    }
+
+    public synchronized long getDemotionCount() {
+        return demotions;
+    }
+
+    /**
+     * @return 조회 중 cold tier 에서 올라온 비율
+     */
+    public synchronized double getPromotionRate() {
+        long lookups = hotHits + coldHits;
+        return lookups == 0 ? 0 : (double) promotions / lookups;
+    }
+}
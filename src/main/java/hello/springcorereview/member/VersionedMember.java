@@ -0,0 +1,57 @@
+package hello.springcorereview.member;
+
+/**
+ * 저장소에 보관하는 회원의 불변 스냅샷, 저장될 때마다 version 이 1 씩 증가한다.(처음 저장하면 1)
+ * 한 번 만든 스냅샷은 바뀌지 않으므로 조회하는 쪽은 잠금 없이 읽어도 수정 도중의 값을 보지 않는다.
+ */
+public final class VersionedMember {
+
+    private final long id;
+    private final String name;
+    private final Grade grade;
+    private final long version;
+
+    VersionedMember(long id, String name, Grade grade, long version) {
+        this.id = id;
+        this.name = name;
+        this.grade = grade;
+        this.version = version;
+    }
+
+    static VersionedMember of(Member member, long version) {
+        return new VersionedMember(member.getId(), member.getName(), member.getGrade(), version);
+    }
+
+    /**
+     * @return 변경해도 저장소에 영향을 주지 않는 새 Member
+     */
+    public Member toMember() {
+        return new Member(id, name, grade);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Grade getGrade() {
+        return grade;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "VersionedMember{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", grade=" + grade +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,29 @@
+package hello.springcorereview.member;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * 저장된 회원에 version 을 두고 조건부 저장을 지원하는 저장소
+ * save 는 기존처럼 덮어쓰지만, 동시에 수정할 수 있는 곳(등급 변경, 이름 변경)에서는 compareAndSave 나 compute 를 사용해야 수정이 사라지지 않는다.
+ */
+public interface VersionedMemberRepository extends MemberRepository {
+
+    /**
+     * @return 저장된 스냅샷, 없으면 null
+     */
+    VersionedMember findVersioned(Long memberId);
+
+    /**
+     * 저장된 version 이 expectedVersion 과 같을 때만 저장한다. expectedVersion 이 0 이면 아직 없는 회원일 때만 저장한다.
+     * @return 저장했으면 true, 그 사이 다른 곳에서 저장했으면 false (다시 조회해서 재시도)
+     */
+    boolean compareAndSave(long expectedVersion, Member member);
+
+    /**
+     * 현재 값에 update 를 적용한 결과를 저장한다. 그 사이 다른 곳에서 저장했으면 새 값으로 update 를 다시 적용한다.
+     * update 는 여러 번 호출될 수 있으므로 부수 효과가 없어야 한다.
+     * update 는 현재 값의 복사본을 받으며(없으면 null) 수정해서 돌려주거나 새 Member 를 돌려줄 수 있다. null 을 돌려주면 저장하지 않는다.
+     * @return 저장된 스냅샷, 저장하지 않았으면 현재 스냅샷
+     */
+    VersionedMember compute(Long memberId, UnaryOperator<Member> update);
+}
@@ -0,0 +1,93 @@
+package hello.springcorereview.member;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * 불변 스냅샷(VersionedMember)을 ConcurrentHashMap 에 보관하는 VersionedMemberRepository
+ * 수정은 읽은 스냅샷을 기준으로 새 스냅샷을 만들고 replace(id, 읽은 스냅샷, 새 스냅샷)으로 바꾼다.(CAS)
+ * 그 사이 다른 스레드가 바꿨으면 실패하고 다시 읽어서 재시도한다. 외부 잠금이 없고 다른 id 의 수정과 서로 막지 않는다.
+ * VersionedMember 는 equals 를 재정의하지 않으므로 replace 는 같은 스냅샷 객체일 때만 성공한다.
+
+ * findById 는 스냅샷의 복사본을 돌려준다. 조회한 Member 를 수정해도 저장소의 값은 바뀌지 않는다.(바꾸려면 save, compute 사용)
+ */
+public class VersionedMemoryMemberRepository implements VersionedMemberRepository {
+
+    private final ConcurrentMap<Long, VersionedMember> store;
+    private final LongAdder retries = new LongAdder();
+
+    public VersionedMemoryMemberRepository() {
+        this(16);
+    }
+
+    public VersionedMemoryMemberRepository(int initialCapacity) {
+        this.store = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    @Override
+    public void save(Member member) {
+        compute(member.getId(), current -> member);
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        VersionedMember current = store.get(memberId);
+        return current == null ? null : current.toMember();
+    }
+
+    @Override
+    public VersionedMember findVersioned(Long memberId) {
+        return store.get(memberId);
+    }
+
+    @Override
+    public boolean compareAndSave(long expectedVersion, Member member) {
+        if (expectedVersion == 0) {
+            return store.putIfAbsent(member.getId(), VersionedMember.of(member, 1)) == null;
+        }
+        VersionedMember current = store.get(member.getId());
+        if (current == null || current.getVersion() != expectedVersion) {
+            return false;
+        }
+        return store.replace(member.getId(), current, VersionedMember.of(member, expectedVersion + 1));
+    }
+
+    @Override
+    public VersionedMember compute(Long memberId, UnaryOperator<Member> update) {
+        while (true) {
+            VersionedMember current = store.get(memberId);
+            Member updated = update.apply(current == null ? null : current.toMember());
+            if (updated == null) {
+                return current;
+            }
+            if (!memberId.equals(updated.getId())) {
+                throw new IllegalArgumentException("update must keep member id " + memberId + " : " + updated.getId());
+            }
+            if (current == null) {
+                VersionedMember created = VersionedMember.of(updated, 1);
+                if (store.putIfAbsent(memberId, created) == null) {
+                    return created;
+                }
+            } else {
+                VersionedMember next = VersionedMember.of(updated, current.getVersion() + 1);
+                if (store.replace(memberId, current, next)) {
+                    return next;
+                }
+            }
+            retries.increment();
+        }
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * @return 다른 스레드와 경합해서 update 를 다시 적용한 횟수
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+}
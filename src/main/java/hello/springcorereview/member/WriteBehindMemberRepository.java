@@ -0,0 +1,219 @@
+package hello.springcorereview.member;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * save 를 바로 저장소에 쓰지 않고 모아두었다가 백그라운드 스레드에서 한 번에 저장하는 MemberRepository 데코레이터 (write-behind)
+ * 같은 id 를 여러 번 저장하면 마지막 값 하나로 합쳐서 한 번만 쓴다.
+ * batchSize 만큼 모이거나 flushInterval 이 지나면 delegate.saveAll 로 저장한다.
+ * 대기열은 capacity 로 제한되고, 가득 차면 save 를 호출한 스레드가 자리가 날 때까지 기다린다.(backpressure)
+ * 아직 저장되지 않은 값도 findById 에서 바로 보인다.(read-your-writes)
+
+ * 생성과 초기화를 분리한다. 스프링 빈으로 등록하면 @PostConstruct 에서 flush 스레드를 시작하고,
+ * 컨테이너가 종료될 때 @PreDestroy 에서 남은 값을 모두 저장한 뒤 종료한다.
+ * 빈으로 등록하지 않고 사용할 경우 start(), close() 를 직접 호출해야 한다.
+ * save 는 read lock, close 는 write lock 을 잡는다. running 을 확인한 save 가 대기열에 넣기 전에 flush 스레드가 끝나서
+ * 값이 저장되지 않는 일이 없도록, close 는 진행 중인 save 가 모두 끝난 뒤에 running 을 바꾼다.
+ */
+public class WriteBehindMemberRepository implements MemberRepository {
+
+    private static final long MAX_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MemberRepository delegate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+
+    private final ConcurrentMap<Long, Member> pending = new ConcurrentHashMap<>();   //아직 저장되지 않은 최신 값
+    private final BlockingQueue<Long> queue;                                        //저장해야 할 id, pending 에 새로 들어온 id 만 넣는다
+
+    private final LongAdder mergedWrites = new LongAdder();
+    private final LongAdder flushedBatches = new LongAdder();
+    private final LongAdder flushedMembers = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindMemberRepository(MemberRepository delegate, int capacity, int batchSize, long flushInterval, TimeUnit unit) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = unit.toNanos(flushInterval);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "member-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        lifecycleLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        if (flusher == null) {
+            return;     //start 전에 닫는 경우(초기화 중 실패 등), 받은 save 가 없으므로 저장할 것도 없다
+        }
+        flusher.join();
+        System.out.println("WriteBehindMemberRepository.close flushed = " + getFlushedMemberCount()
+                + ", not flushed = " + pending.size());
+    }
+
+    @Override
+    public void save(Member member) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("write-behind repository is not running");
+            }
+            if (pending.put(member.getId(), member) != null) {
+                mergedWrites.increment();   //이미 대기중인 id 는 값만 바꾸고 대기열에는 다시 넣지 않는다
+                return;
+            }
+            queue.put(member.getId());      //대기열이 가득 차도 flush 스레드는 running 인 동안 계속 비운다
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for write-behind queue", e);
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        Member member = pending.get(memberId);
+        return member != null ? member : delegate.findById(memberId);
+    }
+
+    private void flushLoop() {
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                flush(batch);
+                batch.clear();
+            } catch (RuntimeException e) {
+                //저장에 실패한 값은 pending 에 남아있으므로 같은 batch 로 다시 시도한다
+                failedFlushes.increment();
+                System.out.println("WriteBehindMemberRepository flush failed : " + e);
+                if (!running) {
+                    break;
+                }
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * batchSize 만큼 모이거나, 첫 id 가 들어온 뒤 flushInterval 이 지날 때까지 id 를 모은다
+     * 종료 요청을 빨리 알아채기 위해 대기열은 짧게 나눠서 기다린다.
+     */
+    private void collect(List<Long> batch) throws InterruptedException {
+        if (batch.isEmpty()) {
+            Long first = queue.poll(Math.min(flushIntervalNanos, MAX_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (first == null) {
+                return;
+            }
+            batch.add(first);
+        }
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            Long next = queue.poll(Math.min(remaining, MAX_POLL_NANOS), TimeUnit.NANOSECONDS);
+            if (next != null) {
+                batch.add(next);
+            }
+        }
+    }
+
+    private void flush(List<Long> ids) {
+        List<Member> members = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Member member = pending.get(id);
+            if (member != null) {
+                members.add(member);
+            }
+        }
+        while (!members.isEmpty()) {
+            delegate.saveAll(members);
+            flushedBatches.increment();
+            flushedMembers.add(members.size());
+
+            //저장하는 동안 새 값이 들어온 id 는 대기열에 없으므로 여기서 다시 저장한다
+            List<Member> changed = new ArrayList<>();
+            for (Member member : members) {
+                if (!pending.remove(member.getId(), member)) {
+                    Member latest = pending.get(member.getId());
+                    if (latest != null) {
+                        changed.add(latest);
+                    }
+                }
+            }
+            members = changed;
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            TimeUnit.NANOSECONDS.sleep(flushIntervalNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return 아직 저장소에 쓰지 않은 회원 수
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return 대기중인 값을 덮어써서 합쳐진 save 수
+     */
+    public long getMergedWriteCount() {
+        return mergedWrites.sum();
+    }
+
+    public long getFlushedBatchCount() {
+        return flushedBatches.sum();
+    }
+
+    public long getFlushedMemberCount() {
+        return flushedMembers.sum();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+}
@@ -0,0 +1,162 @@
+package hello.springcorereview.net;
+
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.order.Order;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * OrderProtocolServer 와 OrderProtocolClient 가 주고받는 바이너리 프레임 형식
+ * 모든 프레임은 [int 길이][본문] 이고, 길이는 길이 필드(4 byte)를 뺀 본문의 크기다. 숫자는 big-endian 이다.
+
+ * 요청 본문 : [byte 종류][필드...]
+ *   CREATE_ORDER : [long memberId][int itemPrice][string itemName]
+ *   FIND_MEMBER  : [long memberId]
+ * 응답 본문 : [byte 상태][필드...]
+ *   OK (주문)    : [long memberId][int itemPrice][int discountPrice][string itemName]
+ *   OK (회원)    : [long id][byte grade code][string name]
+ *   NOT_FOUND   : 필드 없음
+ *   ERROR       : [string message]
+ * string 은 [short 바이트 수][UTF-8], null 은 바이트 수 -1 로 표시한다.
+
+ * 한 연결에서 응답을 기다리지 않고 요청을 연달아 보낼 수 있고(pipelining), 응답은 요청 순서대로 돌아온다.
+ */
+public final class OrderProtocol {
+
+    public static final byte CREATE_ORDER = 1;
+    public static final byte FIND_MEMBER = 2;
+
+    public static final byte OK = 0;
+    public static final byte NOT_FOUND = 1;
+    public static final byte ERROR = 2;
+
+    public static final int LENGTH_SIZE = Integer.BYTES;
+    public static final int MAX_FRAME_SIZE = 4096;      //본문 최대 크기, 요청과 응답 모두 적용한다
+    public static final int MAX_STRING_BYTES = 1024;
+
+    private OrderProtocol() {
+    }
+
+    public static void writeCreateOrder(ByteBuffer buffer, Long memberId, String itemName, int itemPrice) {
+        byte[] name = encode(itemName);
+        int start = beginFrame(buffer);
+        buffer.put(CREATE_ORDER);
+        buffer.putLong(memberId);
+        buffer.putInt(itemPrice);
+        putString(buffer, name);
+        endFrame(buffer, start);
+    }
+
+    public static void writeFindMember(ByteBuffer buffer, Long memberId) {
+        int start = beginFrame(buffer);
+        buffer.put(FIND_MEMBER);
+        buffer.putLong(memberId);
+        endFrame(buffer, start);
+    }
+
+    public static void writeOrder(ByteBuffer buffer, Order order) {
+        byte[] name = encode(order.getItemName());
+        int start = beginFrame(buffer);
+        buffer.put(OK);
+        buffer.putLong(order.getMemberId());
+        buffer.putInt(order.getItemPrice());
+        buffer.putInt(order.getDiscountPrice());
+        putString(buffer, name);
+        endFrame(buffer, start);
+    }
+
+    public static void writeMember(ByteBuffer buffer, Member member) {
+        byte[] name = encode(member.getName());
+        int start = beginFrame(buffer);
+        buffer.put(OK);
+        buffer.putLong(member.getId());
+        buffer.put(member.getGrade() == null ? -1 : member.getGrade().code());
+        putString(buffer, name);
+        endFrame(buffer, start);
+    }
+
+    public static void writeStatus(ByteBuffer buffer, byte status) {
+        int start = beginFrame(buffer);
+        buffer.put(status);
+        endFrame(buffer, start);
+    }
+
+    public static void writeError(ByteBuffer buffer, String message) {
+        byte[] bytes = message == null ? null : message.getBytes(StandardCharsets.UTF_8);
+        if (bytes != null && bytes.length > MAX_STRING_BYTES) {
+            bytes = Arrays.copyOf(bytes, MAX_STRING_BYTES);
+        }
+        int start = beginFrame(buffer);
+        buffer.put(ERROR);
+        putString(buffer, bytes);
+        endFrame(buffer, start);
+    }
+
+    /**
+     * buffer 의 position 부터 OK 상태 다음의 주문 필드를 읽는다.
+     */
+    public static Order readOrder(ByteBuffer buffer) {
+        long memberId = buffer.getLong();
+        int itemPrice = buffer.getInt();
+        int discountPrice = buffer.getInt();
+        return new Order(memberId, getString(buffer), itemPrice, discountPrice);
+    }
+
+    /**
+     * buffer 의 position 부터 OK 상태 다음의 회원 필드를 읽는다.
+     */
+    public static Member readMember(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        byte grade = buffer.get();
+        return new Member(id, getString(buffer), grade < 0 ? null : Grade.fromCode(grade));
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new IllegalArgumentException("string length exceeds frame : " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("string is longer than " + MAX_STRING_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * 길이 필드 자리를 비워두고 본문 시작 위치를 돌려준다.
+     */
+    private static int beginFrame(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.position(start + LENGTH_SIZE);
+        return start;
+    }
+
+    private static void endFrame(ByteBuffer buffer, int start) {
+        buffer.putInt(start, buffer.position() - start - LENGTH_SIZE);
+    }
+}
@@ -0,0 +1,118 @@
+package hello.springcorereview.net;
+
+import hello.springcorereview.SpringCoreReviewApplication;
+import hello.springcorereview.common.LongHistogram;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 같은 프로세스에서 스프링 부트를 띄우고 loopback 으로 주문 생성 비용을 비교하는 실행 클래스
+ * http      : HTTP 로 /orders/bulk 에 주문 1건씩 보낸다.(keep-alive, 응답을 받으면 다음 요청)
+ * binary    : OrderProtocolClient 로 주문 1건씩 보내고 응답을 기다린다.
+ * pipelined : OrderProtocolClient 로 pipeline 건씩 한 번에 보내고 응답을 모아서 읽는다.
+ * 사용법 : [members] [requests] [pipeline], 기본값 10000 200000 64
+ * 지연시간은 요청 1건(pipelined 는 묶음 1개)을 보내고 응답을 모두 받을 때까지의 시간이다.
+ */
+public class OrderProtocolBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int members = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        int pipeline = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+
+        ConfigurableApplicationContext ac = SpringApplication.run(SpringCoreReviewApplication.class,
+                "--server.port=0", "--order.protocol.enabled=true", "--order.protocol.port=0");
+        try {
+            MemberService memberService = ac.getBean("memberService", MemberService.class);
+            for (long id = 1; id <= members; id++) {
+                memberService.join(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+            }
+            int httpPort = Integer.parseInt(ac.getEnvironment().getProperty("local.server.port"));
+            int binaryPort = ac.getBean(OrderProtocolServer.class).getPort();
+
+            //워밍업 후 측정
+            http(httpPort, members, requests / 10);
+            report("http", requests, http(httpPort, members, requests));
+            try (OrderProtocolClient client = new OrderProtocolClient("localhost", binaryPort, 64 * 1024)) {
+                client.connect();
+                binary(client, members, requests / 10, 1);
+                report("binary", requests, binary(client, members, requests, 1));
+                binary(client, members, requests / 10, pipeline);
+                report("pipelined(" + pipeline + ")", requests, binary(client, members, requests, pipeline));
+            }
+        } finally {
+            ac.close();
+        }
+    }
+
+    private static Result http(int port, int members, int requests) throws IOException {
+        URL url = new URL("http://localhost:" + port + "/orders/bulk");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        byte[] buffer = new byte[1024];
+        Result result = new Result();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            long requestStart = System.nanoTime();
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-ndjson");
+            byte[] body = ("{\"memberId\":" + random.nextLong(1, members + 1) + ",\"itemName\":\"itemA\",\"itemPrice\":10000}\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(body);
+            }
+            try (InputStream is = connection.getInputStream()) {
+                while (is.read(buffer) >= 0) {
+                    //keep-alive 로 연결을 재사용하려면 응답을 끝까지 읽어야 한다
+                }
+            }
+            result.latency.record(System.nanoTime() - requestStart);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static Result binary(OrderProtocolClient client, int members, int requests, int pipeline) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Result result = new Result();
+        long start = System.nanoTime();
+        for (int sent = 0; sent < requests; sent += pipeline) {
+            int batch = Math.min(pipeline, requests - sent);
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                client.sendCreateOrder(random.nextLong(1, members + 1), "itemA", 10000);
+            }
+            client.flush();
+            for (int i = 0; i < batch; i++) {
+                client.receiveOrder();
+            }
+            result.latency.record(System.nanoTime() - batchStart);
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static void report(String name, int requests, Result result) {
+        LongHistogram latency = result.latency;
+        System.out.println(String.format("%-14s %12.1f orders/s  p50 = %8.1f us  p99 = %8.1f us  max = %8.1f us",
+                name, requests / (result.elapsedNanos / 1e9),
+                latency.getValueAtPercentile(50) / 1e3, latency.getValueAtPercentile(99) / 1e3, latency.getMax() / 1e3));
+    }
+
+    private static class Result {
+        final LongHistogram latency = new LongHistogram();
+        long elapsedNanos;
+    }
+}
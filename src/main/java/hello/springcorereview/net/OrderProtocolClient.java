@@ -0,0 +1,160 @@
+package hello.springcorereview.net;
+
+import hello.springcorereview.member.Member;
+import hello.springcorereview.order.Order;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * OrderProtocolServer 에 접속하는 블로킹 클라이언트, 연결 하나를 사용한다.
+ * createOrder, findMember 는 요청을 보내고 응답을 받을 때까지 기다린다.
+ * 응답을 기다리지 않고 여러 요청을 보내려면(pipelining) send 로 요청을 쌓고 flush 한 다음, 보낸 순서대로 receive 로 응답을 읽는다.
+ * 응답을 읽지 않고 너무 많은 요청을 보내면 서버가 읽기를 멈추므로(backpressure) flush 가 막힐 수 있다. 응답을 읽으면서 적당한 수만큼씩 보내야 한다.
+ * 스레드에 안전하지 않다. 스레드마다 클라이언트를 따로 사용해야 한다.
+ */
+public class OrderProtocolClient implements AutoCloseable {
+
+    private final String host;
+    private final int port;
+    private final ByteBuffer out;
+    private final ByteBuffer in;
+    private SocketChannel channel;
+
+    public OrderProtocolClient(String host, int port, int bufferSize) {
+        if (bufferSize < OrderProtocol.LENGTH_SIZE + OrderProtocol.MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("bufferSize must be at least " + (OrderProtocol.LENGTH_SIZE + OrderProtocol.MAX_FRAME_SIZE));
+        }
+        this.host = host;
+        this.port = port;
+        this.out = ByteBuffer.allocateDirect(bufferSize);
+        this.in = ByteBuffer.allocateDirect(bufferSize);
+        in.flip();  //읽기 버퍼는 읽기 모드로 유지한다
+    }
+
+    public void connect() throws IOException {
+        channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    public Order createOrder(Long memberId, String itemName, int itemPrice) throws IOException {
+        sendCreateOrder(memberId, itemName, itemPrice);
+        flush();
+        return receiveOrder();
+    }
+
+    /**
+     * @return 회원이 없으면 null
+     */
+    public Member findMember(Long memberId) throws IOException {
+        sendFindMember(memberId);
+        flush();
+        return receiveMember();
+    }
+
+    public void sendCreateOrder(Long memberId, String itemName, int itemPrice) throws IOException {
+        ensureWritable();
+        OrderProtocol.writeCreateOrder(out, memberId, itemName, itemPrice);
+    }
+
+    public void sendFindMember(Long memberId) throws IOException {
+        ensureWritable();
+        OrderProtocol.writeFindMember(out, memberId);
+    }
+
+    /**
+     * 쌓아둔 요청을 모두 보낸다.
+     */
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * @throws IllegalStateException 서버가 오류를 응답한 경우
+     */
+    public Order receiveOrder() throws IOException {
+        ByteBuffer frame = receiveFrame();
+        byte status = frame.get();
+        if (status == OrderProtocol.OK) {
+            return OrderProtocol.readOrder(frame);
+        }
+        throw failure(status, frame);
+    }
+
+    /**
+     * @return 회원이 없으면 null
+     * @throws IllegalStateException 서버가 오류를 응답한 경우
+     */
+    public Member receiveMember() throws IOException {
+        ByteBuffer frame = receiveFrame();
+        byte status = frame.get();
+        if (status == OrderProtocol.OK) {
+            return OrderProtocol.readMember(frame);
+        }
+        if (status == OrderProtocol.NOT_FOUND) {
+            return null;
+        }
+        throw failure(status, frame);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * 요청 하나가 들어갈 자리가 없으면 먼저 보낸다.
+     */
+    private void ensureWritable() throws IOException {
+        if (out.remaining() < OrderProtocol.LENGTH_SIZE + OrderProtocol.MAX_FRAME_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * 프레임 하나를 다 받을 때까지 읽는다.
+     * @return 읽기 버퍼 중 프레임 본문만 보이는 view, 다음 receive 전까지만 유효하다
+     */
+    private ByteBuffer receiveFrame() throws IOException {
+        fill(OrderProtocol.LENGTH_SIZE);
+        int length = in.getInt(in.position());
+        if (length <= 0 || length > OrderProtocol.MAX_FRAME_SIZE) {
+            throw new IOException("invalid frame length : " + length);
+        }
+        fill(OrderProtocol.LENGTH_SIZE + length);
+        int start = in.position() + OrderProtocol.LENGTH_SIZE;
+        ByteBuffer frame = in.duplicate();
+        frame.position(start).limit(start + length);
+        in.position(start + length);
+        return frame;
+    }
+
+    private void fill(int required) throws IOException {
+        if (in.remaining() >= required) {
+            return;
+        }
+        in.compact();
+        while (in.position() < required) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("connection closed by server");
+            }
+        }
+        in.flip();
+    }
+
+    private static IllegalStateException failure(byte status, ByteBuffer frame) {
+        if (status == OrderProtocol.ERROR) {
+            return new IllegalStateException("server error : " + OrderProtocol.getString(frame));
+        }
+        return new IllegalStateException("unexpected status : " + status);
+    }
+}
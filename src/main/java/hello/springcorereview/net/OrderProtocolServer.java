@@ -0,0 +1,345 @@
+package hello.springcorereview.net;
+
+import hello.springcorereview.common.DirectBufferPool;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberService;
+import hello.springcorereview.order.OrderService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OrderProtocol 형식의 바이너리 요청을 받아 OrderService, MemberService 를 호출하는 논블로킹 TCP 서버
+ * 서블릿, HTTP 파싱, JSON 변환을 거치지 않으므로 내부 호출자에게는 HTTP 경로보다 요청당 비용이 훨씬 작다.
+
+ * 스레드 구조
+ * accept 스레드 1개가 연결을 받아서 worker(selector 스레드)에 번갈아 넘긴다.
+ * 연결은 한 worker 에 고정되고, worker 는 자기 selector 에 등록된 연결의 읽기, 요청 처리, 쓰기를 모두 담당한다.
+ * 서비스 호출은 메모리 안에서 끝나는 짧은 작업이라 worker 스레드에서 바로 처리한다.(블로킹 작업을 넣으면 같은 worker 의 다른 연결이 밀린다)
+
+ * 버퍼
+ * 연결마다 읽기, 쓰기 버퍼를 DirectBufferPool 에서 빌리고 연결이 끊어지면 돌려준다.
+ * 읽기 버퍼에 완성된 프레임이 여러 개 있으면 차례대로 처리해서 응답을 쓰기 버퍼에 이어서 쓴다.(pipelining)
+ * 쓰기 버퍼에 응답 하나가 들어갈 자리가 없으면 처리를 멈추고 읽기도 멈춘다. 클라이언트가 응답을 읽어가서 자리가 나면 다시 처리한다.(backpressure)
+
+ * 생성과 초기화를 분리한다. 스프링 빈으로 등록하면 @PostConstruct 에서 포트를 열고, @PreDestroy 에서 모든 연결을 닫는다.
+ * 빈으로 등록하지 않고 사용할 경우 start(), close() 를 직접 호출해야 한다.
+ */
+public class OrderProtocolServer {
+
+    private static final int MAX_RESPONSE_SIZE = OrderProtocol.LENGTH_SIZE + OrderProtocol.MAX_FRAME_SIZE;
+    static final String REQUEST_FAILED = "request failed";     //클라이언트에는 예외 내용 대신 이 메시지만 보낸다
+
+    private final OrderService orderService;
+    private final MemberService memberService;
+    private final int port;
+    private final int workerThreads;
+    private final DirectBufferPool bufferPool;
+
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder closedConnections = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile String lastError;
+
+    private volatile boolean running;
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private final List<Worker> workers = new ArrayList<>();
+
+    /**
+     * @param port          0 이면 비어있는 포트를 사용한다. 실제 포트는 getPort() 로 알 수 있다.
+     * @param workerThreads selector 스레드 수
+     * @param bufferSize    연결마다 사용하는 읽기, 쓰기 버퍼 크기, 프레임 2개 이상이 들어가야 한다
+     */
+    public OrderProtocolServer(OrderService orderService, MemberService memberService, int port, int workerThreads, int bufferSize) {
+        if (bufferSize < MAX_RESPONSE_SIZE * 2) {
+            throw new IllegalArgumentException("bufferSize must be at least " + MAX_RESPONSE_SIZE * 2);
+        }
+        this.orderService = orderService;
+        this.memberService = memberService;
+        this.port = port;
+        this.workerThreads = workerThreads;
+        this.bufferPool = new DirectBufferPool(bufferSize, 1024);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        for (int i = 0; i < workerThreads; i++) {
+            Worker worker = new Worker(Selector.open(), "order-protocol-worker-" + i);
+            workers.add(worker);
+        }
+        running = true;
+        for (Worker worker : workers) {
+            worker.thread.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "order-protocol-acceptor");
+        acceptor.start();
+        System.out.println("OrderProtocolServer.start port = " + getPort() + ", workers = " + workerThreads);
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        serverChannel.close();  //블로킹중인 accept 를 깨운다
+        acceptor.join();
+        for (Worker worker : workers) {
+            worker.selector.wakeup();
+            worker.thread.join();
+        }
+        System.out.println("OrderProtocolServer.close requests = " + getRequestCount() + ", errors = " + getErrorCount());
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                acceptedConnections.increment();
+                workers.get(next).register(channel);
+                next = (next + 1) % workers.size();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("OrderProtocolServer accept failed : " + e);
+                }
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        final Selector selector;
+        final Thread thread;
+        final Queue<SocketChannel> newChannels = new ConcurrentLinkedQueue<>();
+
+        Worker(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this, name);
+        }
+
+        void register(SocketChannel channel) {
+            newChannels.offer(channel);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerNewChannels();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+                }
+            } catch (IOException e) {
+                System.out.println("OrderProtocolServer worker failed : " + e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    closeConnection(key);
+                }
+                closeQuietly(selector);
+                SocketChannel channel;
+                while ((channel = newChannels.poll()) != null) {
+                    closeQuietly(channel);
+                }
+            }
+        }
+
+        private void registerNewChannels() {
+            SocketChannel channel;
+            while ((channel = newChannels.poll()) != null) {
+                try {
+                    channel.register(selector, SelectionKey.OP_READ, new Connection(bufferPool.acquire(), bufferPool.acquire()));
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    closedConnections.increment();
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            SocketChannel channel = (SocketChannel) key.channel();
+            try {
+                if (key.isReadable() && channel.read(connection.in) < 0) {
+                    closeConnection(key);
+                    return;
+                }
+                //쓰기 버퍼가 차서 멈췄던 프레임은 자리가 나면 새 데이터를 기다리지 않고 이어서 처리한다
+                boolean blocked;
+                do {
+                    blocked = process(connection);
+                    flush(key, connection);
+                } while (blocked && connection.out.remaining() >= MAX_RESPONSE_SIZE);
+            } catch (IOException | RuntimeException e) {
+                closeConnection(key);   //프로토콜 오류, 연결 끊김
+            }
+        }
+    }
+
+    /**
+     * 읽기 버퍼의 완성된 프레임을 차례대로 처리한다. 마지막에 덜 받은 프레임은 다음 읽기를 위해 앞으로 옮겨둔다.
+     * @return 쓰기 버퍼에 자리가 없어서 처리하지 못한 데이터가 남아있으면 true
+     */
+    private boolean process(Connection connection) {
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        while (in.remaining() >= OrderProtocol.LENGTH_SIZE) {
+            if (out.remaining() < MAX_RESPONSE_SIZE) {
+                in.compact();
+                return true;
+            }
+            int start = in.position();
+            int length = in.getInt(start);
+            if (length <= 0 || length > OrderProtocol.MAX_FRAME_SIZE) {
+                throw new IllegalStateException("invalid frame length : " + length);
+            }
+            if (in.remaining() < OrderProtocol.LENGTH_SIZE + length) {
+                break;
+            }
+            int end = start + OrderProtocol.LENGTH_SIZE + length;
+            int limit = in.limit();
+            in.position(start + OrderProtocol.LENGTH_SIZE).limit(end);
+            handleRequest(in, out);
+            in.limit(limit).position(end);
+        }
+        in.compact();
+        return false;
+    }
+
+    private void handleRequest(ByteBuffer frame, ByteBuffer out) {
+        requests.increment();
+        int start = out.position();
+        try {
+            byte type = frame.get();
+            switch (type) {
+                case OrderProtocol.CREATE_ORDER:
+                    long memberId = frame.getLong();
+                    int itemPrice = frame.getInt();
+                    String itemName = OrderProtocol.getString(frame);
+                    OrderProtocol.writeOrder(out, orderService.createOrder(memberId, itemName, itemPrice));
+                    break;
+                case OrderProtocol.FIND_MEMBER:
+                    Member member = memberService.findMember(frame.getLong());
+                    if (member == null) {
+                        OrderProtocol.writeStatus(out, OrderProtocol.NOT_FOUND);
+                    } else {
+                        OrderProtocol.writeMember(out, member);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown request type : " + type);
+            }
+        } catch (RuntimeException e) {
+            //예외 내용(내부 클래스 이름, 회원 id 등)은 서버에만 남긴다
+            errors.increment();
+            lastError = e.toString();
+            System.out.println("OrderProtocolServer.handleRequest error = " + lastError);
+            out.position(start);    //쓰다 만 응답은 버리고 오류 응답으로 바꾼다
+            OrderProtocol.writeError(out, REQUEST_FAILED);
+        }
+    }
+
+    /**
+     * 쓰기 버퍼의 응답을 보낼 수 있는 만큼 보내고, 남은 상태에 맞춰 관심 이벤트를 바꾼다.
+     */
+    private void flush(SelectionKey key, Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        ((SocketChannel) key.channel()).write(out);
+        out.compact();
+
+        int interest = 0;
+        if (out.position() > 0) {
+            interest |= SelectionKey.OP_WRITE;
+        }
+        if (connection.in.hasRemaining() && out.remaining() >= MAX_RESPONSE_SIZE) {
+            interest |= SelectionKey.OP_READ;
+        }
+        key.interestOps(interest);
+    }
+
+    private void closeConnection(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        key.cancel();
+        closeQuietly(key.channel());
+        if (connection != null && !connection.closed) {
+            connection.closed = true;
+            bufferPool.release(connection.in);
+            bufferPool.release(connection.out);
+            closedConnections.increment();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static class Connection {
+
+        final ByteBuffer in;
+        final ByteBuffer out;
+        boolean closed;
+
+        Connection(ByteBuffer in, ByteBuffer out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    public long getActiveConnectionCount() {
+        return acceptedConnections.sum() - closedConnections.sum();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * 마지막으로 실패한 요청의 예외 내용, 실패한 요청이 없으면 null
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    public DirectBufferPool getBufferPool() {
+        return bufferPool;
+    }
+}
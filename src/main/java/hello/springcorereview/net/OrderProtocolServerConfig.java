@@ -0,0 +1,26 @@
+package hello.springcorereview.net;
+
+import hello.springcorereview.member.MemberService;
+import hello.springcorereview.order.OrderService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * order.protocol.enabled=true 일 때만 OrderProtocolServer 를 등록한다.
+ * 스프링 부트로 실행할 때만 적용된다.(AutoAppConfig 는 @Configuration 을 스캔 대상에서 제외한다)
+ * 시작, 종료는 서버의 @PostConstruct, @PreDestroy 가 담당한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.protocol.enabled", havingValue = "true")
+public class OrderProtocolServerConfig {
+
+    @Bean
+    public OrderProtocolServer orderProtocolServer(OrderService orderService, MemberService memberService,
+                                                   @Value("${order.protocol.port:7070}") int port,
+                                                   @Value("${order.protocol.worker-threads:2}") int workerThreads,
+                                                   @Value("${order.protocol.buffer-size:65536}") int bufferSize) {
+        return new OrderProtocolServer(orderService, memberService, port, workerThreads, bufferSize);
+    }
+}
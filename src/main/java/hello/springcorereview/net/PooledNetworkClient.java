@@ -0,0 +1,497 @@
+package hello.springcorereview.net;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 테스트의 NetworkClient(connect, call, disconnect)를 실제 외부 서비스 호출용으로 만든 클라이언트
+ * 연결 하나로 동기 호출을 하는 대신, 최대 maxConnections 개의 NIO 연결을 두고 연결마다 응답을 기다리지 않고 여러 요청을 보낸다.(pipelining)
+ * 요청마다 correlation id 를 붙여서 보내므로 서버는 응답을 순서와 관계없이 돌려줄 수 있다.
+
+ * 프레임 : [int 길이][long correlation id][byte 종류][UTF-8 메시지], 길이는 길이 필드를 뺀 크기
+ * 종류 : CALL -> RESPONSE 또는 ERROR, PING -> PONG
+
+ * 스레드 구조
+ * I/O 스레드 1개가 selector 로 모든 연결의 연결 수립, 쓰기, 읽기, 타임아웃, 헬스체크를 처리한다. 연결 목록과 연결 상태는 I/O 스레드만 사용한다.
+ * 호출하는 스레드는 요청을 큐에 넣고 selector 를 깨운다. 응답은 I/O 스레드에서 CompletableFuture 를 완료시킨다.
+ * 그래서 callAsync 의 결과에 붙인 콜백이 무거우면 I/O 스레드가 막힌다.(무거운 작업은 thenApplyAsync 등을 사용)
+ * 동시에 처리중인 요청은 maxConnections * maxInFlightPerConnection 개로 제한되고, 자리가 없으면 timeout 까지 기다린다.
+
+ * 연결은 필요할 때 늘린다. 가장 적게 사용중인 연결이 가득 찼을 때만 새 연결을 만든다.
+ * healthCheckInterval 동안 사용하지 않은 연결에는 PING 을 보내고, timeout 안에 PONG 이 없으면 연결을 닫는다.(다음 요청에서 새로 연결)
+ * 연결이 끊어지면 그 연결의 요청은 모두 실패한다.(다시 보내지 않는다. 요청이 처리되었는지 알 수 없기 때문)
+
+ * 생성과 초기화를 분리한다. @PostConstruct 에서 I/O 스레드를 시작하고 첫 연결을 만든다.
+ * @PreDestroy 에서는 새 요청을 받지 않고, 처리중인 요청이 끝날 때까지(최대 timeout) 기다린 뒤 연결을 닫는다.(drain)
+ */
+public class PooledNetworkClient {
+
+    static final byte CALL = 1;
+    static final byte PING = 2;
+    static final byte RESPONSE = 3;
+    static final byte PONG = 4;
+    static final byte ERROR = 5;
+
+    static final int LENGTH_SIZE = Integer.BYTES;
+    static final int HEADER_SIZE = Long.BYTES + 1;      //길이 필드 뒤의 id, 종류
+    public static final int MAX_FRAME_SIZE = 64 * 1024;
+    private static final long TICK_MILLIS = 10;
+
+    private final String host;
+    private final int port;
+    private final int maxConnections;
+    private final int maxInFlightPerConnection;
+    private final long timeoutNanos;
+    private final long healthCheckIntervalNanos;
+    private final int capacity;
+    private final Semaphore permits;
+
+    private final Queue<Request> submissions = new ConcurrentLinkedQueue<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final List<Connection> connections = new ArrayList<>();    //I/O 스레드만 사용
+    private volatile int openConnections;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder healthCheckFailures = new LongAdder();
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Selector selector;
+    private Thread ioThread;
+
+    public PooledNetworkClient(String host, int port, int maxConnections, int maxInFlightPerConnection,
+                               long timeout, long healthCheckInterval, TimeUnit unit) {
+        this.host = host;
+        this.port = port;
+        this.maxConnections = maxConnections;
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.healthCheckIntervalNanos = unit.toNanos(healthCheckInterval);
+        this.capacity = maxConnections * maxInFlightPerConnection;
+        this.permits = new Semaphore(capacity);
+    }
+
+    @PostConstruct
+    public void connect() throws IOException {
+        selector = Selector.open();
+        Connection first = open();      //주소가 잘못된 경우 시작할 때 바로 알 수 있도록 첫 연결은 블로킹으로 만든다
+        running = true;
+        accepting = true;
+        ioThread = new Thread(this::ioLoop, "network-client-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        System.out.println("PooledNetworkClient.connect " + host + ":" + port + ", first connection = " + first.channel.getLocalAddress());
+    }
+
+    /**
+     * 처리중인 요청이 끝날 때까지 최대 timeout 동안 기다린 뒤 모든 연결을 닫는다.
+     * 그때까지 끝나지 않은 요청은 실패한다.
+     */
+    @PreDestroy
+    public void disconnect() throws InterruptedException {
+        accepting = false;
+        if (ioThread == null) {     //connect 하지 않았거나 첫 연결에 실패한 경우
+            return;
+        }
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (permits.availablePermits() < capacity && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        running = false;
+        selector.wakeup();
+        ioThread.join();
+        System.out.println("PooledNetworkClient.disconnect completed = " + getCompletedCount() + ", failed = " + getFailedCount());
+    }
+
+    /**
+     * 응답을 받을 때까지 기다린다.
+     * @throws IllegalStateException 실패, 타임아웃, 서버 오류 응답
+     */
+    public String call(String message) {
+        try {
+            return callAsync(message).get(timeoutNanos * 2, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for response", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("call failed : " + e.getCause(), e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("call timed out", e);
+        }
+    }
+
+    /**
+     * 요청을 보내고 바로 반환한다. 응답이 오면 I/O 스레드에서 결과가 완료된다.
+     * 동시에 처리중인 요청이 한도에 도달했으면 자리가 날 때까지 최대 timeout 동안 기다린다.
+     */
+    public CompletableFuture<String> callAsync(String message) {
+        if (!accepting) {
+            return CompletableFuture.failedFuture(new IllegalStateException("client is not connected"));
+        }
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        if (HEADER_SIZE + payload.length > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("message is larger than " + (MAX_FRAME_SIZE - HEADER_SIZE) + " bytes");
+        }
+        try {
+            if (!permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                failed.increment();
+                return CompletableFuture.failedFuture(new IllegalStateException("no connection capacity within timeout"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        Request request = new Request(ids.incrementAndGet(), payload);
+        request.future.whenComplete((response, e) -> permits.release());
+        submissions.offer(request);
+        //accepting 을 확인한 뒤에 I/O 스레드가 끝났으면 큐를 비워줄 스레드가 없다
+        //큐에서 꺼낼 수 있으면 아직 I/O 스레드가 보지 못한 요청이므로 여기서 실패시키고, 꺼낼 수 없으면 I/O 스레드가 처리(또는 실패)한다
+        if (!running && submissions.remove(request)) {
+            fail(request, new IllegalStateException("client is not connected"));
+            return request.future;
+        }
+        selector.wakeup();
+        return request.future;
+    }
+
+    private void ioLoop() {
+        long nextMaintenance = System.nanoTime();
+        try {
+            while (running) {
+                selector.select(TICK_MILLIS);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                drainSubmissions();
+                long now = System.nanoTime();
+                if (now >= nextMaintenance) {
+                    expire(now);
+                    healthCheck(now);
+                    nextMaintenance = now + TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("PooledNetworkClient I/O thread failed : " + e);
+        } finally {
+            accepting = false;
+            IOException closed = new IOException("client closed before response");
+            for (Connection connection : new ArrayList<>(connections)) {
+                close(connection, closed);
+            }
+            Request request;
+            while ((request = submissions.poll()) != null) {
+                fail(request, closed);
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void drainSubmissions() {
+        Request request;
+        while ((request = submissions.poll()) != null) {
+            Connection connection = choose();
+            if (connection == null) {
+                fail(request, new IOException("no connection available to " + host + ":" + port));
+                continue;
+            }
+            connection.waiting.add(request);
+        }
+        //요청마다 쓰지 않고 모아서 연결마다 한 번씩 보낸다
+        for (Connection connection : new ArrayList<>(connections)) {
+            if (!connection.waiting.isEmpty()) {
+                try {
+                    flush(connection);
+                } catch (IOException e) {
+                    close(connection, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 가장 적게 사용중인 연결을 고르고, 그 연결이 가득 찼으면 새 연결을 만든다.
+     */
+    private Connection choose() {
+        Connection best = null;
+        for (Connection connection : connections) {
+            if (best == null || connection.load() < best.load()) {
+                best = connection;
+            }
+        }
+        if ((best == null || best.load() >= maxInFlightPerConnection) && connections.size() < maxConnections) {
+            try {
+                return open();
+            } catch (IOException e) {
+                System.out.println("PooledNetworkClient connect failed : " + e);
+            }
+        }
+        return best;
+    }
+
+    private Connection open() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        boolean blocking = !running;    //시작할 때의 첫 연결만 블로킹으로 만든다
+        if (blocking) {
+            channel.connect(new InetSocketAddress(host, port));
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        boolean connected = blocking || channel.connect(new InetSocketAddress(host, port));
+        Connection connection = new Connection(channel);
+        connection.connected = connected;
+        connection.key = channel.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connection);
+        connections.add(connection);
+        openConnections = connections.size();
+        connectionsOpened.increment();
+        return connection;
+    }
+
+    private void handle(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isConnectable()) {
+                connection.channel.finishConnect();
+                connection.connected = true;
+                connection.lastActivityNanos = System.nanoTime();
+            }
+            if (key.isReadable()) {
+                read(connection);
+            }
+            if (connection.key.isValid()) {
+                flush(connection);
+            }
+        } catch (IOException | RuntimeException e) {
+            close(connection, e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            throw new IOException("connection closed by server");
+        }
+        in.flip();
+        while (in.remaining() >= LENGTH_SIZE) {
+            int length = in.getInt(in.position());
+            if (length < HEADER_SIZE || length > MAX_FRAME_SIZE) {
+                throw new IOException("invalid frame length : " + length);
+            }
+            if (in.remaining() < LENGTH_SIZE + length) {
+                break;
+            }
+            in.getInt();
+            long id = in.getLong();
+            byte type = in.get();
+            byte[] payload = new byte[length - HEADER_SIZE];
+            in.get(payload);
+            dispatch(connection, id, type, new String(payload, StandardCharsets.UTF_8));
+        }
+        in.compact();
+        connection.lastActivityNanos = System.nanoTime();
+    }
+
+    private void dispatch(Connection connection, long id, byte type, String message) {
+        if (type == PONG) {
+            if (id == connection.pingId) {
+                connection.pingId = 0;
+            }
+            return;
+        }
+        Request request = connection.inFlight.remove(id);
+        if (request == null) {
+            return;     //타임아웃으로 이미 실패 처리한 요청의 늦은 응답
+        }
+        if (type == RESPONSE) {
+            completed.increment();
+            request.future.complete(message);
+        } else {
+            fail(request, new IllegalStateException("server error : " + message));
+        }
+    }
+
+    /**
+     * 대기중인 요청을 쓰기 버퍼가 허락하는 만큼 옮기고 보낼 수 있는 만큼 보낸다.
+     */
+    private void flush(Connection connection) throws IOException {
+        if (!connection.connected) {
+            return;
+        }
+        ByteBuffer out = connection.out;
+        Request request;
+        while ((request = connection.waiting.peek()) != null
+                && out.remaining() >= LENGTH_SIZE + HEADER_SIZE + request.payload.length) {
+            connection.waiting.poll();
+            writeFrame(out, request.id, CALL, request.payload);
+            connection.inFlight.put(request.id, request);
+        }
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+        boolean pending = out.position() > 0 || !connection.waiting.isEmpty();
+        connection.key.interestOps(SelectionKey.OP_READ | (pending ? SelectionKey.OP_WRITE : 0));
+    }
+
+    private static void writeFrame(ByteBuffer out, long id, byte type, byte[] payload) {
+        out.putInt(HEADER_SIZE + payload.length);
+        out.putLong(id);
+        out.put(type);
+        out.put(payload);
+    }
+
+    private void expire(long now) {
+        for (Connection connection : new ArrayList<>(connections)) {
+            expire(connection.inFlight.values().iterator(), now);
+            expire(connection.waiting.iterator(), now);
+            if (connection.pingId != 0 && now - connection.pingSentNanos > timeoutNanos) {
+                healthCheckFailures.increment();
+                close(connection, new IOException("health check failed"));
+            }
+        }
+    }
+
+    private void expire(Iterator<Request> requests, long now) {
+        while (requests.hasNext()) {
+            Request request = requests.next();
+            if (now - request.createdNanos > timeoutNanos) {
+                requests.remove();
+                timedOut.increment();
+                fail(request, new IllegalStateException("no response within timeout, id = " + request.id));
+            }
+        }
+    }
+
+    private void healthCheck(long now) {
+        for (Connection connection : new ArrayList<>(connections)) {
+            if (connection.connected && connection.load() == 0 && connection.pingId == 0
+                    && now - connection.lastActivityNanos >= healthCheckIntervalNanos
+                    && connection.out.remaining() >= LENGTH_SIZE + HEADER_SIZE) {
+                connection.pingId = ids.incrementAndGet();
+                connection.pingSentNanos = now;
+                writeFrame(connection.out, connection.pingId, PING, new byte[0]);
+                try {
+                    flush(connection);
+                } catch (IOException e) {
+                    close(connection, e);
+                }
+            }
+        }
+    }
+
+    private void close(Connection connection, IOException cause) {
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+        }
+        connection.inFlight.values().forEach(request -> fail(request, cause));
+        connection.inFlight.clear();
+        connection.waiting.forEach(request -> fail(request, cause));
+        connection.waiting.clear();
+        connections.remove(connection);
+        openConnections = connections.size();
+    }
+
+    private void fail(Request request, Exception cause) {
+        failed.increment();
+        request.future.completeExceptionally(cause);
+    }
+
+    private static class Request {
+
+        final long id;
+        final byte[] payload;
+        final long createdNanos = System.nanoTime();
+        final CompletableFuture<String> future = new CompletableFuture<>();
+
+        Request(long id, byte[] payload) {
+            this.id = id;
+            this.payload = payload;
+        }
+    }
+
+    private static class Connection {
+
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocateDirect(MAX_FRAME_SIZE * 2);
+        final ByteBuffer out = ByteBuffer.allocateDirect(MAX_FRAME_SIZE * 2);
+        final Deque<Request> waiting = new ArrayDeque<>();          //아직 쓰기 버퍼에 넣지 못한 요청
+        final Map<Long, Request> inFlight = new HashMap<>();       //보냈고 응답을 기다리는 요청
+        SelectionKey key;
+        boolean connected;
+        long lastActivityNanos = System.nanoTime();
+        long pingId;
+        long pingSentNanos;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        int load() {
+            return waiting.size() + inFlight.size();
+        }
+    }
+
+    public int getOpenConnectionCount() {
+        return openConnections;
+    }
+
+    public int getInFlightCount() {
+        return capacity - permits.availablePermits();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.sum();
+    }
+
+    public long getConnectionsOpenedCount() {
+        return connectionsOpened.sum();
+    }
+
+    public long getHealthCheckFailureCount() {
+        return healthCheckFailures.sum();
+    }
+}
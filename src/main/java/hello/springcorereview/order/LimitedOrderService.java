@@ -0,0 +1,41 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.common.ConcurrencyLimiter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * createOrder 를 ConcurrencyLimiter 안에서 실행하는 OrderService 데코레이터
+ * 한도에 도달하면 OverloadException 으로 바로 거절한다.
+ * createOrderAsync 는 future 가 완료될 때까지를 실행 중으로 보고 제한한다. 거절하면 OverloadException 으로 실패한 future 를 반환한다.
+ * priceOrder 는 저장소를 거치지 않는 계산이라 제한하지 않는다.
+ */
+public class LimitedOrderService implements OrderService {
+
+    private final OrderService delegate;
+    private final ConcurrencyLimiter limiter;
+
+    public LimitedOrderService(OrderService delegate, ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Order createOrder(Long memberId, String itemName, int itemPrice) {
+        return limiter.call(() -> delegate.createOrder(memberId, itemName, itemPrice));
+    }
+
+    @Override
+    public CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice) {
+        return limiter.callAsync(() -> delegate.createOrderAsync(memberId, itemName, itemPrice));
+    }
+
+    @Override
+    public void priceOrder(long memberId, int itemPrice, OrderPrice result) {
+        delegate.priceOrder(memberId, itemPrice, result);
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+}
@@ -0,0 +1,109 @@
+package hello.springcorereview.order;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 회원 id -> 그 회원의 최근 주문 id 색인 ("회원 X 의 최근 주문" 조회용)
+ * 회원마다 List<Order> 대신 주문 id 를 담는 long 배열 하나를 둔다.(주문 하나당 8 byte, Order 객체를 붙잡지 않는다)
+ * 배열은 4칸에서 시작해서 두 배씩 늘리고 perMemberCap 에 도달하면 더 늘리지 않고 가장 오래된 칸부터 덮어쓴다.(ring)
+ * 주문 객체는 id 로 OrderRepository 에서 조회한다.
+
+ * 추가는 회원별 객체의 모니터로 보호한다. 다른 회원의 추가와는 서로 막지 않는다.
+
+ * 페이지 조회는 최신 주문부터 돌려주고, 커서는 회원별로 추가된 순서(0부터 증가하는 위치)이다.
+ * 새 주문이 추가되어도 이미 받은 커서가 가리키는 위치는 바뀌지 않으므로 offset 방식처럼 항목이 밀리거나 중복되지 않는다.
+ * perMemberCap 을 넘어서 덮어쓴 오래된 주문은 더 이상 조회되지 않는다.
+ */
+public class MemberOrderIndex {
+
+    public static final long FIRST_PAGE = Long.MAX_VALUE;
+    public static final long NO_MORE = -1;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int perMemberCap;
+    private final ConcurrentMap<Long, OrderIds> index = new ConcurrentHashMap<>();
+
+    public MemberOrderIndex(int perMemberCap) {
+        if (perMemberCap < 1) {
+            throw new IllegalArgumentException("perMemberCap must be positive : " + perMemberCap);
+        }
+        this.perMemberCap = perMemberCap;
+    }
+
+    public void add(long memberId, long orderId) {
+        index.computeIfAbsent(memberId, key -> new OrderIds()).add(orderId, perMemberCap);
+    }
+
+    /**
+     * @param cursor 첫 페이지는 FIRST_PAGE, 다음 페이지는 이전 Page.getNextCursor()
+     * @return 최신 주문부터 최대 limit 개
+     */
+    public Page findRecent(long memberId, long cursor, int limit) {
+        OrderIds orderIds = index.get(memberId);
+        if (orderIds == null || cursor == NO_MORE) {
+            return new Page(new long[0], NO_MORE);
+        }
+        return orderIds.page(cursor, limit);
+    }
+
+    public int getMemberCount() {
+        return index.size();
+    }
+
+    private static class OrderIds {
+
+        private long[] ids = new long[INITIAL_CAPACITY];
+        private long count;     //지금까지 추가된 수, 다음 주문의 위치
+
+        synchronized void add(long orderId, int cap) {
+            if (count >= ids.length && ids.length < cap) {
+                ids = Arrays.copyOf(ids, (int) Math.min(cap, ids.length * 2L));     //아직 ring 으로 돌기 전이므로 순서대로 복사한다
+            }
+            ids[(int) (count % ids.length)] = orderId;
+            count++;
+        }
+
+        synchronized Page page(long cursor, int limit) {
+            long oldest = Math.max(0, count - ids.length);
+            long from = Math.min(cursor, count - 1);
+            if (from < oldest) {
+                return new Page(new long[0], NO_MORE);
+            }
+            int size = (int) Math.min(limit, from - oldest + 1);
+            long[] result = new long[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ids[(int) ((from - i) % ids.length)];
+            }
+            long next = from - size;
+            return new Page(result, next < oldest ? NO_MORE : next);
+        }
+    }
+
+    public static class Page {
+
+        private final long[] orderIds;
+        private final long nextCursor;
+
+        Page(long[] orderIds, long nextCursor) {
+            this.orderIds = orderIds;
+            this.nextCursor = nextCursor;
+        }
+
+        public long[] getOrderIds() {
+            return orderIds;
+        }
+
+        /**
+         * @return 다음 페이지 커서, 더 없으면 NO_MORE
+         */
+        public long getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean hasNext() {
+            return nextCursor != NO_MORE;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package hello.springcorereview.order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 주문을 생성 시각 구간(partition)별로 나눠서 보관하는 OrderRepository
+ * partition 은 구간 시작 시각을 key 로 하는 ConcurrentSkipListMap 에 두고, partition 안에서는 id 순서의 ConcurrentSkipListMap 에 둔다.
+ * id 에 생성 시각이 들어 있으므로 findById 는 id 로 partition 을 바로 찾는다.
+ * 시간 범위 조회는 범위에 걸친 partition 만 id 범위로 잘라서 읽는다.
+ * 오래된 주문은 partition 단위로 map 에서 떼어내므로 주문 수와 관계없이 partition 수 만큼의 비용으로 버릴 수 있다.
+
+ * retention 을 주면 새 partition 을 만들 때 retention 보다 오래된 partition 을 함께 버린다.(0 이면 dropBefore 를 직접 호출해야 한다)
+ * 버리는 partition 에 동시에 저장된 주문은 함께 버려진다.(버릴 만큼 오래된 주문이다) dropBefore 가 반환하는 수에는 빠질 수 있다.
+ * 이미 버린 구간의 주문이 늦게 저장되면 저장하지 않고 무시한다.(getExpiredSaveCount 로 센다)
+ * 버린 구간의 partition 을 다시 만들면 retention 이 지난 주문이 조회되므로, 버린 구간의 경계(droppedBefore)를 기억해두고 확인한다.
+ */
+public class MemoryOrderRepository implements OrderRepository {
+
+    private final long partitionMillis;
+    private final long retentionMillis;
+    private final ConcurrentSkipListMap<Long, Partition> partitions = new ConcurrentSkipListMap<>();
+    private final AtomicLong droppedBefore = new AtomicLong(Long.MIN_VALUE);   //시작 시각이 이 값보다 작은 partition 은 버렸다
+    private final LongAdder expiredSaves = new LongAdder();
+
+    public MemoryOrderRepository(long partitionDuration, long retention, TimeUnit unit) {
+        this.partitionMillis = unit.toMillis(partitionDuration);
+        this.retentionMillis = unit.toMillis(retention);
+    }
+
+    @Override
+    public void save(Order order) {
+        if (order.getId() == null) {
+            throw new IllegalArgumentException("order has no id : " + order);
+        }
+        long id = order.getId();
+        long start = partitionStart(OrderIdGenerator.timestampOf(id));
+        if (start < droppedBefore.get()) {
+            expiredSaves.increment();
+            return;
+        }
+        Partition partition = partition(start);
+        if (partition.orders.put(id, order) == null) {
+            partition.size.increment();
+        }
+        //확인한 뒤에 dropBefore 가 이 구간을 버렸으면, 그 뒤에 다시 만든 partition 일 수 있으므로 함께 버린다
+        if (start < droppedBefore.get()) {
+            partitions.remove(start, partition);
+            expiredSaves.increment();
+        }
+    }
+
+    private Partition partition(long start) {
+        Partition partition = partitions.get(start);
+        if (partition != null) {
+            return partition;
+        }
+        partition = partitions.computeIfAbsent(start, key -> new Partition());
+        if (retentionMillis > 0) {
+            dropBefore(start - retentionMillis);
+        }
+        return partition;
+    }
+
+    private long partitionStart(long timestampMillis) {
+        return timestampMillis - Math.floorMod(timestampMillis, partitionMillis);
+    }
+
+    @Override
+    public Order findById(long orderId) {
+        Partition partition = partitions.get(partitionStart(OrderIdGenerator.timestampOf(orderId)));
+        return partition == null ? null : partition.orders.get(orderId);
+    }
+
+    @Override
+    public List<Order> findByTimeRange(long fromMillis, long toMillis) {
+        List<Order> result = new ArrayList<>();
+        if (fromMillis >= toMillis) {
+            return result;
+        }
+        long fromId = OrderIdGenerator.minIdAt(fromMillis);
+        long toId = OrderIdGenerator.minIdAt(toMillis);
+        NavigableMap<Long, Partition> range = partitions.subMap(partitionStart(fromMillis), true, toMillis, false);
+        for (Partition partition : range.values()) {
+            result.addAll(partition.orders.subMap(fromId, true, toId, false).values());
+        }
+        return result;
+    }
+
+    @Override
+    public long dropBefore(long beforeMillis) {
+        long boundary = partitionStart(beforeMillis);
+        droppedBefore.accumulateAndGet(boundary, Math::max);    //partition 을 떼어내기 전에 경계를 먼저 올린다
+        ConcurrentNavigableMap<Long, Partition> expired = partitions.headMap(boundary, false);
+        long dropped = 0;
+        for (Long start : expired.keySet()) {
+            Partition partition = partitions.remove(start);
+            if (partition != null) {
+                dropped += partition.size.sum();
+            }
+        }
+        return dropped;
+    }
+
+    private static class Partition {
+
+        final ConcurrentSkipListMap<Long, Order> orders = new ConcurrentSkipListMap<>();
+        final LongAdder size = new LongAdder();    //ConcurrentSkipListMap.size 는 전체를 훑으므로 따로 센다
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * @return 이미 버린 구간이라서 저장하지 않은 주문 수
+     */
+    public long getExpiredSaveCount() {
+        return expiredSaves.sum();
+    }
+
+    /**
+     * 남아 있는 partition 의 주문 수를 더한다. 전체 수를 따로 세면 dropBefore 가 partition 을 떼어낸 뒤에
+     * 그 partition 에 끝난 save 가 전체 수만 늘려서 실제보다 커지므로, partition 수 만큼 더하는 비용을 감수한다.
+     */
+    public long size() {
+        long size = 0;
+        for (Partition partition : partitions.values()) {
+            size += partition.size.sum();
+        }
+        return size;
+    }
+}
@@ -2,6 +2,7 @@ package hello.springcorereview.order;
 
 public class Order {
 
+    private Long id;    //OrderIdGenerator 가 있을 때만 부여된다
     private Long memberId;
     private String itemName;
     private int itemPrice;
@@ -18,6 +19,14 @@ public class Order {
         return itemPrice - discountPrice;
     }
 
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public Long getMemberId() {
         return memberId;
     }
@@ -53,7 +62,8 @@ public class Order {
     @Override
     public String toString() {
         return "Order{" +
-                "memberId=" + memberId +
+                "id=" + id +
+                ", memberId=" + memberId +
                 ", itemName='" + itemName + '\'' +
                 ", itemPrice=" + itemPrice +
                 ", discountPrice=" + discountPrice +
@@ -0,0 +1,184 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.common.OverloadException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 동시에 들어온 주문 요청을 모아서 한 번에 처리하는 micro batcher
+ * 요청은 bounded queue 에 넣고, 스레드 하나가 최대 maxBatchSize 개 또는 첫 요청이 들어온 뒤 maxWait 이 지날 때까지 모아서 handler 에 넘긴다.
+ * 요청이 몰리면 기다리지 않고 가득 찬 묶음을 바로 처리하고, 요청이 드물면 최대 maxWait 만큼 지연시간이 늘어난다.
+ * 큐가 가득 차면 기다리지 않고 OverloadException 으로 실패한 future 를 반환한다.
+
+ * handler 는 묶음의 모든 future 를 완료해야 한다. handler 가 예외를 던지면 완료되지 않은 future 를 그 예외로 실패시킨다.
+ * close 를 호출하면 새 요청을 받지 않고, 큐에 남은 요청까지 처리한 뒤 스레드를 종료한다.
+ */
+public class OrderBatcher {
+
+    public interface BatchHandler {
+
+        void handle(List<Request> batch);
+    }
+
+    public static class Request {
+
+        private final Long memberId;
+        private final String itemName;
+        private final int itemPrice;
+        private final long enqueuedNanos;
+        private final CompletableFuture<Order> future = new CompletableFuture<>();
+
+        Request(Long memberId, String itemName, int itemPrice) {
+            this.memberId = memberId;
+            this.itemName = itemName;
+            this.itemPrice = itemPrice;
+            this.enqueuedNanos = System.nanoTime();
+        }
+
+        public Long getMemberId() {
+            return memberId;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public int getItemPrice() {
+            return itemPrice;
+        }
+
+        public CompletableFuture<Order> getFuture() {
+            return future;
+        }
+    }
+
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Request> queue;
+    private final BatchHandler handler;
+    private final Thread worker;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile boolean running = true;
+
+    public OrderBatcher(int maxBatchSize, long maxWait, TimeUnit unit, int queueCapacity, BatchHandler handler) {
+        if (maxBatchSize < 1 || maxWait < 0 || queueCapacity < maxBatchSize) {
+            throw new IllegalArgumentException("batch size must be positive and not larger than the queue capacity");
+        }
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.handler = handler;
+        this.worker = new Thread(this::run, "order-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public CompletableFuture<Order> submit(Long memberId, String itemName, int itemPrice) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("order batcher is closed"));
+        }
+        Request request = new Request(memberId, itemName, itemPrice);
+        if (!queue.offer(request)) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new OverloadException("order batcher queue is full, capacity = "
+                    + (queue.size() + queue.remainingCapacity())));
+        }
+        //running 확인과 offer 사이에 close 가 큐를 비우고 끝났을 수 있다. 꺼낼 수 있으면 아무도 처리하지 않으므로 실패시킨다.
+        //꺼내지 못했으면 스레드나 close 가 이미 가져가서 완료한다.
+        if (!running && queue.remove(request)) {
+            request.future.completeExceptionally(new IllegalStateException("order batcher is closed"));
+        }
+        return request.future;
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Request first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedNanos + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Request next = remaining > 0 && running ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;    //모은 묶음과 큐에 남은 요청까지 처리하고 종료한다
+            }
+            if (!batch.isEmpty()) {
+                process(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Request> batch) {
+        batches.increment();
+        batchedRequests.add(batch.size());
+        try {
+            handler.handle(batch);
+        } catch (RuntimeException e) {
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 새 요청을 받지 않고, 이미 받은 요청을 모두 처리할 때까지 기다린다.(처리 중인 handler 를 interrupt 하지 않는다)
+     * 닫는 순간 submit 하던 요청이 스레드가 끝난 뒤 큐에 들어왔다면 여기서 또는 submit 이 다시 확인해서 실패시킨다.
+     */
+    public void close() throws InterruptedException {
+        running = false;
+        worker.join();
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(new IllegalStateException("order batcher is closed"));
+        }
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getBatchedRequestCount() {
+        return batchedRequests.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) batchedRequests.sum() / count;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,90 @@
+package hello.springcorereview.order;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 다른 노드와 협의하지 않고 만드는 64비트 주문 id (Snowflake 방식)
+ * [1 부호 0][41 EPOCH 이후 밀리초][10 노드 id][4 lane][8 순번]
+ * 시각이 앞자리이므로 id 순서가 대략 생성 시각 순서이고, id 에서 생성 시각을 꺼낼 수 있다.(timestampOf)
+
+ * 노드 안에서는 스레드 id 로 16개의 lane 중 하나를 고르고 lane 마다 (밀리초, 순번)을 AtomicLong 하나에 담아 CAS 로 증가시킨다.
+ * 스레드마다 lane 이 다르면 서로 경합하지 않는다. 같은 lane 을 쓰는 스레드끼리만 CAS 가 겹칠 수 있다.
+ * 한 lane 에서 1ms 에 256개를 넘게 만들면 다음 밀리초를 미리 사용한다.(기다리지 않는다, lane 마다 초당 25만 6천개까지는 시각과 어긋나지 않는다)
+ * 시계가 뒤로 가도 lane 의 마지막 밀리초보다 작은 값은 쓰지 않으므로 id 가 중복되지 않는다.
+ */
+@Component
+public class OrderIdGenerator {
+
+    public static final long EPOCH_MILLIS = 1577836800000L;    //2020-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int LANE_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final int LANES = 1 << LANE_BITS;
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + LANE_BITS + SEQUENCE_BITS;
+
+    private final long node;
+    private final LongSupplier clock;
+    private final AtomicLongArray lanes = new AtomicLongArray(LANES * 8);    //lane 마다 8칸 간격으로 두어 false sharing 을 줄인다
+
+    public OrderIdGenerator(@Value("${order.id.node:0}") long node) {
+        this(node, System::currentTimeMillis);
+    }
+
+    //테스트 용도
+    OrderIdGenerator(long node, LongSupplier clock) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("node must be between 0 and " + MAX_NODE + " : " + node);
+        }
+        this.node = node;
+        this.clock = clock;
+    }
+
+    public long next() {
+        int lane = (int) (Thread.currentThread().getId() & (LANES - 1));
+        int index = lane * 8;
+        while (true) {
+            long state = lanes.get(index);      //[밀리초][순번 8비트]
+            long lastMillis = state >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((state & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = state + 1;
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS;   //이번 밀리초의 순번을 다 썼다
+            }
+            if (lanes.compareAndSet(index, state, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << TIMESTAMP_SHIFT)
+                        | (node << (LANE_BITS + SEQUENCE_BITS))
+                        | ((long) lane << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * @return id 를 만든 시각 (epoch millis)
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH_MILLIS;
+    }
+
+    public static long nodeOf(long id) {
+        return (id >>> (LANE_BITS + SEQUENCE_BITS)) & MAX_NODE;
+    }
+
+    /**
+     * @return timestampMillis 이후에 만든 id 보다 작거나 같은 가장 작은 id, 시간 범위 조회의 경계로 사용한다
+     */
+    public static long minIdAt(long timestampMillis) {
+        return Math.max(0, timestampMillis - EPOCH_MILLIS) << TIMESTAMP_SHIFT;
+    }
+}
@@ -0,0 +1,45 @@
+package hello.springcorereview.order;
+
+/**
+ * 주문 가격 계산 결과를 담는 재사용 가능한 가변 객체
+ * 최종 금액만 필요한 호출자가 하나를 만들어 두고 OrderService.priceOrder 에 반복해서 넘겨 쓰면
+ * 주문마다 Order 객체를 새로 만들지 않아도 된다.
+ * 값이 계산할 때마다 덮어써지므로 스레드 사이에 공유하면 안 된다.
+ */
+public class OrderPrice {
+
+    private long memberId;
+    private int itemPrice;
+    private int discountPrice;
+
+    void set(long memberId, int itemPrice, int discountPrice) {
+        this.memberId = memberId;
+        this.itemPrice = itemPrice;
+        this.discountPrice = discountPrice;
+    }
+
+    public int calculatePrice() {
+        return itemPrice - discountPrice;
+    }
+
+    public long getMemberId() {
+        return memberId;
+    }
+
+    public int getItemPrice() {
+        return itemPrice;
+    }
+
+    public int getDiscountPrice() {
+        return discountPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderPrice{" +
+                "memberId=" + memberId +
+                ", itemPrice=" + itemPrice +
+                ", discountPrice=" + discountPrice +
+                '}';
+    }
+}
@@ -0,0 +1,24 @@
+package hello.springcorereview.order;
+
+import java.util.List;
+
+/**
+ * id 가 부여된 주문을 보관하는 저장소, id 에 담긴 생성 시각(OrderIdGenerator.timestampOf)으로 시간 범위를 조회한다.
+ */
+public interface OrderRepository {
+
+    void save(Order order);
+
+    Order findById(long orderId);
+
+    /**
+     * @return fromMillis 이상 toMillis 미만에 만든 주문, id(생성 시각) 순서
+     */
+    List<Order> findByTimeRange(long fromMillis, long toMillis);
+
+    /**
+     * beforeMillis 이전 구간의 주문을 모두 버린다.
+     * @return 버린 주문 수
+     */
+    long dropBefore(long beforeMillis);
+}
@@ -0,0 +1,30 @@
+package hello.springcorereview.order;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * order.repository.enabled=true 일 때만 주문을 메모리에 보관한다.(스프링 부트로 실행할 때만 적용)
+ * 부하 테스트처럼 주문이 많은 실행에서 메모리를 계속 차지하지 않도록 기본은 보관하지 않는다.
+ * order.repository.partition-minutes 구간으로 나누고 order.repository.retention-minutes 보다 오래된 구간은 버린다.
+ * 회원별 최근 주문 색인도 함께 등록한다. 회원마다 최근 order.index.per-member-cap 개의 주문 id 만 보관한다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.repository.enabled", havingValue = "true")
+public class OrderRepositoryConfig {
+
+    @Bean
+    public MemoryOrderRepository orderRepository(@Value("${order.repository.partition-minutes:1}") long partitionMinutes,
+                                                 @Value("${order.repository.retention-minutes:60}") long retentionMinutes) {
+        return new MemoryOrderRepository(partitionMinutes, retentionMinutes, TimeUnit.MINUTES);
+    }
+
+    @Bean
+    public MemberOrderIndex memberOrderIndex(@Value("${order.index.per-member-cap:1000}") int perMemberCap) {
+        return new MemberOrderIndex(perMemberCap);
+    }
+}
@@ -1,6 +1,27 @@
 package hello.springcorereview.order;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface OrderService {
 
     Order createOrder(Long memberId, String itemName, int itemPrice);
+
+    /**
+     * 주문을 비동기로 만든다. 구현체는 동시에 들어온 주문을 모아서 한 번에 처리할 수 있다.(OrderServiceImpl 참고)
+     * 기본 구현은 호출한 스레드에서 createOrder 를 실행하고 완료된 future 를 반환한다.
+     * @return 실패하면 예외로 완료된 future
+     */
+    default CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice) {
+        try {
+            return CompletableFuture.completedFuture(createOrder(memberId, itemName, itemPrice));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 주문 객체를 만들지 않고 가격만 계산해서 result 에 채운다.
+     * 호출자가 result 를 재사용하면 계산 과정에서 새로 할당하는 객체가 없다.
+     */
+    void priceOrder(long memberId, int itemPrice, OrderPrice result);
 }
@@ -2,11 +2,20 @@ package hello.springcorereview.order;
 
 import hello.springcorereview.annotation.MainDiscountPolicy;
 import hello.springcorereview.discount.DiscountPolicy;
-import hello.springcorereview.member.Member;
+import hello.springcorereview.member.Grade;
 import hello.springcorereview.member.MemberRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 @Component
 //@RequiredArgsConstructor    // field field 에 대한 생성자를 만들어 준다 (cmd + f12 로 확인가능), 코드도 간결해지고 field 추가도 편하다.
 public class OrderServiceImpl implements OrderService {
@@ -30,6 +39,15 @@ public class OrderServiceImpl implements OrderService {
      * 스프링은 자동보다는 수동, 넓은 범위보다는 좁은 범위의 선택권이 우선순위가 높다. @Primary < @Qualifier
      */
     private final DiscountPolicy discountPolicy;
+    private OrderStatistics orderStatistics;
+    private OrderIdGenerator orderIdGenerator;
+    private OrderRepository orderRepository;
+    private MemberOrderIndex memberOrderIndex;
+
+    private int batchSize = 64;
+    private long batchWaitMicros = 200;
+    private int batchQueueCapacity = 4096;
+    private volatile OrderBatcher orderBatcher;
 
     /**
      * 생성자가 딱 1개만 존재하는 경우 Autowired 생략가능(스프링 빈에만 해당), 여러개인 경우는 반드시 특정 생성자를 지정해야 한다.
@@ -56,21 +74,174 @@ public class OrderServiceImpl implements OrderService {
         this.discountPolicy = discountPolicy;
     }
 
+    /**
+     * 주문 통계는 선택 의존관계이므로 수정자 주입을 사용한다. 빈이 없으면 집계하지 않는다.
+     */
+    @Autowired(required = false)
+    public void setOrderStatistics(OrderStatistics orderStatistics) {
+        this.orderStatistics = orderStatistics;
+    }
+
+    /**
+     * id 생성기가 있으면 주문에 id 를 부여하고, 저장소까지 있으면 주문을 저장해서 나중에 조회할 수 있게 한다.
+     */
+    @Autowired(required = false)
+    public void setOrderIdGenerator(OrderIdGenerator orderIdGenerator) {
+        this.orderIdGenerator = orderIdGenerator;
+    }
+
+    @Autowired(required = false)
+    public void setOrderRepository(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @Autowired(required = false)
+    public void setMemberOrderIndex(MemberOrderIndex memberOrderIndex) {
+        this.memberOrderIndex = memberOrderIndex;
+    }
+
+    /**
+     * createOrderAsync 의 묶음 크기와 대기 시간, 큐 크기를 정한다. 첫 createOrderAsync 호출 전에만 적용된다.
+     * AppConfig 처럼 직접 생성한 빈에도 @Autowired 메서드는 호출되므로 설정 방식과 관계없이 같은 프로퍼티를 사용한다.
+     */
+    @Autowired
+    public void setBatchOptions(@Value("${order.batch.max-size:64}") int batchSize,
+                                @Value("${order.batch.max-wait-micros:200}") long batchWaitMicros,
+                                @Value("${order.batch.queue-capacity:4096}") int batchQueueCapacity) {
+        this.batchSize = batchSize;
+        this.batchWaitMicros = batchWaitMicros;
+        this.batchQueueCapacity = batchQueueCapacity;
+    }
+
     //private final DiscountPolicy discountPolicy = new FixDiscountPolicy();
     //private final DiscountPolicy discountPolicy = new RateDiscountPolicy();
     // 인터페이스에 의존하며 DIP 를 지키는 것처럼 보이지만 구현체에도 의존하고 있다 -> DIP 위반
     // 구현체 변경시 클라이언트(OrderServiceImpl)의 코드에 영향을 준다 -> OCP 위반
 
+    /**
+     * 할인 계산에는 등급만 필요하므로 회원 전체가 아니라 등급만 조회한다.
+     * OffHeapMemberRepository 처럼 findGrade 를 재정의한 저장소는 레코드를 역직렬화하지 않고 등급만 읽고,
+     * GradeIndexingMemberRepository 는 자신이 갱신하는 등급 색인에서 읽는다.
+     * 회원이 없으면 IllegalArgumentException 이 발생한다.
+     */
     @Override
     public Order createOrder(Long memberId, String itemName, int itemPrice) {
-        Member member = memberRepository.findById(memberId);
-        int discountPrice = discountPolicy.discount(member, itemPrice);
+        if (memberId == null) {
+            throw new IllegalArgumentException("member not found : null");
+        }
+        Grade grade = findGrade(memberId);
+        return createOrder(memberId, itemName, itemPrice, grade, discountPolicy.discount(grade, itemPrice));
+    }
+
+    private Grade findGrade(long memberId) {
+        Grade grade = memberRepository.findGrade(memberId);
+        if (grade == null) {
+            throw new IllegalArgumentException("member not found : " + memberId);
+        }
+        return grade;
+    }
 
-        return new Order(memberId, itemName, itemPrice, discountPrice);
+    /**
+     * 동시에 들어온 주문을 OrderBatcher 로 모아서 처리한다.(order.batch.max-size 개 또는 order.batch.max-wait-micros 까지)
+     * 묶음마다 회원 등급을 findGrades 한 번으로 조회하므로, 조회마다 왕복 비용이 있는 저장소에서 왕복 횟수가 줄어든다.
+     * 대신 요청이 드물 때는 최대 대기 시간만큼 지연시간이 늘어난다.
+     * 회원이 없으면 IllegalArgumentException, 큐가 가득 차면 OverloadException 으로 future 가 실패한다.
+     * memberId 가 null 이면 묶음에 넣지 않고 바로 실패한다.(묶음의 일괄 조회가 실패해서 함께 묶인 주문까지 실패하지 않도록)
+     */
+    @Override
+    public CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice) {
+        if (memberId == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("member not found : null"));
+        }
+        OrderBatcher batcher = orderBatcher;
+        if (batcher == null) {
+            synchronized (this) {
+                batcher = orderBatcher;
+                if (batcher == null) {
+                    batcher = new OrderBatcher(batchSize, batchWaitMicros, TimeUnit.MICROSECONDS, batchQueueCapacity, this::createOrders);
+                    orderBatcher = batcher;
+                }
+            }
+        }
+        return batcher.submit(memberId, itemName, itemPrice);
+    }
+
+    private void createOrders(List<OrderBatcher.Request> batch) {
+        Set<Long> memberIds = new HashSet<>();
+        for (OrderBatcher.Request request : batch) {
+            if (request.getMemberId() != null) {
+                memberIds.add(request.getMemberId());
+            }
+        }
+        Map<Long, Grade> grades = memberRepository.findGrades(memberIds);
+
+        for (OrderBatcher.Request request : batch) {
+            try {
+                Grade grade = grades.get(request.getMemberId());
+                if (grade == null) {
+                    throw new IllegalArgumentException("member not found : " + request.getMemberId());
+                }
+                Order order = createOrder(request.getMemberId(), request.getItemName(), request.getItemPrice(),
+                        grade, discountPolicy.discount(grade, request.getItemPrice()));
+                request.getFuture().complete(order);
+            } catch (RuntimeException e) {
+                request.getFuture().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 할인 금액을 계산한 뒤의 공통 처리 (통계, id 부여, 저장, 회원별 색인)
+     */
+    private Order createOrder(Long memberId, String itemName, int itemPrice, Grade grade, int discountPrice) {
+        if (orderStatistics != null) {
+            orderStatistics.record(grade, itemPrice, discountPrice);
+        }
+
+        Order order = new Order(memberId, itemName, itemPrice, discountPrice);
+        if (orderIdGenerator != null) {
+            order.setId(orderIdGenerator.next());
+            if (orderRepository != null) {
+                orderRepository.save(order);
+            }
+            if (memberOrderIndex != null) {
+                memberOrderIndex.add(memberId, order.getId());
+            }
+        }
+        return order;
+    }
+
+    /**
+     * createOrder 와 같은 계산을 하지만 Order 를 만들지 않고 호출자의 OrderPrice 에 결과를 쓴다.
+     * 참고 : findGrade 의 기본 구현은 Long 을 받는 findById 를 호출하기 때문에 autoboxing 이 일어난다.
+     * Long.valueOf 는 -128 ~ 127 만 캐시하므로 그 밖의 id 는 JIT 의 escape analysis 로 제거되지 않으면 Long 하나가 할당된다.
+     * 등급 색인이 있거나 findGrade 를 재정의한 저장소는 long 그대로 등급만 읽으므로 박싱도, 회원 객체 생성도 일어나지 않는다.
+     */
+    @Override
+    public void priceOrder(long memberId, int itemPrice, OrderPrice result) {
+        int discountPrice = discountPolicy.discount(findGrade(memberId), itemPrice);
+
+        result.set(memberId, itemPrice, discountPrice);
+    }
+
+    /**
+     * 주문 묶음 처리 스레드를 종료한다. 이미 받은 비동기 주문은 모두 처리한 뒤 종료한다.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        OrderBatcher batcher = orderBatcher;
+        if (batcher != null) {
+            batcher.close();
+        }
     }
 
     //테스트 용도
     public MemberRepository getMemberRepository() {
         return memberRepository;
     }
+
+    //테스트 용도
+    OrderBatcher getOrderBatcher() {
+        return orderBatcher;
+    }
 }
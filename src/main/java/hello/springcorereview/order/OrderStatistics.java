@@ -0,0 +1,205 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.member.Grade;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * 최근 1초, 1분, 15분 동안의 주문 수, 매출, 할인 금액을 등급별로 집계한다.
+ * Order 를 보관하지 않고 시간 구간(bucket)별 누적값만 가진다. 매출은 실제 결제 금액(itemPrice - discountPrice)이다.
+
+ * 창(window)마다 bucket 을 고정 개수의 링으로 돌려 쓴다.
+ * 1초 = 100ms * 10, 1분 = 1초 * 60, 15분 = 10초 * 90
+ * 기록은 현재 시각의 bucket 에 LongAdder 로 더하므로 여러 스레드가 동시에 기록해도 락이 없고 경합이 적다.(striped)
+ * 링의 칸이 지난 구간의 bucket 이면 새 bucket 으로 CAS 교체한다. 교체에 진 스레드는 이긴 쪽의 bucket 에 기록한다.
+ * 교체 직전에 옛 bucket 에 늦게 기록된 값은 창에서 빠질 수 있다.(통계 용도이므로 허용)
+
+ * 조회는 창의 bucket 개수 * 등급 수 만큼만 더하므로 주문량과 관계없이 비용이 일정하다.
+ * 현재 bucket 은 진행중이므로 창의 실제 길이는 (bucket 개수 - 1) ~ bucket 개수 만큼의 구간이다.
+ */
+@Component
+public class OrderStatistics {
+
+    private static final Grade[] GRADES = Grade.values();
+
+    private final LongSupplier clock;
+    private final Window[] windows = {
+            new Window("1s", 100, 10),
+            new Window("1m", 1_000, 60),
+            new Window("15m", 10_000, 90)
+    };
+
+    public OrderStatistics() {
+        this(System::currentTimeMillis);
+    }
+
+    //테스트 용도
+    OrderStatistics(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public void record(Grade grade, int itemPrice, int discountPrice) {
+        long now = clock.getAsLong();
+        for (Window window : windows) {
+            window.bucket(now).add(grade, itemPrice - discountPrice, discountPrice);
+        }
+    }
+
+    /**
+     * 창 이름(1s, 1m, 15m) 순서대로 집계 결과를 반환한다.
+     */
+    public Map<String, WindowStats> snapshot() {
+        long now = clock.getAsLong();
+        Map<String, WindowStats> result = new LinkedHashMap<>();
+        for (Window window : windows) {
+            result.put(window.name, window.sum(now));
+        }
+        return result;
+    }
+
+    private static class Window {
+
+        final String name;
+        final long bucketMillis;
+        final int size;
+        final AtomicReferenceArray<Bucket> ring;
+
+        Window(String name, long bucketMillis, int size) {
+            this.name = name;
+            this.bucketMillis = bucketMillis;
+            this.size = size;
+            this.ring = new AtomicReferenceArray<>(size);
+        }
+
+        Bucket bucket(long now) {
+            long epoch = now / bucketMillis;
+            int slot = (int) (epoch % size);
+            while (true) {
+                Bucket bucket = ring.get(slot);
+                if (bucket != null && bucket.epoch >= epoch) {
+                    return bucket;      //시계가 뒤로 가서 더 새로운 bucket 이 있어도 그대로 사용한다
+                }
+                Bucket fresh = new Bucket(epoch);
+                if (ring.compareAndSet(slot, bucket, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+
+        WindowStats sum(long now) {
+            long epoch = now / bucketMillis;
+            long[] orders = new long[GRADES.length];
+            long[] revenue = new long[GRADES.length];
+            long[] discount = new long[GRADES.length];
+            for (int slot = 0; slot < size; slot++) {
+                Bucket bucket = ring.get(slot);
+                if (bucket == null || bucket.epoch <= epoch - size || bucket.epoch > epoch) {
+                    continue;
+                }
+                for (int i = 0; i < GRADES.length; i++) {
+                    orders[i] += bucket.orders[i].sum();
+                    revenue[i] += bucket.revenue[i].sum();
+                    discount[i] += bucket.discount[i].sum();
+                }
+            }
+            Map<Grade, GradeStats> byGrade = new EnumMap<>(Grade.class);
+            for (int i = 0; i < GRADES.length; i++) {
+                byGrade.put(GRADES[i], new GradeStats(orders[i], revenue[i], discount[i]));
+            }
+            return new WindowStats(bucketMillis * size / 1000.0, byGrade);
+        }
+    }
+
+    private static class Bucket {
+
+        final long epoch;
+        final LongAdder[] orders = adders();
+        final LongAdder[] revenue = adders();
+        final LongAdder[] discount = adders();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+
+        void add(Grade grade, long paid, long discountPrice) {
+            int i = grade.ordinal();
+            orders[i].increment();
+            revenue[i].add(paid);
+            discount[i].add(discountPrice);
+        }
+
+        private static LongAdder[] adders() {
+            LongAdder[] adders = new LongAdder[GRADES.length];
+            for (int i = 0; i < adders.length; i++) {
+                adders[i] = new LongAdder();
+            }
+            return adders;
+        }
+    }
+
+    public static class GradeStats {
+
+        private final long orders;
+        private final long revenue;
+        private final long discount;
+
+        GradeStats(long orders, long revenue, long discount) {
+            this.orders = orders;
+            this.revenue = revenue;
+            this.discount = discount;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        public long getRevenue() {
+            return revenue;
+        }
+
+        public long getDiscount() {
+            return discount;
+        }
+    }
+
+    public static class WindowStats {
+
+        private final double seconds;
+        private final Map<Grade, GradeStats> byGrade;
+
+        WindowStats(double seconds, Map<Grade, GradeStats> byGrade) {
+            this.seconds = seconds;
+            this.byGrade = byGrade;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+
+        public long getOrders() {
+            return byGrade.values().stream().mapToLong(GradeStats::getOrders).sum();
+        }
+
+        public double getOrdersPerSecond() {
+            return getOrders() / seconds;
+        }
+
+        public long getRevenue() {
+            return byGrade.values().stream().mapToLong(GradeStats::getRevenue).sum();
+        }
+
+        public long getDiscount() {
+            return byGrade.values().stream().mapToLong(GradeStats::getDiscount).sum();
+        }
+
+        public Map<Grade, GradeStats> getByGrade() {
+            return byGrade;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberRepository;
+import hello.springcorereview.member.MemoryMemberRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 팔로워 쪽 MemberRepository, 리더의 로그를 받아서 로컬 저장소에 순서대로 적용하고 findById 는 로컬에서 처리한다.
+ * 쓰기는 리더에서만 받는다. save 를 호출하면 UnsupportedOperationException 이 발생한다.
+
+ * 처음 연결하거나 리더가 바뀌었거나 tail 을 놓친 경우 리더가 스냅샷을 보낸다.
+ * 스냅샷은 새 저장소에 받은 뒤 한 번에 교체하므로 받는 동안에도 이전 데이터로 조회할 수 있다.
+ * 스냅샷 직후 로그를 따라잡는 동안에는 일부 회원이 스냅샷 위치보다 새로운 값일 수 있다.(로그를 모두 적용하면 리더와 같아진다)
+ * 연결이 끊어지면 RECONNECT_MILLIS 뒤에 다시 연결해서 마지막으로 적용한 순번 다음부터 이어서 받는다.
+
+ * 복제 지연 (replication lag)
+ * getLag : 리더의 마지막 순번과 적용한 순번의 차이, 리더는 항목이나 heartbeat 를 보낼 때마다 최신 순번을 알려준다.
+ * getLagMillis : 뒤처져 있을 때 마지막으로 적용한 항목이 리더에 기록된 뒤 지난 시간 (리더와 팔로워의 시계가 맞다고 가정)
+ */
+public class ReplicaMemberRepository implements MemberRepository {
+
+    private static final long RECONNECT_MILLIS = 100;
+
+    private final String host;
+    private final int port;
+
+    private volatile MemoryMemberRepository store = new MemoryMemberRepository();
+    private volatile long epoch;
+    private volatile long appliedSequence;
+    private volatile long appliedTimeMillis;
+    private volatile long leaderSequence;
+    private volatile boolean connected;
+
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    private volatile boolean running;
+    private volatile Socket socket;
+    private Thread receiver;
+
+    public ReplicaMemberRepository(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        receiver = new Thread(this::receiveLoop, "replication-receiver");
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        closeSocket();
+        receiver.interrupt();
+        receiver.join();
+    }
+
+    @Override
+    public void save(Member member) {
+        throw new UnsupportedOperationException("read-only replica, save to the leader");
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        return store.findById(memberId);
+    }
+
+    private void receiveLoop() {
+        while (running) {
+            try (Socket socket = new Socket()) {
+                this.socket = socket;
+                socket.connect(new InetSocketAddress(host, port));
+                socket.setTcpNoDelay(true);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.writeLong(epoch);
+                out.writeLong(appliedSequence);
+                out.flush();
+                connected = true;
+                receive(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("ReplicaMemberRepository disconnected from " + host + ":" + port + " : " + e);
+                }
+            } finally {
+                connected = false;
+            }
+            if (running) {
+                reconnects.increment();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RECONNECT_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(DataInputStream in) throws IOException {
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationLeader.SNAPSHOT:
+                    loadSnapshot(in);
+                    break;
+                case ReplicationLeader.ENTRY:
+                    long sequence = in.readLong();
+                    long timeMillis = in.readLong();
+                    store.save(new Member(in.readLong(), in.readUTF(), Grade.fromCode(in.readByte())));
+                    appliedTimeMillis = timeMillis;
+                    appliedSequence = sequence;
+                    leaderSequence = Math.max(leaderSequence, sequence);
+                    break;
+                case ReplicationLeader.HEARTBEAT:
+                    leaderSequence = in.readLong();
+                    in.readLong();
+                    break;
+                default:
+                    throw new IOException("unknown replication message : " + type);
+            }
+        }
+    }
+
+    private void loadSnapshot(DataInputStream in) throws IOException {
+        long snapshotEpoch = in.readLong();
+        long position = in.readLong();
+        int count = in.readInt();
+        MemoryMemberRepository loaded = new MemoryMemberRepository(count);
+        for (int i = 0; i < count; i++) {
+            loaded.save(new Member(in.readLong(), in.readUTF(), Grade.fromCode(in.readByte())));
+        }
+        store = loaded;
+        epoch = snapshotEpoch;
+        appliedSequence = position;
+        appliedTimeMillis = System.currentTimeMillis();
+        leaderSequence = position;
+        snapshots.increment();
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public long getLeaderSequence() {
+        return leaderSequence;
+    }
+
+    public long getLag() {
+        return Math.max(0, leaderSequence - appliedSequence);
+    }
+
+    public long getLagMillis() {
+        return getLag() == 0 ? 0 : Math.max(0, System.currentTimeMillis() - appliedTimeMillis);
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    public long getReconnectCount() {
+        return reconnects.sum();
+    }
+}
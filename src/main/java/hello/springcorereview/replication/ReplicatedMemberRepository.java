@@ -0,0 +1,60 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberRepository;
+import hello.springcorereview.member.MemoryMemberRepository;
+
+import java.util.List;
+
+/**
+ * 리더 쪽 MemberRepository, 저장소에 반영하면서 같은 순서로 ReplicationLog 에 기록한다.
+ * 같은 id 를 동시에 저장할 때 저장소와 로그의 순서가 달라지지 않도록 저장과 기록을 로그의 모니터 안에서 함께 한다.
+ * 그래서 리더의 save 는 한 번에 하나씩 처리된다. 조회는 잠금 없이 저장소에서 바로 읽는다.
+ */
+public class ReplicatedMemberRepository implements MemberRepository {
+
+    private final MemoryMemberRepository store;
+    private final ReplicationLog log;
+
+    public ReplicatedMemberRepository(MemoryMemberRepository store, ReplicationLog log) {
+        this.store = store;
+        this.log = log;
+    }
+
+    @Override
+    public void save(Member member) {
+        synchronized (log) {
+            store.save(member);
+            log.append(member);
+        }
+    }
+
+    @Override
+    public Member findById(Long memberId) {
+        return store.findById(memberId);
+    }
+
+    /**
+     * 저장소 전체를 복사한다. 잠그지 않으므로 복사하는 동안의 저장이 일부 섞일 수 있다.(fuzzy snapshot)
+     * 복사를 시작하기 전의 순번을 위치로 돌려주므로, 그 다음 순번부터 로그를 다시 적용하면 리더와 같아진다.(save 는 덮어쓰기라서 여러 번 적용해도 결과가 같다)
+     */
+    public Snapshot snapshot() {
+        long position = log.getLastSequence();
+        return new Snapshot(position, store.findAll());
+    }
+
+    public ReplicationLog getLog() {
+        return log;
+    }
+
+    public static class Snapshot {
+
+        final long position;
+        final List<Member> members;
+
+        Snapshot(long position, List<Member> members) {
+            this.position = position;
+            this.members = members;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.member.MemoryMemberRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * replication.role 에 따라 복제용 MemberRepository 를 @Primary 로 등록한다.(스프링 부트로 실행할 때만 적용)
+ * leader : 컴포넌트 스캔된 memoryMemberRepository 를 감싸서 save 를 로그에 기록하고, replication.port 로 팔로워 연결을 받는다.
+ * follower : replication.host, replication.port 의 리더에서 받은 데이터로 조회를 처리한다. save 는 지원하지 않는다.
+ * AppConfig 의 memberService, orderService 는 @Primary 저장소를 주입받으므로, 이름으로 조회하는 서비스(컨트롤러, 프로토콜 서버)도
+ * 리더에서는 복제 로그에 기록하는 저장소를, 팔로워에서는 복제본을 사용한다.
+ */
+@Configuration
+public class ReplicationConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "replication.role", havingValue = "leader")
+    static class Leader {
+
+        @Bean
+        @Primary
+        public ReplicatedMemberRepository replicatedMemberRepository(@Qualifier("memoryMemberRepository") MemoryMemberRepository store,
+                                                                     @Value("${replication.log-capacity:100000}") int logCapacity) {
+            return new ReplicatedMemberRepository(store, new ReplicationLog(logCapacity));
+        }
+
+        @Bean
+        public ReplicationLeader replicationLeader(ReplicatedMemberRepository replicatedMemberRepository,
+                                                   @Value("${replication.port:7171}") int port) {
+            return new ReplicationLeader(replicatedMemberRepository, port);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "replication.role", havingValue = "follower")
+    static class Follower {
+
+        @Bean
+        @Primary
+        public ReplicaMemberRepository replicaMemberRepository(@Value("${replication.host:localhost}") String host,
+                                                               @Value("${replication.port:7171}") int port) {
+            return new ReplicaMemberRepository(host, port);
+        }
+    }
+}
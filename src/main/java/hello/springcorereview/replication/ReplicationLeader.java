@@ -0,0 +1,190 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.member.Member;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 팔로워에게 ReplicationLog 를 TCP 로 보내는 리더 서버 (팔로워마다 스레드 하나, 블로킹 I/O)
+
+ * 프로토콜 (DataOutputStream 형식)
+ * 팔로워 -> 리더 : HELLO [long epoch][long 마지막으로 적용한 순번]
+ * 리더 -> 팔로워 : SNAPSHOT [long epoch][long 위치][int 회원 수] + 회원 수 만큼 [long id][UTF 이름][byte 등급]
+ *                 ENTRY [long 순번][long 기록 시각][long id][UTF 이름][byte 등급]
+ *                 HEARTBEAT [long 리더의 마지막 순번][long 현재 시각], ENTRY 묶음을 보내기 전마다, 보낼 항목이 없으면 HEARTBEAT_MILLIS 마다
+ * ENTRY 는 자기 순번만 가지므로, 묶음 앞의 HEARTBEAT 로 리더가 얼마나 앞서 있는지 알려준다.(팔로워의 복제 지연 계산)
+
+ * epoch 는 리더를 시작할 때마다 새로 정한다. 팔로워의 epoch 가 다르거나(리더 재시작) 요청한 위치가 tail 보다 오래되었으면
+ * 스냅샷을 먼저 보내고 스냅샷 위치 다음부터 로그를 보낸다. 아니면 요청한 위치부터 바로 이어서 보낸다.
+
+ * 생성과 초기화를 분리한다. @PostConstruct 에서 연결을 받기 시작하고 @PreDestroy 에서 모든 연결을 닫는다.
+ */
+public class ReplicationLeader {
+
+    static final byte SNAPSHOT = 1;
+    static final byte ENTRY = 2;
+    static final byte HEARTBEAT = 3;
+    static final long HEARTBEAT_MILLIS = 100;
+    private static final int BATCH_SIZE = 512;
+
+    private final ReplicatedMemberRepository repository;
+    private final ReplicationLog log;
+    private final int port;
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private final LongAdder snapshotsSent = new LongAdder();
+    private final LongAdder entriesSent = new LongAdder();
+
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+
+    /**
+     * @param port 0 이면 사용하지 않는 포트를 고른다(getPort 로 확인)
+     */
+    public ReplicationLeader(ReplicatedMemberRepository repository, int port) {
+        this.repository = repository;
+        this.log = repository.getLog();
+        this.port = port;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        running = true;
+        acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("ReplicationLeader.start port = " + getPort());
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        running = false;
+        serverSocket.close();
+        for (Socket follower : followers) {
+            follower.close();
+        }
+        acceptor.join();
+        System.out.println("ReplicationLeader.close entries sent = " + getEntriesSentCount());
+    }
+
+    //테스트 용도, 팔로워 연결만 끊는다(팔로워는 다시 연결해서 이어서 받는다)
+    void disconnectFollowers() throws IOException {
+        for (Socket follower : followers) {
+            follower.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                followers.add(socket);
+                Thread sender = new Thread(() -> serve(socket), "replication-sender-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("ReplicationLeader accept failed : " + e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            long followerEpoch = in.readLong();
+            long next = in.readLong() + 1;
+            if (followerEpoch != epoch || next > log.getLastSequence() + 1) {
+                next = sendSnapshot(out);
+            }
+
+            ReplicationLog.Entry[] entries = new ReplicationLog.Entry[BATCH_SIZE];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = new ReplicationLog.Entry();
+            }
+            while (running) {
+                int count = log.read(next, entries, HEARTBEAT_MILLIS);
+                if (count < 0) {
+                    next = sendSnapshot(out);   //팔로워가 tail 을 따라오지 못했다
+                    continue;
+                }
+                out.writeByte(HEARTBEAT);     //보낼 항목이 없거나, 이번 묶음 뒤에 아직 보내지 않은 항목이 있는지 알려준다
+                out.writeLong(log.getLastSequence());
+                out.writeLong(System.currentTimeMillis());
+                for (int i = 0; i < count; i++) {
+                    writeEntry(out, entries[i]);
+                }
+                out.flush();
+                next += count;
+                entriesSent.add(count);
+            }
+        } catch (IOException e) {
+            //팔로워 연결 종료, 팔로워가 다시 연결하면 이어서 보낸다
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    /**
+     * @return 스냅샷 다음에 보낼 순번
+     */
+    private long sendSnapshot(DataOutputStream out) throws IOException {
+        ReplicatedMemberRepository.Snapshot snapshot = repository.snapshot();
+        out.writeByte(SNAPSHOT);
+        out.writeLong(epoch);
+        out.writeLong(snapshot.position);
+        out.writeInt(snapshot.members.size());
+        for (Member member : snapshot.members) {
+            out.writeLong(member.getId());
+            out.writeUTF(member.getName());
+            out.writeByte(member.getGrade().code());
+        }
+        snapshotsSent.increment();
+        return snapshot.position + 1;
+    }
+
+    private static void writeEntry(DataOutputStream out, ReplicationLog.Entry entry) throws IOException {
+        out.writeByte(ENTRY);
+        out.writeLong(entry.sequence);
+        out.writeLong(entry.timeMillis);
+        out.writeLong(entry.memberId);
+        out.writeUTF(entry.name);
+        out.writeByte(entry.grade.code());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    public long getSnapshotsSentCount() {
+        return snapshotsSent.sum();
+    }
+
+    public long getEntriesSentCount() {
+        return entriesSent.sum();
+    }
+}
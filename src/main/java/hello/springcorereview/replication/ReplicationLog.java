@@ -0,0 +1,90 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+
+/**
+ * 리더가 받은 save 를 순서대로 기록하는 로그, 최근 capacity 개만 링에 보관한다.(tail)
+ * 순번(sequence)은 1부터 시작한다. 0 은 아무것도 반영하지 않은 상태를 뜻한다.
+ * 팔로워가 요청한 위치가 보관중인 tail 보다 오래되었으면 스냅샷부터 다시 받아야 한다.
+ * 쓰기와 읽기는 이 객체의 모니터로 보호하고, 읽는 쪽은 새 항목이 추가될 때까지 wait 로 기다린다.
+ */
+public class ReplicationLog {
+
+    private final int capacity;
+    private final long[] ids;
+    private final String[] names;
+    private final byte[] grades;
+    private final long[] timesMillis;
+    private long lastSequence;
+
+    public ReplicationLog(int capacity) {
+        this.capacity = capacity;
+        this.ids = new long[capacity];
+        this.names = new String[capacity];
+        this.grades = new byte[capacity];
+        this.timesMillis = new long[capacity];
+    }
+
+    public synchronized long append(Member member) {
+        long sequence = ++lastSequence;
+        int slot = (int) (sequence % capacity);
+        ids[slot] = member.getId();
+        names[slot] = member.getName();
+        grades[slot] = member.getGrade().code();
+        timesMillis[slot] = System.currentTimeMillis();
+        notifyAll();
+        return sequence;
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return 아직 보관중인 가장 오래된 순번
+     */
+    public synchronized long getFirstSequence() {
+        return Math.max(1, lastSequence - capacity + 1);
+    }
+
+    /**
+     * from 부터 최대 entries.length 개를 복사한다. 새 항목이 없으면 최대 timeoutMillis 동안 기다린다.
+     * @return 복사한 개수, from 이 이미 보관 범위를 벗어났으면 -1
+     */
+    public synchronized int read(long from, Entry[] entries, long timeoutMillis) throws InterruptedException {
+        if (from > lastSequence && timeoutMillis > 0) {
+            wait(timeoutMillis);
+        }
+        if (from < getFirstSequence()) {
+            return -1;
+        }
+        int count = (int) Math.max(0, Math.min(entries.length, lastSequence - from + 1));
+        for (int i = 0; i < count; i++) {
+            long sequence = from + i;
+            int slot = (int) (sequence % capacity);
+            entries[i].set(sequence, timesMillis[slot], ids[slot], names[slot], Grade.fromCode(grades[slot]));
+        }
+        return count;
+    }
+
+    /**
+     * 로그 항목을 복사해 두는 재사용 객체
+     */
+    public static class Entry {
+
+        long sequence;
+        long timeMillis;
+        long memberId;
+        String name;
+        Grade grade;
+
+        void set(long sequence, long timeMillis, long memberId, String name, Grade grade) {
+            this.sequence = sequence;
+            this.timeMillis = timeMillis;
+            this.memberId = memberId;
+            this.name = name;
+            this.grade = grade;
+        }
+    }
+}
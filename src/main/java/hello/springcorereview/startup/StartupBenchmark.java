@@ -0,0 +1,255 @@
+package hello.springcorereview.startup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 같은 객체 그래프를 세 가지 방식(AppConfig, AutoAppConfig, appConfig.xml)으로 띄울 때의 시작 비용을 비교하는 실행 클래스
+ * 설정 방식마다 StartupProbe 를 새 JVM 으로 여러 번 실행하고 지표별 중앙값과 최소, 최대값을 보고서로 남긴다.
+ * JVM 안에서 반복하면 두 번째부터는 클래스 로딩과 JIT 가 끝난 상태라서 실제 시작 비용을 잴 수 없으므로 매번 프로세스를 새로 띄운다.
+ * 순서에 따른 치우침(디스크 캐시, CPU 클럭)을 줄이기 위해 방식을 번갈아 가며 실행한다.(java, scan, xml, java, scan, xml ...)
+
+ * 사용법 : key=value 형태로 옵션을 넘긴다. 넘기지 않은 옵션은 기본값을 사용한다. (gradle startupBenchmark 참고)
+ * styles=java,scan,xml     비교할 방식, compiled-xml 도 사용할 수 있다
+ * runs=10, warmup=1        방식마다 측정할 횟수, 버리는 횟수
+ * jvmArgs=                 실행할 JVM 에 넘길 옵션 (공백으로 구분, 예: -Xmx256m -XX:+UseSerialGC)
+ * report=build/reports/startup/report.txt         사람이 읽는 보고서
+ * results=build/reports/startup/results.properties 방식.지표=중앙값, 다음 실행의 baseline 으로 사용한다
+ * baseline=                이전 results.properties, 주면 중앙값을 비교한다
+ * threshold=10             baseline 보다 이 비율(%) 넘게 커진 지표가 있으면 실패(종료 코드 1)한다
+ */
+public class StartupBenchmark {
+
+    static final String[] METRICS = {"uptimeMs", "refreshMs", "beans", "classes", "heapKb"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = parseOptions(args);
+        List<String> styles = Arrays.asList(options.getOrDefault("styles", "java,scan,xml").split(","));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "1"));
+        String jvmArgs = options.getOrDefault("jvmArgs", "").trim();
+        Path report = Paths.get(options.getOrDefault("report", "build/reports/startup/report.txt"));
+        Path results = Paths.get(options.getOrDefault("results", "build/reports/startup/results.properties"));
+        String baseline = options.getOrDefault("baseline", "");
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "10"));
+
+        Map<String, Map<String, long[]>> samples = new LinkedHashMap<>();
+        for (String style : styles) {
+            Map<String, long[]> metrics = new LinkedHashMap<>();
+            for (String metric : METRICS) {
+                metrics.put(metric, new long[runs]);
+            }
+            samples.put(style, metrics);
+        }
+        List<String> jvmOptions = jvmArgs.isEmpty() ? List.of() : Arrays.asList(jvmArgs.split("\\s+"));
+        for (int round = 0; round < warmup + runs; round++) {
+            for (String style : styles) {
+                Map<String, Long> sample = fork(style, jvmOptions);
+                if (round >= warmup) {
+                    for (String metric : METRICS) {
+                        samples.get(style).get(metric)[round - warmup] = sample.get(metric);
+                    }
+                }
+            }
+            System.out.println("round " + (round + 1) + "/" + (warmup + runs) + (round < warmup ? " (warmup)" : ""));
+        }
+
+        Map<String, Long> medians = medians(samples);
+        List<String> regressions = List.of();
+        Properties baselineMedians = null;
+        if (!baseline.isEmpty()) {
+            baselineMedians = load(Paths.get(baseline));
+            regressions = findRegressions(medians, baselineMedians, threshold);
+        }
+        String text = format(samples, "runs=" + runs + ", warmup=" + warmup + ", jvmArgs=" + jvmArgs
+                        + ", java=" + System.getProperty("java.version") + ", cpus=" + Runtime.getRuntime().availableProcessors(),
+                baselineMedians, threshold, regressions);
+        write(report, text);
+        store(results, medians);
+        System.out.print(text);
+        System.out.println("report = " + report.toAbsolutePath() + ", results = " + results.toAbsolutePath());
+        if (!regressions.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * StartupProbe 를 새 JVM 으로 실행하고 출력에서 결과 줄을 읽는다.
+     */
+    static Map<String, Long> fork(String style, List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), StartupProbe.class.getName(), style));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = null;
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(StartupProbe.PREFIX)) {
+                    result = line;
+                } else {
+                    output.add(line);
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || result == null) {
+            throw new IllegalStateException("startup probe failed, style = " + style + ", exit code = " + exitCode
+                    + System.lineSeparator() + String.join(System.lineSeparator(), output));
+        }
+        return parseResult(result);
+    }
+
+    /**
+     * @param line "startup style=java uptimeMs=412 ..." 형태
+     */
+    static Map<String, Long> parseResult(String line) {
+        Map<String, Long> result = new HashMap<>();
+        for (String token : line.substring(StartupProbe.PREFIX.length()).split(" ")) {
+            int separator = token.indexOf('=');
+            if (separator > 0 && !token.startsWith("style=")) {
+                result.put(token.substring(0, separator), Long.parseLong(token.substring(separator + 1)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return "방식.지표" -> 중앙값
+     */
+    static Map<String, Long> medians(Map<String, Map<String, long[]>> samples) {
+        Map<String, Long> medians = new LinkedHashMap<>();
+        samples.forEach((style, metrics) -> metrics.forEach((metric, values) -> medians.put(style + "." + metric, median(values))));
+        return medians;
+    }
+
+    static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * 모든 지표는 작을수록 좋다. baseline 에 없는 지표(새로 추가한 방식)는 비교하지 않는다.
+     * @param threshold 허용하는 증가율(%)
+     * @return 허용치를 넘은 지표의 설명
+     */
+    static List<String> findRegressions(Map<String, Long> medians, Properties baseline, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        medians.forEach((key, current) -> {
+            String previous = baseline.getProperty(key);
+            if (previous == null) {
+                return;
+            }
+            long before = Long.parseLong(previous);
+            if (current > before * (1 + threshold / 100)) {
+                regressions.add(key + " " + before + " -> " + current + " (" + formatChange(before, current) + ", threshold " + threshold + "%)");
+            }
+        });
+        return regressions;
+    }
+
+    static String format(Map<String, Map<String, long[]>> samples, String environment,
+                         Properties baseline, double threshold, List<String> regressions) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("startup benchmark : ").append(environment).append(System.lineSeparator());
+        sb.append("median [min..max]").append(System.lineSeparator());
+        sb.append(String.format("%-14s", "style"));
+        for (String metric : METRICS) {
+            sb.append(String.format("%-24s", metric));
+        }
+        sb.append(System.lineSeparator());
+
+        String reference = samples.keySet().iterator().next();
+        for (Map.Entry<String, Map<String, long[]>> entry : samples.entrySet()) {
+            sb.append(String.format("%-14s", entry.getKey()));
+            for (String metric : METRICS) {
+                long[] values = entry.getValue().get(metric);
+                sb.append(String.format("%-24s", median(values) + " [" + Arrays.stream(values).min().orElse(0)
+                        + ".." + Arrays.stream(values).max().orElse(0) + "]"));
+            }
+            sb.append(System.lineSeparator());
+        }
+
+        sb.append(System.lineSeparator()).append("compared to ").append(reference).append(System.lineSeparator());
+        for (Map.Entry<String, Map<String, long[]>> entry : samples.entrySet()) {
+            sb.append(String.format("%-14s", entry.getKey()));
+            for (String metric : METRICS) {
+                long base = median(samples.get(reference).get(metric));
+                sb.append(String.format("%-24s", formatChange(base, median(entry.getValue().get(metric)))));
+            }
+            sb.append(System.lineSeparator());
+        }
+
+        if (baseline != null) {
+            sb.append(System.lineSeparator()).append("compared to baseline, threshold ").append(threshold).append("%").append(System.lineSeparator());
+            if (regressions.isEmpty()) {
+                sb.append("no regression").append(System.lineSeparator());
+            }
+            for (String regression : regressions) {
+                sb.append("REGRESSION ").append(regression).append(System.lineSeparator());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String formatChange(long before, long after) {
+        if (before == 0) {
+            return after == 0 ? "+0.0%" : "n/a";
+        }
+        return String.format("%+.1f%%", (after - before) * 100.0 / before);
+    }
+
+    private static Properties load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return properties;
+    }
+
+    private static void store(Path path, Map<String, Long> medians) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        medians.forEach((key, value) -> sb.append(key).append('=').append(value).append(System.lineSeparator()));
+        write(path, sb.toString());
+    }
+
+    private static void write(Path path, String text) throws IOException {
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write(text);
+        }
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("option must be key=value : " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,69 @@
+package hello.springcorereview.startup;
+
+import hello.springcorereview.AppConfig;
+import hello.springcorereview.AutoAppConfig;
+import hello.springcorereview.xml.CompiledXmlApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.GenericXmlApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * 설정 방식 하나로 컨테이너를 띄우고 시작 비용을 한 줄로 출력한 뒤 종료하는 실행 클래스, StartupBenchmark 가 매번 새 JVM 으로 실행한다.
+ * 사용법 : java ... StartupProbe java|scan|xml|compiled-xml
+ * java : AppConfig, scan : AutoAppConfig, xml : appConfig.xml, compiled-xml : 빌드 시점에 컴파일한 appConfig.xml.beans
+
+ * 출력 예) startup style=java uptimeMs=412 refreshMs=230 beans=12 classes=3120 heapKb=9120
+ * uptimeMs  : JVM 시작부터 refresh 가 끝날 때까지 (RuntimeMXBean 의 uptime)
+ * refreshMs : 컨테이너 생성부터 refresh 가 끝날 때까지
+ * beans     : 등록된 빈 정의 수
+ * classes   : refresh 직후까지 로딩된 클래스 수
+ * heapKb    : refresh 직후 GC 를 한 번 하고 남은 힙 사용량, 컨테이너가 붙잡고 있는 메모리에 가깝다
+ */
+public class StartupProbe {
+
+    static final String PREFIX = "startup ";
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("usage : StartupProbe java|scan|xml|compiled-xml");
+        }
+        String style = args[0];
+
+        long start = System.nanoTime();
+        ConfigurableApplicationContext ac = createContext(style);
+        long refreshNanos = System.nanoTime() - start;
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        long classes = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        int beans = ac.getBeanDefinitionCount();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        memory.gc();
+        long heapKb = memory.getHeapMemoryUsage().getUsed() / 1024;
+
+        System.out.println(PREFIX + "style=" + style
+                + " uptimeMs=" + uptimeMillis
+                + " refreshMs=" + refreshNanos / 1_000_000
+                + " beans=" + beans
+                + " classes=" + classes
+                + " heapKb=" + heapKb);
+        ac.close();
+    }
+
+    static ConfigurableApplicationContext createContext(String style) {
+        switch (style) {
+            case "java":
+                return new AnnotationConfigApplicationContext(AppConfig.class);
+            case "scan":
+                return new AnnotationConfigApplicationContext(AutoAppConfig.class);
+            case "xml":
+                return new GenericXmlApplicationContext("appConfig.xml");
+            case "compiled-xml":
+                return new CompiledXmlApplicationContext("appConfig.xml");
+            default:
+                throw new IllegalArgumentException("unknown style : " + style);
+        }
+    }
+}
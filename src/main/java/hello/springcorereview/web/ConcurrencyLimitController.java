@@ -0,0 +1,48 @@
+package hello.springcorereview.web;
+
+import hello.springcorereview.common.ConcurrencyLimiter;
+import hello.springcorereview.member.LimitedMemberService;
+import hello.springcorereview.order.LimitedOrderService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 서비스 앞에 둔 ConcurrencyLimiter 의 한도, 실행중인 호출 수, 거절 수를 limiter 이름별로 돌려준다. service.limit.enabled=false 이면 404
+ * 데코레이터는 ConcurrencyLimitConfig 가 켜져 있을 때만 등록되므로 ObjectProvider 로 주입받는다.
+ * 응답 예) {"createOrder":{"limit":18,"inFlight":3,"accepted":12000,"rejected":40,"slowCalls":25},"join":{...}}
+ */
+@Controller
+public class ConcurrencyLimitController {
+
+    private final ObjectProvider<LimitedOrderService> orderService;
+    private final ObjectProvider<LimitedMemberService> memberService;
+
+    public ConcurrencyLimitController(ObjectProvider<LimitedOrderService> orderService,
+                                      ObjectProvider<LimitedMemberService> memberService) {
+        this.orderService = orderService;
+        this.memberService = memberService;
+    }
+
+    @GetMapping("/metrics/limits")
+    @ResponseBody
+    public Map<String, ConcurrencyLimiter.Stats> limits() {
+        Map<String, ConcurrencyLimiter.Stats> result = new TreeMap<>();
+        orderService.ifAvailable(service -> put(result, service.getLimiter()));
+        memberService.ifAvailable(service -> put(result, service.getLimiter()));
+        if (result.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "service limits are not enabled");
+        }
+        return result;
+    }
+
+    private static void put(Map<String, ConcurrencyLimiter.Stats> result, ConcurrencyLimiter limiter) {
+        result.put(limiter.getName(), limiter.snapshot());
+    }
+}
@@ -0,0 +1,67 @@
+package hello.springcorereview.web;
+
+import hello.springcorereview.order.MemberOrderIndex;
+import hello.springcorereview.order.Order;
+import hello.springcorereview.order.OrderRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원의 최근 주문을 최신순으로 돌려준다. 다음 페이지는 응답의 nextCursor 를 cursor 로 넘긴다.(더 없으면 -1)
+ * 요청 예) GET /members/1/orders?limit=20, GET /members/1/orders?cursor=37&limit=20
+ * 주문 저장소와 색인은 order.repository.enabled=true 일 때만 등록되므로 ObjectProvider 로 주입받고, 없으면 404 를 돌려준다.
+ * 색인에는 있지만 보관 기간이 지나서 저장소에서 버려진 주문은 건너뛴다.
+ */
+@Controller
+public class MemberOrderController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final ObjectProvider<MemberOrderIndex> memberOrderIndexProvider;
+    private final ObjectProvider<OrderRepository> orderRepositoryProvider;
+
+    public MemberOrderController(ObjectProvider<MemberOrderIndex> memberOrderIndexProvider,
+                                 ObjectProvider<OrderRepository> orderRepositoryProvider) {
+        this.memberOrderIndexProvider = memberOrderIndexProvider;
+        this.orderRepositoryProvider = orderRepositoryProvider;
+    }
+
+    @GetMapping("/members/{memberId}/orders")
+    @ResponseBody
+    public OrderPage recentOrders(@PathVariable long memberId,
+                                  @RequestParam(defaultValue = "" + MemberOrderIndex.FIRST_PAGE) long cursor,
+                                  @RequestParam(defaultValue = "20") int limit) {
+        MemberOrderIndex index = memberOrderIndexProvider.getIfAvailable();
+        OrderRepository repository = orderRepositoryProvider.getIfAvailable();
+        if (index == null || repository == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "order repository is not enabled");
+        }
+        MemberOrderIndex.Page page = index.findRecent(memberId, cursor, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        List<Order> orders = new ArrayList<>(page.getOrderIds().length);
+        for (long orderId : page.getOrderIds()) {
+            Order order = repository.findById(orderId);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return new OrderPage(orders, page.getNextCursor());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class OrderPage {
+        private List<Order> orders;
+        private long nextCursor;
+    }
+}
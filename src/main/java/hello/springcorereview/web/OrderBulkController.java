@@ -0,0 +1,135 @@
+package hello.springcorereview.web;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import hello.springcorereview.order.OrderService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문을 한 줄에 하나씩 JSON 으로 보내는(NDJSON, newline-delimited JSON) 대량 주문 API
+ * 요청 본문 전체를 메모리에 올리지 않고 한 줄씩 읽어서 CHUNK_SIZE 만큼 모이면 주문을 처리하고, 결과를 바로 응답으로 흘려보낸다.
+ * 한 번에 메모리에 있는 주문은 최대 CHUNK_SIZE 개이므로 주문 수와 관계없이 메모리 사용량이 일정하다.
+ * 결과는 요청과 같은 순서로 한 줄에 하나씩 돌려준다. 처리하지 못한 줄은 줄 번호와 오류 메시지를 돌려준다.
+ * 회원 조회는 주문 서비스에서 한 번만 한다. 서비스가 회원이 없다고(IllegalArgumentException) 하면 "member not found" 를,
+ * 그 밖의 처리 실패는 "order failed" 를 돌려준다.(예외 내용은 클라이언트에 보내지 않는다)
+ * ObjectMapper 는 웹 환경(JacksonAutoConfiguration)에서만 빈으로 등록되므로 ObjectProvider 로 주입받고, 없으면 기본 설정으로 만든다.
+ * (AutoAppConfig 만으로 띄우는 컨테이너에서도 컴포넌트 스캔으로 이 컨트롤러가 등록된다)
+
+ * 요청 예) {"memberId":1,"itemName":"itemA","itemPrice":10000}
+ * 응답 예) {"memberId":1,"itemName":"itemA","itemPrice":10000,"discountPrice":1000}
+ *         {"line":2,"error":"..."}
+ */
+@Controller
+public class OrderBulkController {
+
+    static final String NDJSON = "application/x-ndjson";
+    private static final int CHUNK_SIZE = 256;
+    static final String MEMBER_NOT_FOUND = "member not found";
+    static final String ORDER_FAILED = "order failed";
+
+    private final OrderService orderService;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+
+    public OrderBulkController(OrderService orderService, ObjectProvider<ObjectMapper> objectMapperProvider) {
+        ObjectMapper objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
+        this.orderService = orderService;
+        this.requestReader = objectMapper.readerFor(OrderLine.class);
+        this.resultWriter = objectMapper.writer();
+    }
+
+    @PostMapping(value = "/orders/bulk", consumes = NDJSON, produces = NDJSON)
+    public void createOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+
+        BufferedReader reader = request.getReader();
+        Writer writer = response.getWriter();
+        List<Object> chunk = new ArrayList<>(CHUNK_SIZE);   //OrderLine 또는 파싱에 실패한 ErrorLine
+
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(parse(line, lineNumber));
+            if (chunk.size() == CHUNK_SIZE) {
+                process(chunk, writer);
+            }
+        }
+        process(chunk, writer);
+    }
+
+    private Object parse(String line, int lineNumber) {
+        try {
+            OrderLine orderLine = requestReader.readValue(line);
+            orderLine.setLine(lineNumber);
+            return orderLine;
+        } catch (JsonProcessingException e) {
+            return new ErrorLine(lineNumber, "invalid order : " + e.getOriginalMessage());
+        }
+    }
+
+    private void process(List<Object> chunk, Writer writer) throws IOException {
+        for (Object item : chunk) {
+            writer.write(resultWriter.writeValueAsString(createOrder(item)));
+            writer.write('\n');
+        }
+        writer.flush();     //처리한 chunk 는 바로 클라이언트로 보낸다
+        chunk.clear();
+    }
+
+    private Object createOrder(Object item) {
+        if (item instanceof ErrorLine) {
+            return item;
+        }
+        OrderLine orderLine = (OrderLine) item;
+        if (orderLine.getMemberId() == null) {
+            return new ErrorLine(orderLine.getLine(), MEMBER_NOT_FOUND);
+        }
+        try {
+            return orderService.createOrder(orderLine.getMemberId(), orderLine.getItemName(), orderLine.getItemPrice());
+        } catch (IllegalArgumentException e) {
+            return new ErrorLine(orderLine.getLine(), MEMBER_NOT_FOUND);
+        } catch (RuntimeException e) {
+            return new ErrorLine(orderLine.getLine(), ORDER_FAILED);
+        }
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    public static class OrderLine {
+        private Long memberId;
+        private String itemName;
+        private int itemPrice;
+        @JsonIgnore
+        private int line;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ErrorLine {
+        private int line;
+        private String error;
+    }
+}
@@ -0,0 +1,27 @@
+package hello.springcorereview.web;
+
+import hello.springcorereview.order.OrderStatistics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+/**
+ * 최근 1초, 1분, 15분 동안의 주문 통계를 JSON 으로 돌려준다.
+ * 응답 예) {"1s":{"seconds":1.0,"orders":10,"ordersPerSecond":10.0,"revenue":90000,"discount":10000,
+ *              "byGrade":{"BASIC":{"orders":0,"revenue":0,"discount":0},"VIP":{...}}},"1m":{...},"15m":{...}}
+ */
+@Controller
+@RequiredArgsConstructor
+public class OrderStatisticsController {
+
+    private final OrderStatistics orderStatistics;
+
+    @GetMapping("/orders/statistics")
+    @ResponseBody
+    public Map<String, OrderStatistics.WindowStats> statistics() {
+        return orderStatistics.snapshot();
+    }
+}
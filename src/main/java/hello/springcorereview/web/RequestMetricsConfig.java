@@ -0,0 +1,27 @@
+package hello.springcorereview.web;
+
+import hello.springcorereview.common.MyLogger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * request.metrics.enabled=true 일 때만 인터셉터를 등록한다.
+ * 꺼져 있으면 MyLogger 를 사용하는 요청(/log-demo)만 빈이 생성되고, 측정도 하지 않는다.
+ */
+@Configuration
+@ConditionalOnProperty(name = "request.metrics.enabled", havingValue = "true")
+public class RequestMetricsConfig implements WebMvcConfigurer {
+
+    private final MyLogger myLogger;
+
+    public RequestMetricsConfig(MyLogger myLogger) {
+        this.myLogger = myLogger;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(myLogger));
+    }
+}
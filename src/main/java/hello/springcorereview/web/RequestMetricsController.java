@@ -0,0 +1,33 @@
+package hello.springcorereview.web;
+
+import hello.springcorereview.common.RequestMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/**
+ * URL 패턴별 요청 하나의 할당량(byte)과 CPU 시간(us) 분포를 JSON 으로 돌려준다. request.metrics.enabled=false 이면 404
+ * 응답 예) {"GET /members/{memberId}/orders":{"requests":120,
+ *              "allocatedBytes":{"count":120,"mean":48211,"p50":40959,"p99":131071,"max":262143,"total":5785320},
+ *              "cpuTimeMicros":{"count":120,"mean":310,...}},...}
+ */
+@Controller
+@RequiredArgsConstructor
+public class RequestMetricsController {
+
+    private final RequestMetrics requestMetrics;
+
+    @GetMapping("/metrics/requests")
+    @ResponseBody
+    public Map<String, RequestMetrics.EndpointStats> requests() {
+        if (!requestMetrics.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "request metrics are not enabled");
+        }
+        return requestMetrics.snapshot();
+    }
+}
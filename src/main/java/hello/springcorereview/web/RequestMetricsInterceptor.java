@@ -0,0 +1,30 @@
+package hello.springcorereview.web;
+
+import hello.springcorereview.common.MyLogger;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 모든 요청에서 MyLogger 에 requestURL 과 URL 패턴을 넣는다.
+ * MyLogger 는 request 스코프 프록시라서 처음 사용할 때 생성되므로, 여기서 사용하면 모든 요청의 할당량과 CPU 시간이 기록된다.
+ * preHandle 은 핸들러 매핑 뒤에 호출되므로 BEST_MATCHING_PATTERN_ATTRIBUTE 로 매핑된 패턴을 알 수 있다.
+ */
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    private final MyLogger myLogger;
+
+    public RequestMetricsInterceptor(MyLogger myLogger) {
+        this.myLogger = myLogger;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        myLogger.setRequestURL(request.getRequestURL().toString());
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        myLogger.setRequestPattern(request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI()));
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package hello.springcorereview.xml;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * XmlBeanDefinitionCompiler 로 컴파일한 빈 정의를 XML 파서 없이 등록한다.
+ * 컴파일된 파일은 XML 과 같은 위치의 "XML 파일 이름 + .beans" 를 사용한다.(appConfig.xml -> appConfig.xml.beans)
+ * 컴파일된 파일이 없거나 헤더에 기록된 XML 내용의 해시가 지금 XML 과 다르면 XmlBeanDefinitionReader 로 XML 을 그대로 읽는다.(fallback)
+ * 해시를 계산하려면 XML 을 한 번 읽지만 파싱, 스키마 검증은 하지 않는다.
+ * XmlBeanDefinitionReader 처럼 registry 를 받아서 loadBeanDefinitions 로 사용한다.
+ */
+public class CompiledBeanDefinitionLoader {
+
+    private final BeanDefinitionRegistry registry;
+    private int compiledLoads;
+    private int xmlLoads;
+
+    public CompiledBeanDefinitionLoader(BeanDefinitionRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return 등록한 빈 정의 수
+     */
+    public int loadBeanDefinitions(Resource xml) throws IOException {
+        return loadBeanDefinitions(xml, xml.createRelative(xml.getFilename() + CompiledBeanDefinitions.SUFFIX));
+    }
+
+    public int loadBeanDefinitions(Resource xml, Resource compiled) throws IOException {
+        if (compiled.exists()) {
+            try (InputStream is = compiled.getInputStream()) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+                if (isUpToDate(xml, readHeader(in, compiled))) {
+                    int count = readBeanDefinitions(in);
+                    compiledLoads++;
+                    return count;
+                }
+            }
+        }
+        xmlLoads++;
+        return new XmlBeanDefinitionReader(registry).loadBeanDefinitions(xml);
+    }
+
+    /**
+     * XML 없이 컴파일된 파일만 배포한 경우도 사용할 수 있다.
+     * @param hash 컴파일할 때 기록한 XML 내용의 해시
+     */
+    static boolean isUpToDate(Resource xml, byte[] hash) throws IOException {
+        return !xml.exists() || Arrays.equals(hash, CompiledBeanDefinitions.hash(xml));
+    }
+
+    /**
+     * @return 컴파일할 때 기록한 XML 내용의 해시
+     */
+    private static byte[] readHeader(DataInputStream in, Resource compiled) throws IOException {
+        if (in.readInt() != CompiledBeanDefinitions.MAGIC) {
+            throw new IOException("not a compiled bean definition file : " + compiled);
+        }
+        short version = in.readShort();
+        if (version != CompiledBeanDefinitions.VERSION) {
+            throw new IOException("unsupported compiled bean definition version " + version + " : " + compiled);
+        }
+        byte[] hash = new byte[in.readShort()];
+        in.readFully(hash);
+        return hash;
+    }
+
+    private int readBeanDefinitions(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            readBeanDefinition(in);
+        }
+        return count;
+    }
+
+    private void readBeanDefinition(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        GenericBeanDefinition bd = new GenericBeanDefinition();
+        bd.setBeanClassName(readNullable(in));
+        bd.setScope(readNullable(in));
+        bd.setParentName(readNullable(in));
+        bd.setFactoryBeanName(readNullable(in));
+        bd.setFactoryMethodName(readNullable(in));
+        bd.setInitMethodName(readNullable(in));
+        bd.setDestroyMethodName(readNullable(in));
+
+        int flags = in.readByte();
+        bd.setAbstract((flags & CompiledBeanDefinitions.FLAG_ABSTRACT) != 0);
+        bd.setLazyInit((flags & CompiledBeanDefinitions.FLAG_LAZY_INIT) != 0);
+        bd.setPrimary((flags & CompiledBeanDefinitions.FLAG_PRIMARY) != 0);
+        bd.setAutowireCandidate((flags & CompiledBeanDefinitions.FLAG_NOT_AUTOWIRE_CANDIDATE) == 0);
+        bd.setAutowireMode(in.readInt());
+        bd.setRole(in.readInt());
+
+        String[] dependsOn = readStrings(in);
+        if (dependsOn.length > 0) {
+            bd.setDependsOn(dependsOn);
+        }
+        String[] aliases = readStrings(in);
+
+        ConstructorArgumentValues arguments = new ConstructorArgumentValues();
+        int indexed = in.readInt();
+        for (int i = 0; i < indexed; i++) {
+            arguments.addIndexedArgumentValue(in.readInt(), readValueHolder(in));
+        }
+        int generic = in.readInt();
+        for (int i = 0; i < generic; i++) {
+            arguments.addGenericArgumentValue(readValueHolder(in));
+        }
+        bd.setConstructorArgumentValues(arguments);
+
+        MutablePropertyValues properties = new MutablePropertyValues();
+        int propertyCount = in.readInt();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.add(in.readUTF(), readValue(in));
+        }
+        bd.setPropertyValues(properties);
+
+        registry.registerBeanDefinition(name, bd);
+        for (String alias : aliases) {
+            registry.registerAlias(name, alias);
+        }
+    }
+
+    private static ValueHolder readValueHolder(DataInputStream in) throws IOException {
+        String name = readNullable(in);
+        String type = readNullable(in);
+        return new ValueHolder(readValue(in), type, name);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case CompiledBeanDefinitions.VALUE_NULL:
+                return null;
+            case CompiledBeanDefinitions.VALUE_REF:
+                return new RuntimeBeanReference(in.readUTF());
+            case CompiledBeanDefinitions.VALUE_STRING:
+                String value = readNullable(in);
+                String targetType = readNullable(in);
+                return targetType == null ? new TypedStringValue(value) : new TypedStringValue(value, targetType);
+            default:
+                throw new IOException("unknown value kind : " + kind);
+        }
+    }
+
+    private static String[] readStrings(DataInputStream in) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readUTF();
+        }
+        return values;
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * @return 컴파일된 파일로 등록한 횟수
+     */
+    public int getCompiledLoadCount() {
+        return compiledLoads;
+    }
+
+    /**
+     * @return XML 로 등록한 횟수 (컴파일된 파일이 없거나 XML 내용이 바뀐 경우)
+     */
+    public int getXmlLoadCount() {
+        return xmlLoads;
+    }
+}
@@ -0,0 +1,57 @@
+package hello.springcorereview.xml;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * XmlBeanDefinitionCompiler 가 만들고 CompiledBeanDefinitionLoader 가 읽는 바이너리 파일 형식
+ * [int MAGIC][short VERSION][short 해시 길이][원본 XML 내용의 SHA-256][int 빈 개수][빈...]
+ * 원본 XML 의 해시로 컴파일된 파일이 최신인지 확인한다.(수정 시각은 복사, 체크아웃, classpath 에 담을 때 바뀔 수 있어서 사용하지 않는다)
+ * 빈 : [이름][클래스][scope][parent][factoryBean][factoryMethod][initMethod][destroyMethod]
+ *      [byte flags][int autowireMode][int role][dependsOn 목록][alias 목록]
+ *      [인덱스 생성자 인자 목록][일반 생성자 인자 목록][프로퍼티 목록]
+ * 값 : [byte 종류][필드...] - NULL, REF(빈 이름), STRING(문자열, 대상 타입)
+ * 문자열은 DataOutput.writeUTF, null 이 될 수 있는 문자열은 앞에 boolean 을 붙인다.
+ */
+final class CompiledBeanDefinitions {
+
+    static final int MAGIC = 0x53434244;    //"SCBD"
+    static final short VERSION = 2;
+    static final String SUFFIX = ".beans";
+
+    static final int FLAG_ABSTRACT = 1;
+    static final int FLAG_LAZY_INIT = 1 << 1;
+    static final int FLAG_PRIMARY = 1 << 2;
+    static final int FLAG_NOT_AUTOWIRE_CANDIDATE = 1 << 3;
+
+    static final byte VALUE_NULL = 0;
+    static final byte VALUE_REF = 1;
+    static final byte VALUE_STRING = 2;
+
+    private CompiledBeanDefinitions() {
+    }
+
+    /**
+     * @return XML 파일 내용의 SHA-256
+     */
+    static byte[] hash(Resource xml) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);     //모든 JVM 이 SHA-256 을 지원해야 한다
+        }
+        try (InputStream is = xml.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+}
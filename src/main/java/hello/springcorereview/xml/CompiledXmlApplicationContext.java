@@ -0,0 +1,30 @@
+package hello.springcorereview.xml;
+
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.IOException;
+
+/**
+ * GenericXmlApplicationContext 와 같은 방법으로 사용하지만, 컴파일된 빈 정의가 있으면 XML 대신 그것을 읽는다.
+ * new CompiledXmlApplicationContext("appConfig.xml") -> classpath 의 appConfig.xml.beans 가 최신이면 사용한다.
+ */
+public class CompiledXmlApplicationContext extends GenericApplicationContext {
+
+    private final CompiledBeanDefinitionLoader loader = new CompiledBeanDefinitionLoader(this);
+
+    public CompiledXmlApplicationContext(String... resourceLocations) {
+        for (String location : resourceLocations) {
+            try {
+                loader.loadBeanDefinitions(getResource(location));
+            } catch (IOException e) {
+                throw new BeanDefinitionStoreException("failed to load bean definitions from " + location, e);
+            }
+        }
+        refresh();
+    }
+
+    public CompiledBeanDefinitionLoader getLoader() {
+        return loader;
+    }
+}
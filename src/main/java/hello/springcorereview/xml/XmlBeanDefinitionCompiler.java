@@ -0,0 +1,216 @@
+package hello.springcorereview.xml;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.parsing.EmptyReaderEventListener;
+import org.springframework.beans.factory.parsing.ImportDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 빌드 시점에 XML 빈 설정을 한 번 파싱해서 CompiledBeanDefinitions 형식의 바이너리 파일로 저장한다.
+ * 런타임에는 CompiledBeanDefinitionLoader 가 XML 파서, 스키마 검증 없이 이 파일을 읽어서 빈 정의를 등록한다.
+ * 빈을 생성하지는 않고 빈 정의(BeanDefinition)만 옮긴다.
+
+ * 지원하는 설정 : class, scope, parent, factory-bean, factory-method, init-method, destroy-method, abstract, lazy-init, primary,
+ *   autowire, autowire-candidate, depends-on, alias(name), 생성자 인자(constructor-arg), 프로퍼티(property) 의 ref, value
+ * 내부 빈, list/map 같은 컬렉션 값, lookup-method/replaced-method, qualifier, dependency-check, default-init-method/default-destroy-method 와
+ * 프로그램으로만 정할 수 있는 설정(lenientConstructorResolution, nonPublicAccessAllowed, synthetic 의 기본값이 아닌 값)은 지원하지 않는다.
+ * 이런 설정이 있으면 빼고 옮기지 않고 컴파일이 실패하므로 빌드에서 바로 알 수 있다.
+ * <import> 도 지원하지 않는다. 가져온 XML 의 빈 정의도 한 파일로 합쳐지지만, 최신 여부는 루트 XML 의 해시로만 확인하므로
+ * 가져온 XML 이 바뀌어도 알 수 없기 때문이다. 여러 XML 은 하나씩 따로 컴파일해서 각각 읽는다.
+ * 사용법 : XmlBeanDefinitionCompiler <XML 파일> <출력 파일>
+ */
+public class XmlBeanDefinitionCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("usage : XmlBeanDefinitionCompiler <xml file> <output file>");
+        }
+        Path output = Paths.get(args[1]);
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        long start = System.nanoTime();
+        try (OutputStream os = Files.newOutputStream(output)) {
+            int count = compile(new FileSystemResource(args[0]), os);
+            System.out.println("compiled " + count + " bean definitions from " + args[0] + " to " + output
+                    + " in " + (System.nanoTime() - start) / 1_000_000 + "ms");
+        }
+    }
+
+    /**
+     * @return 컴파일한 빈 정의 수
+     */
+    public static int compile(Resource xml, OutputStream os) throws IOException {
+        DefaultListableBeanFactory registry = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(registry);
+        List<String> imports = new ArrayList<>();
+        reader.setEventListener(new EmptyReaderEventListener() {
+            @Override
+            public void importProcessed(ImportDefinition importDefinition) {
+                imports.add(importDefinition.getImportedResource());
+            }
+        });
+        reader.loadBeanDefinitions(xml);
+        if (!imports.isEmpty()) {
+            throw new IllegalArgumentException("<import> is not supported, compile each xml separately : " + imports + " in " + xml);
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+        String[] names = registry.getBeanDefinitionNames();
+        byte[] hash = CompiledBeanDefinitions.hash(xml);
+        out.writeInt(CompiledBeanDefinitions.MAGIC);
+        out.writeShort(CompiledBeanDefinitions.VERSION);
+        out.writeShort(hash.length);
+        out.write(hash);
+        out.writeInt(names.length);
+        for (String name : names) {
+            writeBeanDefinition(out, name, registry.getBeanDefinition(name), registry.getAliases(name));
+        }
+        out.flush();
+        return names.length;
+    }
+
+    private static void writeBeanDefinition(DataOutputStream out, String name, BeanDefinition definition, String[] aliases) throws IOException {
+        if (!(definition instanceof AbstractBeanDefinition)) {
+            throw new IllegalArgumentException("unsupported bean definition type : " + definition.getClass() + ", bean = " + name);
+        }
+        AbstractBeanDefinition bd = (AbstractBeanDefinition) definition;
+        checkSupported(name, bd);
+        out.writeUTF(name);
+        writeNullable(out, bd.getBeanClassName());
+        writeNullable(out, bd.getScope());
+        writeNullable(out, bd.getParentName());
+        writeNullable(out, bd.getFactoryBeanName());
+        writeNullable(out, bd.getFactoryMethodName());
+        writeNullable(out, bd.getInitMethodName());
+        writeNullable(out, bd.getDestroyMethodName());
+
+        int flags = 0;
+        flags |= bd.isAbstract() ? CompiledBeanDefinitions.FLAG_ABSTRACT : 0;
+        flags |= bd.isLazyInit() ? CompiledBeanDefinitions.FLAG_LAZY_INIT : 0;
+        flags |= bd.isPrimary() ? CompiledBeanDefinitions.FLAG_PRIMARY : 0;
+        flags |= bd.isAutowireCandidate() ? 0 : CompiledBeanDefinitions.FLAG_NOT_AUTOWIRE_CANDIDATE;
+        out.writeByte(flags);
+        out.writeInt(bd.getAutowireMode());
+        out.writeInt(bd.getRole());
+
+        writeStrings(out, bd.getDependsOn());
+        writeStrings(out, aliases);
+
+        ConstructorArgumentValues arguments = bd.getConstructorArgumentValues();
+        Map<Integer, ValueHolder> indexed = arguments.getIndexedArgumentValues();
+        out.writeInt(indexed.size());
+        for (Map.Entry<Integer, ValueHolder> entry : indexed.entrySet()) {
+            out.writeInt(entry.getKey());
+            writeValueHolder(out, name, entry.getValue());
+        }
+        List<ValueHolder> generic = arguments.getGenericArgumentValues();
+        out.writeInt(generic.size());
+        for (ValueHolder holder : generic) {
+            writeValueHolder(out, name, holder);
+        }
+
+        MutablePropertyValues properties = bd.getPropertyValues();
+        out.writeInt(properties.size());
+        for (PropertyValue property : properties.getPropertyValueList()) {
+            out.writeUTF(property.getName());
+            writeValue(out, name, property.getValue());
+        }
+    }
+
+    /**
+     * 파일 형식에 담지 않는 설정이 있으면 조용히 빼지 않고 실패한다.
+     */
+    private static void checkSupported(String name, AbstractBeanDefinition bd) {
+        if (bd.hasMethodOverrides()) {
+            throw unsupported("lookup-method/replaced-method", name);
+        }
+        if (!bd.getQualifiers().isEmpty()) {
+            throw unsupported("qualifier", name);
+        }
+        if (bd.getDependencyCheck() != AbstractBeanDefinition.DEPENDENCY_CHECK_NONE) {
+            throw unsupported("dependency-check", name);
+        }
+        if (!bd.isEnforceInitMethod() || !bd.isEnforceDestroyMethod()) {
+            throw unsupported("default-init-method/default-destroy-method", name);
+        }
+        if (!bd.isLenientConstructorResolution()) {
+            throw unsupported("lenientConstructorResolution = false", name);
+        }
+        if (!bd.isNonPublicAccessAllowed()) {
+            throw unsupported("nonPublicAccessAllowed = false", name);
+        }
+        if (bd.isSynthetic()) {
+            throw unsupported("synthetic", name);
+        }
+    }
+
+    private static IllegalArgumentException unsupported(String feature, String beanName) {
+        return new IllegalArgumentException(feature + " is not supported, bean = " + beanName);
+    }
+
+    private static void writeValueHolder(DataOutputStream out, String beanName, ValueHolder holder) throws IOException {
+        writeNullable(out, holder.getName());
+        writeNullable(out, holder.getType());
+        writeValue(out, beanName, holder.getValue());
+    }
+
+    private static void writeValue(DataOutputStream out, String beanName, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(CompiledBeanDefinitions.VALUE_NULL);
+        } else if (value instanceof RuntimeBeanReference) {
+            RuntimeBeanReference reference = (RuntimeBeanReference) value;
+            if (reference.isToParent()) {
+                throw new IllegalArgumentException("parent bean reference is not supported, bean = " + beanName);
+            }
+            out.writeByte(CompiledBeanDefinitions.VALUE_REF);
+            out.writeUTF(reference.getBeanName());
+        } else if (value instanceof TypedStringValue) {
+            TypedStringValue typed = (TypedStringValue) value;
+            out.writeByte(CompiledBeanDefinitions.VALUE_STRING);
+            writeNullable(out, typed.getValue());
+            writeNullable(out, typed.getTargetTypeName());
+        } else {
+            throw new IllegalArgumentException("unsupported value type : " + value.getClass().getName() + ", bean = " + beanName);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+        if (values == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(values.length);
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package hello.springcorereview.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimiterTest {
+
+    AtomicLong now = new AtomicLong();
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("test", 10, 2, 12, 10, TimeUnit.MILLISECONDS, 0.5, now::get);
+
+    @Test
+    @DisplayName("한도에 도달하면 기다리지 않고 바로 거절해야 한다")
+    void reject() {
+        //given
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isTrue();
+        }
+
+        //when, then
+        assertThatThrownBy(() -> limiter.call(() -> "order"))
+                .isInstanceOf(OverloadException.class);
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("느린 호출이 있으면 한도를 곱으로 줄이고, 빠른 호출이면 1씩 늘려야 한다")
+    void aimd() {
+        //when
+        sample(0, 20, 10);
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(5);
+
+        //when
+        sample(20, 40, 5);
+        sample(40, 60, 5);
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(2);   //minLimit 아래로 내려가지 않는다
+
+        //when
+        for (int i = 0; i < 20; i++) {
+            sample(60, 61, limiter.getLimit());
+        }
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(12);  //maxLimit 위로 올라가지 않는다
+    }
+
+    @Test
+    @DisplayName("한꺼번에 끝난 느린 호출들은 한도를 한 번만 줄여야 한다")
+    void oneDecreasePerWindow() {
+        //when 같은 시점에 시작한 느린 호출 10건이 연달아 끝난다
+        for (int i = 0; i < 10; i++) {
+            sample(0, 20 + i, 10 - i);
+        }
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getSlowCallCount()).isEqualTo(10);
+
+        //when 줄인 뒤에 시작한 호출이 느리면 다시 줄인다
+        sample(25, 40, 5);
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("call 은 생성자에 넘긴 시계로 지연시간을 잰다")
+    void callUsesClock() {
+        //when
+        String result = limiter.call(() -> {
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+            return "order";
+        });
+
+        //then
+        assertThat(result).isEqualTo("order");
+        assertThat(limiter.getSlowCallCount()).isEqualTo(1);
+        assertThat(limiter.getLimit()).isEqualTo(5);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("한도를 절반도 사용하지 않을 때는 한도를 늘리지 않아야 한다")
+    void noIncreaseWhenIdle() {
+        //when
+        sample(0, 1, 1);
+
+        //then
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    private void sample(long startMillis, long endMillis, int inFlight) {
+        limiter.onSample(TimeUnit.MILLISECONDS.toNanos(startMillis), TimeUnit.MILLISECONDS.toNanos(endMillis), inFlight);
+    }
+}
@@ -0,0 +1,60 @@
+package hello.springcorereview.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LongHistogramTest {
+
+    @Test
+    @DisplayName("백분위 값은 약 1.6% 오차 안에서 계산되어야 한다")
+    void percentile() {
+        //given
+        LongHistogram histogram = new LongHistogram();
+
+        //when
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        //then
+        assertThat(histogram.getCount()).isEqualTo(10_000);
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(5_000_000, within(5_000_000 * 0.016));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(9_900_000, within(9_900_000 * 0.016));
+        assertThat(histogram.getMax()).isGreaterThanOrEqualTo(10_000_000);
+    }
+
+    @Test
+    @DisplayName("기대 간격보다 느린 응답은 보내지 못한 요청의 지연시간을 함께 기록한다")
+    void recordCorrected() {
+        //given
+        LongHistogram histogram = new LongHistogram();
+
+        //when
+        histogram.recordCorrected(1000, 100);
+
+        //then 1000, 900, 800, ... 100
+        assertThat(histogram.getCount()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("다른 히스토그램을 합칠 수 있다")
+    void add() {
+        //given
+        LongHistogram a = new LongHistogram();
+        LongHistogram b = new LongHistogram();
+        a.record(10);
+        b.record(20);
+        b.record(Long.MAX_VALUE);
+
+        //when
+        a.add(b);
+
+        //then
+        assertThat(a.getCount()).isEqualTo(3);
+        assertThat(a.getValueAtPercentile(50)).isEqualTo(20);
+        assertThat(a.getMax()).isEqualTo(Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,43 @@
+package hello.springcorereview.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongLongHashMapTest {
+
+    @Test
+    @DisplayName("put, remove 를 섞어도 HashMap 과 같은 결과를 내야 한다")
+    void sameAsHashMap() {
+        //given
+        LongLongHashMap map = new LongLongHashMap(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        //when
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2000) - 100;     //0 과 음수 키도 포함
+            if (random.nextInt(3) == 0) {
+                Long removed = expected.remove(key);
+                assertThat(map.remove(key, -1)).isEqualTo(removed == null ? -1 : removed);
+            } else {
+                long value = random.nextLong();
+                Long previous = expected.put(key, value);
+                assertThat(map.put(key, value, -1)).isEqualTo(previous == null ? -1 : previous);
+            }
+        }
+
+        //then
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = -200; key < 2000; key++) {
+            Long value = expected.get(key);
+            assertThat(map.get(key, -1)).isEqualTo(value == null ? -1 : value);
+            assertThat(map.containsKey(key)).isEqualTo(value != null);
+        }
+    }
+}
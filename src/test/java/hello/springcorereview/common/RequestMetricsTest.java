@@ -0,0 +1,76 @@
+package hello.springcorereview.common;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestMetricsTest {
+
+    static byte[] sink;
+
+    @Test
+    @DisplayName("MyLogger 의 생성과 소멸 사이에 할당한 메모리와 CPU 시간이 URL 패턴별로 기록되어야 한다")
+    void recordBetweenInitAndClose() {
+        //given
+        RequestMetrics requestMetrics = new RequestMetrics(true);
+
+        //when
+        for (int i = 0; i < 10; i++) {
+            MyLogger myLogger = new MyLogger(requestMetrics);
+            myLogger.init();
+            myLogger.setRequestPattern("GET /members/{memberId}/orders");
+            sink = new byte[1024 * 1024];
+            myLogger.close();
+        }
+        MyLogger unmatched = new MyLogger(requestMetrics);
+        unmatched.init();
+        unmatched.setRequestURL("http://localhost:8080/unknown");
+        unmatched.close();
+
+        //then
+        Map<String, RequestMetrics.EndpointStats> snapshot = requestMetrics.snapshot();
+        RequestMetrics.EndpointStats stats = snapshot.get("GET /members/{memberId}/orders");
+        assertThat(stats.getRequests()).isEqualTo(10);
+        assertThat(stats.getAllocatedBytes().getCount()).isEqualTo(10);
+        assertThat(stats.getAllocatedBytes().getP50()).isGreaterThanOrEqualTo(1024 * 1024);
+        assertThat(stats.getCpuTimeMicros().getCount()).isEqualTo(10);
+        assertThat(snapshot.get("http://localhost:8080/unknown").getRequests()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 측정하지 않고 기록도 남기지 않아야 한다")
+    void disabled() {
+        //given
+        RequestMetrics requestMetrics = new RequestMetrics(false);
+        MyLogger myLogger = new MyLogger(requestMetrics);
+
+        //when
+        myLogger.init();
+        myLogger.setRequestPattern("GET /log-demo");
+        myLogger.close();
+
+        //then
+        assertThat(requestMetrics.currentThreadAllocatedBytes()).isEqualTo(-1);
+        assertThat(requestMetrics.currentThreadCpuTimeNanos()).isEqualTo(-1);
+        assertThat(requestMetrics.snapshot()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("URL 패턴이 최대 개수를 넘으면 나머지는 other 로 모아야 한다")
+    void maxPatterns() {
+        //given
+        RequestMetrics requestMetrics = new RequestMetrics(true);
+
+        //when
+        for (int i = 0; i < RequestMetrics.MAX_PATTERNS + 10; i++) {
+            requestMetrics.record("GET /orders/" + i, 100, 1000);
+        }
+
+        //then
+        assertThat(requestMetrics.snapshot()).hasSize(RequestMetrics.MAX_PATTERNS + 1);
+        assertThat(requestMetrics.snapshot().get(RequestMetrics.OTHER).getRequests()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,27 @@
+package hello.springcorereview.discount;
+
+import hello.springcorereview.member.Grade;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixDiscountPolicyTest {
+
+    FixDiscountPolicy discountPolicy = new FixDiscountPolicy();
+
+    @Test
+    @DisplayName("배치 할인은 VIP 에게만 1000원을 할인해야 한다")
+    void discountAll() {
+        //given
+        byte[] grades = {Grade.VIP.code(), Grade.BASIC.code(), Grade.VIP.code()};
+        int[] prices = {10000, 10000, 500};
+        int[] out = new int[3];
+
+        //when
+        discountPolicy.discountAll(grades, prices, out, 2);
+
+        //then
+        assertThat(out).containsExactly(1000, 0, 0);
+    }
+}
@@ -36,4 +36,37 @@ class RateDiscountPolicyTest {
         //then
         assertThat(discount).isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("배치 할인은 건별 할인과 같은 결과를 내야 한다")
+    void discountAll() {
+        //given
+        byte[] grades = {Grade.VIP.code(), Grade.BASIC.code(), Grade.VIP.code(), Grade.BASIC.code()};
+        int[] prices = {10000, 10000, 25000, 0};
+        int[] out = new int[grades.length];
+
+        //when
+        discountPolicy.discountAll(grades, prices, out, grades.length);
+
+        //then
+        for (int i = 0; i < grades.length; i++) {
+            Member member = new Member((long) i, "member" + i, Grade.fromCode(grades[i]));
+            assertThat(out[i]).isEqualTo(discountPolicy.discount(member, prices[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("배치 할인을 재정의하지 않으면 건별 할인으로 대신 계산한다")
+    void discountAllDefault() {
+        //given
+        DiscountPolicy scalarOnly = (member, price) -> member.getGrade() == Grade.VIP ? 500 : 0;
+        byte[] grades = {Grade.BASIC.code(), Grade.VIP.code()};
+        int[] out = new int[2];
+
+        //when
+        scalarOnly.discountAll(grades, new int[]{10000, 10000}, out, 2);
+
+        //then
+        assertThat(out).containsExactly(0, 500);
+    }
+}
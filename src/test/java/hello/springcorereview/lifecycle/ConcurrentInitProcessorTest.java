@@ -0,0 +1,259 @@
+package hello.springcorereview.lifecycle;
+
+import hello.springcorereview.annotation.ConcurrentInit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrentInitProcessorTest {
+
+    static final long TIMEOUT_SECONDS = 5;
+
+    @Test
+    @DisplayName("서로 의존하지 않는 초기화는 동시에 실행되고, 의존하는 초기화는 의존 대상이 끝난 뒤 실행되어야 한다")
+    void concurrent() {
+        //when
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(ConcurrentConfig.class);
+
+        //then
+        ConcurrentInitProcessor processor = ac.getBean(ConcurrentInitProcessor.class);
+        assertThat(ac.getBean("clientA", SlowClient.class).overlapped).isTrue();    //순차 실행이면 서로 기다리다 시간 초과
+        assertThat(ac.getBean("clientB", SlowClient.class).overlapped).isTrue();
+        assertThat(ac.getBean("clientC", SlowClient.class).connected).isTrue();
+        assertThat(ac.getBean("clientC", SlowClient.class).initThread).startsWith("concurrent-init-");
+        assertThat(processor.getCriticalPath()).containsExactly("clientA", "clientC");
+        assertThat(ac.getBean(PlainService.class).clientConnectedAtInit).isTrue();
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("required = false 인 초기화는 컨테이너 시작이 기다리지 않아야 한다")
+    void optionalInitNotAwaited() throws InterruptedException {
+        //when
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(ConcurrentConfig.class);
+
+        //then
+        CacheWarmer warmer = ac.getBean(CacheWarmer.class);
+        assertThat(warmer.warmed).isFalse();
+        warmer.release.countDown();
+        assertThat(warmer.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+        assertThat(warmer.warmed).isTrue();
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("시작이 끝난 뒤 만들어진 빈은 현재 스레드에서 초기화해야 한다")
+    void initAfterStartup() throws InterruptedException {
+        //given
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(ConcurrentConfig.class);
+        CacheWarmer warmer = ac.getBean(CacheWarmer.class);
+        warmer.release.countDown();
+        assertThat(warmer.done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();  //등록한 초기화가 모두 끝나 스레드 풀이 종료된다
+
+        //when
+        SlowClient lateClient = ac.getBean("lateClient", SlowClient.class);
+
+        //then
+        assertThat(lateClient.connected).isTrue();
+        assertThat(lateClient.initThread).isEqualTo(Thread.currentThread().getName());
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("threads 가 0 이면 초기화를 현재 스레드에서 차례대로 실행해야 한다")
+    void sequential() {
+        //when
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(SequentialConfig.class);
+
+        //then
+        String current = Thread.currentThread().getName();
+        assertThat(ac.getBean("clientA", SlowClient.class).initThread).isEqualTo(current);
+        assertThat(ac.getBean("clientB", SlowClient.class).initThread).isEqualTo(current);
+        assertThat(ac.getBean("clientC", SlowClient.class).initThread).isEqualTo(current);
+        assertThat(ac.getBean(PlainService.class).clientConnectedAtInit).isTrue();
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("required 인 초기화가 실패하면 컨테이너 시작이 실패해야 한다")
+    void requiredInitFails() {
+        assertThatThrownBy(() -> new AnnotationConfigApplicationContext(FailingConfig.class))
+                .isInstanceOf(BeanCreationException.class)
+                .hasMessageContaining("failingClient");
+    }
+
+    /**
+     * clientA, clientB 는 서로 독립이고 clientC 는 clientA 에 의존한다. plainService 는 일반 빈으로 clientB 에 의존한다.
+     * clientA, clientB 는 서로 connect 에 들어올 때까지 기다리고, clientC 는 plainService 초기화가 끝날 때까지 기다린다.
+     * plainService 는 clientB 초기화가 끝난 뒤에 초기화되므로 clientC 가 가장 늦게 끝난다.
+     */
+    @Configuration
+    static class ConcurrentConfig {
+
+        final CountDownLatch independentStarted = new CountDownLatch(2);
+        final CountDownLatch plainServiceReady = new CountDownLatch(1);
+
+        @Bean
+        static ConcurrentInitProcessor concurrentInitProcessor() {
+            return new ConcurrentInitProcessor(4);
+        }
+
+        @Bean
+        SlowClient clientA() {
+            return new SlowClient(null, independentStarted, null);
+        }
+
+        @Bean
+        SlowClient clientB() {
+            return new SlowClient(null, independentStarted, null);
+        }
+
+        @Bean
+        SlowClient clientC(SlowClient clientA) {
+            return new SlowClient(clientA, null, plainServiceReady);
+        }
+
+        @Bean
+        PlainService plainService(SlowClient clientB) {
+            return new PlainService(clientB, plainServiceReady);
+        }
+
+        @Bean
+        CacheWarmer cacheWarmer() {
+            return new CacheWarmer();
+        }
+
+        @Bean
+        @Lazy
+        SlowClient lateClient() {
+            return new SlowClient(null, null, null);
+        }
+    }
+
+    @Configuration
+    static class SequentialConfig {
+
+        @Bean
+        static ConcurrentInitProcessor concurrentInitProcessor() {
+            return new ConcurrentInitProcessor(0);
+        }
+
+        @Bean
+        SlowClient clientA() {
+            return new SlowClient(null, null, null);
+        }
+
+        @Bean
+        SlowClient clientB() {
+            return new SlowClient(null, null, null);
+        }
+
+        @Bean
+        SlowClient clientC(SlowClient clientA) {
+            return new SlowClient(clientA, null, null);
+        }
+
+        @Bean
+        PlainService plainService(SlowClient clientB) {
+            return new PlainService(clientB, null);
+        }
+    }
+
+    @Configuration
+    static class FailingConfig {
+
+        @Bean
+        static ConcurrentInitProcessor concurrentInitProcessor() {
+            return new ConcurrentInitProcessor(4);
+        }
+
+        @Bean
+        FailingClient failingClient() {
+            return new FailingClient();
+        }
+    }
+
+    static class SlowClient {
+
+        private final SlowClient dependency;
+        private final CountDownLatch rendezvous;    //함께 실행되어야 하는 초기화끼리 공유한다
+        private final CountDownLatch gate;          //열릴 때까지 연결을 끝내지 않는다
+        volatile boolean connected;
+        volatile boolean overlapped;
+        volatile String initThread;
+
+        SlowClient(SlowClient dependency, CountDownLatch rendezvous, CountDownLatch gate) {
+            this.dependency = dependency;
+            this.rendezvous = rendezvous;
+            this.gate = gate;
+        }
+
+        @ConcurrentInit
+        public void connect() throws InterruptedException {
+            if (dependency != null && !dependency.connected) {
+                throw new IllegalStateException("dependency is not connected yet");
+            }
+            initThread = Thread.currentThread().getName();
+            if (rendezvous != null) {
+                rendezvous.countDown();
+                overlapped = rendezvous.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+            if (gate != null && !gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("gate is not opened");
+            }
+            connected = true;
+        }
+    }
+
+    static class PlainService {
+
+        private final SlowClient client;
+        private final CountDownLatch ready;
+        boolean clientConnectedAtInit;
+
+        PlainService(SlowClient client, CountDownLatch ready) {
+            this.client = client;
+            this.ready = ready;
+        }
+
+        @PostConstruct
+        public void init() {
+            clientConnectedAtInit = client.connected;
+            if (ready != null) {
+                ready.countDown();
+            }
+        }
+    }
+
+    static class CacheWarmer {
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile boolean warmed;
+
+        @ConcurrentInit(required = false)
+        public void warm() throws InterruptedException {
+            warmed = release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            done.countDown();
+        }
+    }
+
+    static class FailingClient {
+
+        @ConcurrentInit
+        public void connect() {
+            throw new IllegalStateException("connection refused");
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterMemberRepositoryTest {
+
+    AtomicInteger backendLookups = new AtomicInteger();
+    MemoryMemberRepository backend = new MemoryMemberRepository() {
+        @Override
+        public Member findById(Long memberId) {
+            backendLookups.incrementAndGet();
+            return super.findById(memberId);
+        }
+    };
+
+    @Test
+    @DisplayName("저장된 적 없는 id 는 저장소를 조회하지 않는다")
+    void avoidMiss() {
+        //given
+        BloomFilterMemberRepository repository = new BloomFilterMemberRepository(backend, 10_000, 0.01);
+        for (long id = 1; id <= 10_000; id++) {
+            repository.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+
+        //when
+        for (long id = 1; id <= 10_000; id++) {
+            assertThat(repository.findById(id)).isNotNull();
+        }
+        for (long id = 100_001; id <= 110_000; id++) {
+            assertThat(repository.findById(id)).isNull();
+        }
+
+        //then
+        System.out.println("avoided = " + repository.getAvoidedLookupCount() + ", false positive = "
+                + repository.getFalsePositiveCount() + ", fill ratio = " + repository.getFillRatio());
+        assertThat(repository.getAvoidedLookupCount() + repository.getFalsePositiveCount()).isEqualTo(10_000);
+        assertThat(repository.getFalsePositiveCount()).isLessThan(300);  //목표 1%, 여유를 두고 확인
+        assertThat(backendLookups.get()).isEqualTo(10_000 + (int) repository.getFalsePositiveCount());
+    }
+
+    @Test
+    @DisplayName("기존 데이터가 있는 저장소는 rebuild 로 filter 를 채워야 조회된다")
+    void rebuild() {
+        //given
+        backend.save(new Member(1L, "memberA", Grade.VIP));
+        BloomFilterMemberRepository repository = new BloomFilterMemberRepository(backend, 100, 0.01);
+        assertThat(repository.findById(1L)).isNull();
+
+        //when
+        repository.rebuild(backend::findAll, 100, 0.01);
+
+        //then
+        assertThat(repository.findById(1L)).isNotNull();
+        assertThat(repository.getFillRatio()).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("rebuild 하는 동안 동시에 저장된 회원도 새 filter 에서 빠지지 않아야 한다")
+    void saveDuringRebuild() throws InterruptedException {
+        //given
+        int count = 50_000;
+        BloomFilterMemberRepository repository = new BloomFilterMemberRepository(backend, count, 0.01);
+        AtomicLong nextId = new AtomicLong();
+        List<Thread> savers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            savers.add(new Thread(() -> {
+                long id;
+                while ((id = nextId.incrementAndGet()) <= count) {
+                    repository.save(new Member(id, "member" + id, Grade.BASIC));
+                }
+            }));
+        }
+        savers.forEach(Thread::start);
+
+        //when
+        int rebuilds = 0;
+        while (savers.stream().anyMatch(Thread::isAlive)) {
+            repository.rebuild(backend::findAll, count, 0.01);
+            rebuilds++;
+        }
+        for (Thread saver : savers) {
+            saver.join();
+        }
+
+        //then
+        System.out.println("rebuilds = " + rebuilds);
+        for (long id = 1; id <= count; id++) {
+            assertThat(repository.findById(id)).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package hello.springcorereview.member;
+
+import hello.springcorereview.common.ConcurrencyLimiter;
+import hello.springcorereview.common.OverloadException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimitedMemberServiceTest {
+
+    MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter("join", 1, 1, 1, 10, TimeUnit.SECONDS, 0.9);
+
+    @Test
+    @DisplayName("한도에 도달하면 가입을 거절하고, 끝난 가입은 한도를 돌려줘야 한다")
+    void rejectAndRelease() {
+        //given 가입 도중에 다시 가입을 시도해서 한도 1개를 차지한 상태를 만든다
+        AtomicReference<Throwable> nested = new AtomicReference<>();
+        MemberService[] limited = new MemberService[1];
+        MemberService delegate = new MemberServiceImpl(memberRepository) {
+            @Override
+            public void join(Member member) {
+                super.join(member);
+                if (member.getId() == 1L) {
+                    try {
+                        limited[0].join(new Member(2L, "memberB", Grade.BASIC));
+                    } catch (OverloadException e) {
+                        nested.set(e);
+                    }
+                }
+            }
+        };
+        limited[0] = new LimitedMemberService(delegate, limiter);
+
+        //when
+        limited[0].join(new Member(1L, "memberA", Grade.VIP));
+
+        //then 안쪽 가입은 거절되고, 바깥 가입이 끝나면 한도가 돌아온다
+        assertThat(nested.get()).isInstanceOf(OverloadException.class);
+        assertThat(memberRepository.findById(2L)).isNull();
+        assertThat(limiter.getInFlight()).isZero();
+
+        limited[0].join(new Member(2L, "memberB", Grade.BASIC));
+        assertThat(memberRepository.findById(2L).getName()).isEqualTo("memberB");
+
+        ConcurrencyLimiter.Stats stats = limiter.snapshot();
+        assertThat(stats.getLimit()).isEqualTo(1);
+        assertThat(stats.getInFlight()).isZero();
+        assertThat(stats.getAccepted()).isEqualTo(2);
+        assertThat(stats.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("가입이 실패해도 한도를 돌려줘야 한다")
+    void releaseOnFailure() {
+        //given
+        MemberService limited = new LimitedMemberService(new MemberServiceImpl(memberRepository) {
+            @Override
+            public void join(Member member) {
+                throw new IllegalStateException("join failed");
+            }
+        }, limiter);
+
+        //when
+        assertThatThrownBy(() -> limited.join(new Member(1L, "memberA", Grade.VIP)))
+                .isInstanceOf(IllegalStateException.class);
+
+        //then
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.getRejectedCount()).isZero();
+    }
+}
@@ -0,0 +1,185 @@
+package hello.springcorereview.member;
+
+import hello.springcorereview.member.MemberChangeFeed.WaitStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberChangeFeedTest {
+
+    @Test
+    @DisplayName("여러 생산자가 발행한 이벤트를 모든 구독자가 생산자별 순서대로 빠짐없이 받아야 한다")
+    void multiProducerMultiConsumer() throws InterruptedException {
+        //given
+        int producers = 4;
+        int perProducer = 100_000;
+        MemberChangeFeed feed = new MemberChangeFeed(1024, 10, TimeUnit.SECONDS);
+        List<Consumer> consumers = List.of(
+                new Consumer(feed.subscribe("spin", WaitStrategy.BUSY_SPIN), producers),
+                new Consumer(feed.subscribe("blocking", WaitStrategy.BLOCKING), producers));
+        consumers.forEach(consumer -> consumer.thread.start());
+
+        //when
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    feed.publish(new Member(base + i, "member", Grade.BASIC));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Consumer consumer : consumers) {
+            consumer.awaitCount((long) producers * perProducer);
+        }
+
+        //then
+        for (Consumer consumer : consumers) {
+            assertThat(consumer.received.get()).isEqualTo((long) producers * perProducer);
+            assertThat(consumer.outOfOrder).isZero();
+            assertThat(consumer.batches).isLessThanOrEqualTo(consumer.received.get());
+        }
+        assertThat(feed.getSlowConsumerCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("처리하지 않는 구독자는 느린 구독자로 판단되어 발행을 막지 않고, 다음 poll 에서 놓친 수를 알려야 한다")
+    void slowConsumer() {
+        //given
+        MemberChangeFeed feed = new MemberChangeFeed(16, 10, TimeUnit.MILLISECONDS);
+        MemberChangeFeed.Subscription subscription = feed.subscribe("slow", WaitStrategy.SLEEPING);
+        AtomicLong missed = new AtomicLong();
+        List<Long> ids = new ArrayList<>();
+        MemberChangeFeed.ChangeHandler handler = new MemberChangeFeed.ChangeHandler() {
+            @Override
+            public void onChange(MemberChange change, boolean endOfBatch) {
+                ids.add(change.getMemberId());
+            }
+
+            @Override
+            public void onOverrun(long count) {
+                missed.set(count);
+            }
+        };
+
+        //when
+        for (long id = 0; id < 100; id++) {
+            feed.publish(new Member(id, "member", Grade.VIP));
+        }
+        subscription.poll(handler, 100);
+        feed.publish(new Member(100L, "member", Grade.VIP));
+        subscription.poll(handler, 100);
+
+        //then
+        assertThat(feed.getSlowConsumerCount()).isEqualTo(1);
+        assertThat(missed.get()).isGreaterThan(0);
+        assertThat(ids).containsExactly(100L);
+        assertThat(subscription.isDetached()).isFalse();
+        assertThat(subscription.getLag()).isZero();
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("회원 가입시 변경 이벤트가 발행되고, 발행에 드는 비용을 측정한다")
+    void joinOverhead() throws InterruptedException {
+        //given
+        int members = 1_000_000;
+        MemberChangeFeed feed = new MemberChangeFeed(64 * 1024, 1, TimeUnit.SECONDS);
+        MemberService plain = new MemberServiceImpl(new MemoryMemberRepository(members));
+        MemberService published = new MemberServiceImpl(new ChangeFeedMemberRepository(new MemoryMemberRepository(members), feed));
+        Consumer consumer = new Consumer(feed.subscribe("index", WaitStrategy.YIELDING), 1);
+        consumer.thread.start();
+        Member[] joins = new Member[members];
+        for (int i = 0; i < members; i++) {
+            joins[i] = new Member((long) i, "member" + i, i % 2 == 0 ? Grade.VIP : Grade.BASIC);
+        }
+
+        joinAll(plain, joins);      //warmup, 두 번째 join 은 같은 id 를 덮어쓴다
+        joinAll(published, joins);
+
+        //when
+        long plainNanos = joinAll(plain, joins);
+        long publishedNanos = joinAll(published, joins);
+        consumer.awaitCount(2L * members);
+
+        //then
+        System.out.println("join = " + plainNanos / members + "ns, join with change feed = " + publishedNanos / members + "ns");
+        assertThat(consumer.received.get()).isEqualTo(2L * members);
+        assertThat(consumer.lastName).isEqualTo("member" + (members - 1));
+    }
+
+    private long joinAll(MemberService memberService, Member[] members) {
+        long start = System.nanoTime();
+        for (Member member : members) {
+            memberService.join(member);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * memberId / perProducer 로 생산자를 구분해서 생산자별로 id 가 증가하는지 확인한다
+     */
+    static class Consumer implements MemberChangeFeed.ChangeHandler {
+
+        final MemberChangeFeed.Subscription subscription;
+        final long[] lastIds;
+        final AtomicLong received = new AtomicLong();
+        final Thread thread;
+        long outOfOrder;
+        long batches;
+        volatile String lastName;
+
+        Consumer(MemberChangeFeed.Subscription subscription, int producers) {
+            this.subscription = subscription;
+            this.lastIds = new long[producers];
+            Arrays.fill(lastIds, -1);
+            this.thread = new Thread(this::run);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    subscription.await(this, 256, 100, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                //종료
+            }
+        }
+
+        @Override
+        public void onChange(MemberChange change, boolean endOfBatch) {
+            int producer = (int) (change.getMemberId() / 100_000) % lastIds.length;
+            if (change.getMemberId() <= lastIds[producer]) {
+                outOfOrder++;
+            }
+            lastIds[producer] = change.getMemberId();
+            lastName = change.getName();
+            if (endOfBatch) {
+                batches++;
+            }
+            received.incrementAndGet();
+        }
+
+        void awaitCount(long count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (received.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            thread.interrupt();
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberGradeIndexTest {
+
+    @Test
+    @DisplayName("저장한 등급을 조회하고, 없는 회원은 MISSING 을 반환해야 한다")
+    void putAndGet() {
+        //given
+        MemberGradeIndex index = new MemberGradeIndex(4);
+
+        //when
+        for (long id = 0; id < 1000; id++) {   //id 0 과 크기 조정을 포함한다
+            index.put(id, id % 2 == 0 ? Grade.VIP : Grade.BASIC);
+        }
+        index.put(1L, Grade.VIP);
+        index.putIfAbsent(2L, Grade.BASIC);
+        index.putIfAbsent(5000L, Grade.BASIC);
+
+        //then
+        assertThat(index.size()).isEqualTo(1001);
+        assertThat(index.findGrade(0L)).isEqualTo(Grade.VIP);
+        assertThat(index.findGrade(1L)).isEqualTo(Grade.VIP);
+        assertThat(index.findGrade(2L)).isEqualTo(Grade.VIP);
+        assertThat(index.findGrade(999L)).isEqualTo(Grade.BASIC);
+        assertThat(index.findGrade(5000L)).isEqualTo(Grade.BASIC);
+        assertThat(index.get(-7L)).isEqualTo(MemberGradeIndex.MISSING);
+        assertThat(index.findGrade(1001L)).isNull();
+    }
+
+    @Test
+    @DisplayName("크기를 늘리는 동안에도 락 없이 읽는 스레드가 저장된 회원을 놓치지 않아야 한다")
+    void readDuringResize() throws InterruptedException {
+        //given
+        MemberGradeIndex index = new MemberGradeIndex(4);
+        AtomicLong written = new AtomicLong(-1);
+        AtomicLong misses = new AtomicLong();
+        Thread reader = new Thread(() -> {
+            while (written.get() < 199_999) {
+                long upTo = written.get();
+                if (upTo >= 0 && index.get(ThreadLocalRandom.current().nextLong(upTo + 1) + 1) != Grade.VIP.code()) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        //when
+        for (long id = 1; id <= 200_000; id++) {
+            index.put(id, Grade.VIP);
+            written.set(id - 1);
+        }
+        reader.join();
+
+        //then
+        assertThat(misses.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("설정은 기존 회원으로 색인을 채우고, 저장소의 findGrade 는 색인에서 읽어야 한다")
+    void configRebuildsIndex() {
+        //given
+        MemberGradeIndexConfig config = new MemberGradeIndexConfig();
+        MemoryMemberRepository store = new MemoryMemberRepository();
+        store.save(new Member(1L, "memberA", Grade.VIP));
+
+        //when
+        GradeIndexingMemberRepository repository = config.gradeIndexingMemberRepository(store, 16);
+        repository.save(new Member(2L, "memberB", Grade.BASIC));
+        repository.save(new Member(1L, "memberA", Grade.BASIC));
+
+        //then
+        assertThat(repository.getIndex().findGrade(1L)).isEqualTo(Grade.BASIC);
+        assertThat(repository.findGrade(1L)).isEqualTo(Grade.BASIC);
+        assertThat(repository.findGrade(2L)).isEqualTo(Grade.BASIC);
+        assertThat(repository.findGrade(3L)).isNull();
+        assertThat(repository.findGrades(List.of(1L, 2L, 3L))).containsOnlyKeys(1L, 2L);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("회원 저장소보다 훨씬 작은 메모리로 등급을 더 빨리 조회해야 한다")
+    void footprintAndLatency() {
+        //given
+        int members = 1_000_000;
+        Runtime runtime = Runtime.getRuntime();
+        long before = usedHeap(runtime);
+        MemoryMemberRepository repository = new MemoryMemberRepository(members);
+        for (long id = 0; id < members; id++) {
+            repository.save(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        long repositoryBytes = usedHeap(runtime) - before;
+        before = usedHeap(runtime);
+        GradeIndexingMemberRepository indexed = new GradeIndexingMemberRepository(repository, new MemberGradeIndex(members));
+        indexed.rebuild(repository::findAll);
+        long indexBytes = usedHeap(runtime) - before;
+        MemberGradeIndex index = indexed.getIndex();
+
+        long[] ids = new long[members];
+        for (int i = 0; i < members; i++) {
+            ids[i] = ThreadLocalRandom.current().nextLong(members);
+        }
+        lookupRepository(repository, ids);     //warmup
+        lookupIndex(index, ids);
+
+        //when
+        long start = System.nanoTime();
+        long repositoryVip = lookupRepository(repository, ids);
+        long repositoryNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        long indexVip = lookupIndex(index, ids);
+        long indexNanos = System.nanoTime() - start;
+
+        //then
+        System.out.println("members = " + members
+                + ", repository = " + repositoryBytes / members + " bytes/member, index = " + indexBytes / members
+                + " bytes/member (arrays " + index.memoryBytes() / members + ")"
+                + ", random lookup : repository = " + repositoryNanos / members + "ns, index = " + indexNanos / members + "ns");
+        assertThat(indexVip).isEqualTo(repositoryVip);
+        assertThat(index.size()).isEqualTo(members);
+        assertThat(index.memoryBytes()).isLessThan(repositoryBytes / 4);
+    }
+
+    private static long lookupRepository(MemoryMemberRepository repository, long[] ids) {
+        long vip = 0;
+        for (long id : ids) {
+            if (repository.findById(id).getGrade() == Grade.VIP) {
+                vip++;
+            }
+        }
+        return vip;
+    }
+
+    private static long lookupIndex(MemberGradeIndex index, long[] ids) {
+        long vip = 0;
+        for (long id : ids) {
+            if (index.get(id) == Grade.VIP.code()) {
+                vip++;
+            }
+        }
+        return vip;
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
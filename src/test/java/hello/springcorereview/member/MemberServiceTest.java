@@ -13,7 +13,7 @@ class MemberServiceTest {
     @BeforeEach
     void beforeEach() {
         AppConfig appConfig = new AppConfig();
-        memberService = appConfig.memberService();
+        memberService = appConfig.memberService(appConfig.memberRepository());
     }
 
     @Test
@@ -0,0 +1,171 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapMemberRepositoryTest {
+
+    OffHeapMemberRepository repository = new OffHeapMemberRepository(4 * 1024, 100, 0.5);
+
+    @Test
+    @DisplayName("저장한 회원을 역직렬화해서 조회할 수 있다")
+    void saveAndFind() {
+        //given
+        repository.save(new Member(1L, "회원A", Grade.VIP));
+
+        //when
+        Member member = repository.findById(1L);
+
+        //then
+        assertThat(member.getId()).isEqualTo(1L);
+        assertThat(member.getName()).isEqualTo("회원A");
+        assertThat(member.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(repository.findById(2L)).isNull();
+    }
+
+    @Test
+    @DisplayName("MemberView 로 역직렬화 없이 등급을 읽을 수 있다")
+    void view() {
+        //given
+        repository.save(new Member(1L, "memberA", Grade.VIP));
+        repository.save(new Member(2L, "회원B", Grade.BASIC));
+        MemberView view = new MemberView();
+
+        //when
+        boolean found = repository.readInto(1L, view);
+
+        //then
+        assertThat(found).isTrue();
+        assertThat(view.getId()).isEqualTo(1L);
+        assertThat(view.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(view.getName()).isEqualTo("memberA");
+        assertThat(repository.readInto(2L, view)).isTrue();
+        assertThat(view.getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(view.getName()).isEqualTo("회원B");
+        assertThat(repository.readInto(3L, view)).isFalse();
+        assertThat(repository.findGrade(3L)).isNull();
+    }
+
+    @Test
+    @DisplayName("MemberView 는 readInto 시점의 값을 가지고 있어서 getter 가 저장소를 다시 조회하지 않는다")
+    void viewIsSnapshot() {
+        //given
+        repository.save(new Member(1L, "memberA", Grade.VIP));
+        MemberView view = new MemberView();
+        repository.readInto(1L, view);
+
+        //when
+        repository.save(new Member(1L, "memberA-renamed", Grade.BASIC));
+
+        //then
+        assertThat(view.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(view.getName()).isEqualTo("memberA");
+        repository.readInto(1L, view);
+        assertThat(view.getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(view.getName()).isEqualTo("memberA-renamed");
+    }
+
+    @Test
+    @DisplayName("같은 id 를 반복해서 저장해도 compaction 으로 slab 이 재사용된다")
+    void compaction() {
+        //when
+        for (int round = 0; round < 1000; round++) {
+            for (long id = 1; id <= 100; id++) {
+                repository.save(new Member(id, "member" + id + "-" + round, round % 2 == 0 ? Grade.VIP : Grade.BASIC));
+            }
+        }
+
+        //then
+        assertThat(repository.size()).isEqualTo(100);
+        assertThat(repository.getCompactionCount()).isPositive();
+        assertThat(repository.getSlabCount()).isLessThan(10);
+        assertThat(repository.findById(7L).getName()).isEqualTo("member7-999");
+        assertThat(repository.findGrade(7L)).isEqualTo(Grade.BASIC);
+    }
+
+    @Test
+    @DisplayName("현재 slab 이었던 동안 빈 공간이 된 slab 은 다음 slab 으로 넘어갈 때 compaction 된다")
+    void compactionWhenSlabIsFull() {
+        //given 회원 1 을 현재 slab 안에서 계속 덮어써서 빈 공간을 만든다
+        OffHeapMemberRepository small = new OffHeapMemberRepository(1024, 100, 0.5);
+        for (int round = 0; round < 40; round++) {
+            small.save(new Member(1L, "member1", Grade.VIP));
+        }
+        assertThat(small.getCompactionCount()).isZero();
+
+        //when 새 회원만 저장해서 다음 slab 으로 넘어가게 한다 (넘어간 뒤에는 첫 slab 의 레코드를 다시 저장하지 않는다)
+        long id = 2;
+        while (small.getSlabCount() == 1) {
+            small.save(new Member(id, "member" + id, Grade.BASIC));
+            id++;
+        }
+
+        //then
+        assertThat(small.getCompactionCount()).isEqualTo(1);
+        assertThat(small.size()).isEqualTo((int) id - 1);
+        for (long saved = 1; saved < id; saved++) {
+            assertThat(small.findById(saved).getName()).isEqualTo("member" + saved);
+        }
+    }
+
+    @Test
+    @DisplayName("다시 저장하다가 slab 이 여러 번 넘어가도 같은 slab 을 두 번 재사용 목록에 넣지 않아야 한다")
+    void rolloverDoesNotFreeTwice() {
+        //given
+        OffHeapMemberRepository small = new OffHeapMemberRepository(1024, 100, 0.5);
+        int members = 20;
+
+        //when 다시 저장하는 레코드가 넘어가는 slab 에 있으면 넘어가면서 compaction 된 slab 의 레코드다
+        for (int round = 0; round < 10_000; round++) {
+            for (long id = 1; id <= members; id++) {
+                small.save(new Member(id, "member" + id + "-" + round, Grade.VIP));
+            }
+            assertThat(small.getFreeSlabCount()).isLessThanOrEqualTo(small.getSlabCount());
+        }
+
+        //then
+        assertThat(small.size()).isEqualTo(members);
+        for (long id = 1; id <= members; id++) {
+            assertThat(small.findById(id).getName()).isEqualTo("member" + id + "-9999");
+        }
+        assertThat(small.getLiveBytes()).isLessThanOrEqualTo((long) small.getSlabCount() * 1024);
+    }
+
+    /**
+     * 같은 회원 수를 MemoryMemberRepository 와 비교해서 힙 사용량을 출력한다.
+     * GC 시점에 따라 값이 달라지므로 정확한 값 대신 힙 사용량이 절반도 안 된다는 것만 확인한다.
+     */
+    @Test
+    void heapFootprint() {
+        int members = 200_000;
+        long before = usedHeap();
+        MemoryMemberRepository onHeap = new MemoryMemberRepository(members);
+        for (long id = 1; id <= members; id++) {
+            onHeap.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+        long onHeapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        OffHeapMemberRepository offHeap = new OffHeapMemberRepository(1024 * 1024, members, 0.5);
+        for (long id = 1; id <= members; id++) {
+            offHeap.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+        long offHeapBytes = usedHeap() - before;
+
+        System.out.println("members = " + members + ", on-heap repository = " + onHeapBytes / 1024 + "KB"
+                + ", off-heap repository heap = " + offHeapBytes / 1024 + "KB (index " + offHeap.getIndexBytes() / 1024 + "KB)"
+                + ", off-heap records = " + offHeap.getLiveBytes() / 1024 + "KB");
+        assertThat(onHeap.size()).isEqualTo(offHeap.size());
+        assertThat(offHeap.getLiveBytes()).isGreaterThan(0L);
+        assertThat(offHeapBytes).isLessThan(onHeapBytes / 2);
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,132 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightMemberRepositoryTest {
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger backendCalls = new AtomicInteger();
+
+    @AfterEach
+    void afterEach() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("같은 id 를 동시에 조회하면 저장소는 한 번만 호출된다")
+    void coalesce() throws Exception {
+        //given
+        Member member = new Member(1L, "memberA", Grade.VIP);
+        SingleFlightMemberRepository repository = new SingleFlightMemberRepository(slowRepository(member), 5, TimeUnit.SECONDS);
+
+        //when
+        List<Future<Member>> results = lookupConcurrently(repository, 8);
+        release.countDown();
+
+        //then
+        for (Future<Member> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(member);
+        }
+        assertThat(backendCalls.get()).isEqualTo(1);
+        assertThat(repository.getBackendCallCount()).isEqualTo(1);
+        assertThat(repository.getSavedCallCount()).isEqualTo(7);
+        assertThat(repository.getCoalescingRatio()).isEqualTo(8.0);
+    }
+
+    @Test
+    @DisplayName("진행중인 조회가 실패하면 기다리던 스레드도 같은 예외를 받는다")
+    void failure() throws Exception {
+        //given
+        MemberRepository failing = new MemoryMemberRepository() {
+            @Override
+            public Member findById(Long memberId) {
+                awaitRelease();
+                throw new IllegalArgumentException("backend down");
+            }
+        };
+        SingleFlightMemberRepository repository = new SingleFlightMemberRepository(failing, 5, TimeUnit.SECONDS);
+
+        //when
+        List<Future<Member>> results = lookupConcurrently(repository, 4);
+        release.countDown();
+
+        //then
+        for (Future<Member> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("backend down");
+        }
+    }
+
+    @Test
+    @DisplayName("진행중인 조회가 timeout 안에 끝나지 않으면 기다리던 스레드는 예외를 받는다")
+    void timeout() throws Exception {
+        //given
+        SingleFlightMemberRepository repository = new SingleFlightMemberRepository(
+                slowRepository(new Member(1L, "memberA", Grade.VIP)), 50, TimeUnit.MILLISECONDS);
+        executor.submit(() -> repository.findById(1L));
+        waitUntil(() -> backendCalls.get() == 1);
+
+        //when, then
+        assertThatThrownBy(() -> repository.findById(1L))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("timed out");
+    }
+
+    private List<Future<Member>> lookupConcurrently(SingleFlightMemberRepository repository, int threads) throws InterruptedException {
+        List<Future<Member>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> repository.findById(1L)));
+        }
+        //leader 가 저장소를 호출하고 나머지 스레드가 모두 진행중인 조회에 합류할 때까지 leader 의 조회를 붙잡아 둔다
+        //(조회 수만 세면 합류하기 전의 스레드가 release 뒤에 새 leader 가 될 수 있다)
+        waitUntil(() -> repository.getBackendCallCount() == 1 && repository.getSavedCallCount() == threads - 1);
+        return results;
+    }
+
+    private MemberRepository slowRepository(Member member) {
+        MemoryMemberRepository repository = new MemoryMemberRepository() {
+            @Override
+            public Member findById(Long memberId) {
+                backendCalls.incrementAndGet();
+                awaitRelease();
+                return super.findById(memberId);
+            }
+        };
+        repository.save(member);
+        return repository;
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
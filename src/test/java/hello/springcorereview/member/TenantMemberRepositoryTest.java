@@ -0,0 +1,69 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TenantMemberRepositoryTest {
+
+    AtomicReference<String> currentTenant = new AtomicReference<>();
+    TenantMemberRepository repository = new TenantMemberRepository(currentTenant::get, tenant -> 1024);
+
+    @Test
+    @DisplayName("테넌트마다 저장소가 분리되어야 한다")
+    void partition() {
+        //given
+        currentTenant.set("tenantA");
+        repository.save(new Member(1L, "memberA", Grade.VIP));
+
+        //when
+        currentTenant.set("tenantB");
+        Member found = repository.findById(1L);
+
+        //then
+        assertThat(found).isNull();
+        assertThat(repository.getStats("tenantA").getSize()).isEqualTo(1);
+        assertThat(repository.getStats("tenantB").getSize()).isZero();
+        assertThat(repository.getStats("tenantB").getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("테넌트를 통째로 제거할 수 있다")
+    void evictTenant() {
+        //given
+        currentTenant.set("tenantA");
+        for (long id = 1; id <= 100; id++) {
+            repository.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+
+        //when
+        int evicted = repository.evictTenant("tenantA");
+
+        //then
+        assertThat(evicted).isEqualTo(100);
+        assertThat(repository.getStats("tenantA")).isNull();
+        assertThat(repository.findById(1L)).isNull();
+    }
+
+    @Test
+    @DisplayName("테넌트를 알 수 없으면 예외가 발생한다")
+    void unresolvedTenant() {
+        assertThatThrownBy(() -> repository.findById(1L))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("MemoryMemberRepository 는 인스턴스끼리 저장소를 공유하지 않는다")
+    void instanceStore() {
+        MemoryMemberRepository repositoryA = new MemoryMemberRepository();
+        MemoryMemberRepository repositoryB = new MemoryMemberRepository();
+
+        repositoryA.save(new Member(1L, "memberA", Grade.VIP));
+
+        assertThat(repositoryB.findById(1L)).isNull();
+    }
+}
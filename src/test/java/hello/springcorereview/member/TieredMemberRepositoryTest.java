@@ -0,0 +1,117 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TieredMemberRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    TieredMemberRepository repository;
+
+    @BeforeEach
+    void beforeEach() {
+        repository = new TieredMemberRepository(10, tempDir.resolve("cold-members.dat"), 4 * 1024);
+    }
+
+    @AfterEach
+    void afterEach() {
+        repository.close();
+    }
+
+    @Test
+    @DisplayName("hot tier 를 넘는 회원은 cold tier 로 내려가고, 조회하면 다시 올라온다")
+    void demoteAndPromote() {
+        //given
+        for (long id = 1; id <= 100; id++) {
+            repository.save(new Member(id, "회원" + id, id % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        assertThat(repository.getHotSize()).isEqualTo(10);
+        assertThat(repository.getColdSize()).isEqualTo(90);
+
+        //when
+        Member member = repository.findById(1L);
+
+        //then
+        assertThat(member.getName()).isEqualTo("회원1");
+        assertThat(member.getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(repository.getPromotionCount()).isEqualTo(1);
+        assertThat(repository.getDemotionCount()).isEqualTo(91);
+        assertThat(repository.getHotSize()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("cold tier 공간이 모자라면 지워진 레코드를 압축해서 다시 사용한다")
+    void compaction() {
+        //given
+        for (long id = 1; id <= 100; id++) {
+            repository.save(new Member(id, "member" + id, Grade.VIP));
+        }
+
+        //when 계속 올리고 내리면서 cold tier 파일 크기(4KB)보다 훨씬 많이 기록한다
+        for (int round = 0; round < 10; round++) {
+            for (long id = 1; id <= 100; id++) {
+                assertThat(repository.findById(id).getName()).isEqualTo("member" + id);
+            }
+        }
+
+        //then
+        assertThat(repository.getHotSize() + repository.getColdSize()).isEqualTo(100);
+        assertThat(repository.getColdUsedBytes()).isLessThan(4 * 1024);
+    }
+
+    @Test
+    @DisplayName("저장하면 cold tier 에 있던 예전 값은 사용되지 않는다")
+    void saveOverridesCold() {
+        //given
+        for (long id = 1; id <= 20; id++) {
+            repository.save(new Member(id, "before", Grade.BASIC));
+        }
+
+        //when
+        repository.save(new Member(1L, "after", Grade.VIP));
+
+        //then
+        assertThat(repository.findById(1L).getName()).isEqualTo("after");
+        assertThat(repository.getColdSize()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("cold tier 가 가득 차서 저장이 실패해도 hot tier 는 용량을 넘지 않고 기존 회원은 그대로 조회된다")
+    void coldTierFull() {
+        //given
+        TieredMemberRepository small = new TieredMemberRepository(10, tempDir.resolve("small-members.dat"), 256);
+        long failedId = 0;
+        for (long id = 1; id <= 1000 && failedId == 0; id++) {
+            try {
+                small.save(new Member(id, "member" + id, Grade.BASIC));
+            } catch (IllegalStateException e) {
+                failedId = id;
+            }
+        }
+        assertThat(failedId).isGreaterThan(10L);
+
+        //when
+        int hotSize = small.getHotSize();
+        Member first = small.findById(1L);
+
+        //then
+        assertThat(hotSize).isEqualTo(10);
+        assertThat(small.findById(failedId)).isNull();
+        assertThat(first.getName()).isEqualTo("member1");
+        for (long id = 1; id < failedId; id++) {
+            assertThat(small.findById(id).getName()).isEqualTo("member" + id);
+        }
+        assertThat(small.getHotSize()).isEqualTo(10);
+        assertThat(small.getHotSize() + small.getColdSize()).isEqualTo((int) failedId - 1);
+        small.close();
+    }
+}
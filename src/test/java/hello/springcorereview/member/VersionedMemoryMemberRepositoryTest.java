@@ -0,0 +1,126 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionedMemoryMemberRepositoryTest {
+
+    VersionedMemoryMemberRepository repository = new VersionedMemoryMemberRepository();
+
+    @Test
+    @DisplayName("version 이 일치할 때만 저장되고, 저장할 때마다 version 이 증가해야 한다")
+    void compareAndSave() {
+        //when
+        boolean inserted = repository.compareAndSave(0, new Member(1L, "memberA", Grade.BASIC));
+        boolean duplicated = repository.compareAndSave(0, new Member(1L, "other", Grade.BASIC));
+        boolean upgraded = repository.compareAndSave(1, new Member(1L, "memberA", Grade.VIP));
+        boolean stale = repository.compareAndSave(1, new Member(1L, "renamed", Grade.BASIC));
+
+        //then
+        assertThat(inserted).isTrue();
+        assertThat(duplicated).isFalse();
+        assertThat(upgraded).isTrue();
+        assertThat(stale).isFalse();
+        VersionedMember stored = repository.findVersioned(1L);
+        assertThat(stored.getVersion()).isEqualTo(2);
+        assertThat(stored.getName()).isEqualTo("memberA");
+        assertThat(stored.getGrade()).isEqualTo(Grade.VIP);
+    }
+
+    @Test
+    @DisplayName("조회한 회원을 수정해도 저장된 값은 바뀌지 않아야 한다")
+    void immutableSnapshot() {
+        //given
+        repository.save(new Member(1L, "memberA", Grade.BASIC));
+
+        //when
+        Member found = repository.findById(1L);
+        found.setGrade(Grade.VIP);
+
+        //then
+        assertThat(repository.findById(1L).getGrade()).isEqualTo(Grade.BASIC);
+        assertThat(repository.findVersioned(1L).getVersion()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 같은 회원을 compute 로 수정해도 수정이 사라지지 않아야 한다")
+    void concurrentCompute() throws InterruptedException {
+        //given
+        repository.save(new Member(1L, "0", Grade.BASIC));
+
+        //when
+        run(4, 5_000, i -> repository.compute(1L, VersionedMemoryMemberRepositoryTest::increment));
+
+        //then
+        assertThat(repository.findVersioned(1L).getName()).isEqualTo("20000");
+        assertThat(repository.findVersioned(1L).getVersion()).isEqualTo(20_001);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("여러 스레드가 같은 회원을 compute 로 수정해도 수정이 사라지지 않아야 하고, synchronized 방식과 처리량을 비교한다")
+    void contention() throws InterruptedException {
+        //given
+        int threads = 8;
+        int updatesPerThread = 50_000;
+        int hotMembers = 4;
+        MemoryMemberRepository plain = new MemoryMemberRepository();
+        Object lock = new Object();
+        for (long id = 0; id < hotMembers; id++) {
+            repository.save(new Member(id, "0", Grade.BASIC));
+            plain.save(new Member(id, "0", Grade.BASIC));
+        }
+
+        //when
+        long computeNanos = run(threads, updatesPerThread, i -> repository.compute(i % hotMembers, VersionedMemoryMemberRepositoryTest::increment));
+        long synchronizedNanos = run(threads, updatesPerThread, i -> {
+            synchronized (lock) {
+                Member current = plain.findById(i % hotMembers);
+                plain.save(increment(new Member(current.getId(), current.getName(), current.getGrade())));
+            }
+        });
+
+        //then
+        long total = (long) threads * updatesPerThread;
+        System.out.println("compute      = " + total * 1_000_000_000L / computeNanos + " updates/s, retries = " + repository.getRetryCount());
+        System.out.println("synchronized = " + total * 1_000_000_000L / synchronizedNanos + " updates/s");
+        for (long id = 0; id < hotMembers; id++) {
+            assertThat(repository.findVersioned(id).getName()).isEqualTo(String.valueOf(total / hotMembers));
+            assertThat(repository.findVersioned(id).getVersion()).isEqualTo(total / hotMembers + 1);
+            assertThat(plain.findById(id).getName()).isEqualTo(String.valueOf(total / hotMembers));
+        }
+    }
+
+    /**
+     * 이름을 수정 횟수로 사용하고 등급을 번갈아 바꾼다
+     */
+    private static Member increment(Member member) {
+        member.setName(String.valueOf(Long.parseLong(member.getName()) + 1));
+        member.setGrade(member.getGrade() == Grade.VIP ? Grade.BASIC : Grade.VIP);
+        return member;
+    }
+
+    private static long run(int threads, int iterations, LongConsumer task) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (long i = 0; i < iterations; i++) {
+                    task.accept(i);
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,181 @@
+package hello.springcorereview.member;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteBehindMemberRepositoryTest {
+
+    @Test
+    @DisplayName("저장되기 전에도 최신 값이 조회되고, 같은 id 는 한 번만 저장된다")
+    void readYourWritesAndMerge() throws InterruptedException {
+        //given
+        RecordingRepository backend = new RecordingRepository();
+        WriteBehindMemberRepository repository = new WriteBehindMemberRepository(backend, 100, 100, 1, TimeUnit.MINUTES);
+        repository.start();
+
+        //when
+        repository.save(new Member(1L, "before", Grade.BASIC));
+        repository.save(new Member(1L, "after", Grade.VIP));
+
+        //then
+        assertThat(repository.findById(1L).getName()).isEqualTo("after");
+        assertThat(backend.findById(1L)).isNull();
+        assertThat(repository.getMergedWriteCount()).isEqualTo(1);
+
+        repository.close();
+        assertThat(backend.findById(1L).getName()).isEqualTo("after");
+        assertThat(backend.saveCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("batchSize 만큼 모이면 한 번에 저장한다")
+    void flushBySize() throws InterruptedException {
+        //given
+        RecordingRepository backend = new RecordingRepository();
+        WriteBehindMemberRepository repository = new WriteBehindMemberRepository(backend, 100, 10, 1, TimeUnit.MINUTES);
+        repository.start();
+
+        //when
+        for (long id = 1; id <= 30; id++) {
+            repository.save(new Member(id, "member" + id, Grade.BASIC));
+        }
+        repository.close();
+
+        //then
+        assertThat(backend.batchSizes).containsExactly(10, 10, 10);
+        assertThat(repository.getPendingCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("start 하지 않고 close 해도 예외가 발생하지 않고, 이후 save 는 거절된다")
+    void closeWithoutStart() throws InterruptedException {
+        //given
+        WriteBehindMemberRepository repository = new WriteBehindMemberRepository(new RecordingRepository(), 16, 8, 1, TimeUnit.MINUTES);
+
+        //when
+        repository.close();
+
+        //then
+        assertThatThrownBy(() -> repository.save(new Member(1L, "memberA", Grade.BASIC)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("대기열이 가득 차도 save 는 유실되지 않고, 컨테이너 종료시 @PreDestroy 로 모두 저장된다")
+    void flushOnContainerClose() {
+        //given
+        AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext(WriteBehindConfig.class);
+        MemberRepository repository = ac.getBean(WriteBehindMemberRepository.class);
+        RecordingRepository backend = ac.getBean(RecordingRepository.class);
+
+        //when
+        for (long id = 1; id <= 1000; id++) {
+            repository.save(new Member(id, "member" + id, Grade.VIP));
+        }
+        ac.close();
+
+        //then
+        assertThat(backend.store).hasSize(1000);
+        assertThat(backend.saveCount()).isEqualTo(1000);
+    }
+
+    @Configuration
+    static class WriteBehindConfig {
+
+        @Bean
+        public RecordingRepository backend() {
+            return new RecordingRepository();
+        }
+
+        @Bean
+        public WriteBehindMemberRepository writeBehindMemberRepository() {
+            return new WriteBehindMemberRepository(backend(), 16, 8, 10, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    @DisplayName("close 와 동시에 들어온 save 는 거절되거나 저장되어야 하고, 받아들인 값이 유실되면 안 된다")
+    void saveRacingClose() throws InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            //given
+            RecordingRepository backend = new RecordingRepository();
+            WriteBehindMemberRepository repository = new WriteBehindMemberRepository(backend, 64, 16, 1, TimeUnit.MILLISECONDS);
+            repository.start();
+            AtomicLong nextId = new AtomicLong();
+            List<Long> accepted = new CopyOnWriteArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                threads.add(new Thread(() -> {
+                    while (true) {
+                        long id = nextId.incrementAndGet();
+                        try {
+                            repository.save(new Member(id, "member" + id, Grade.BASIC));
+                        } catch (IllegalStateException e) {
+                            return;     //닫힌 뒤에는 거절된다
+                        }
+                        accepted.add(id);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+
+            //when
+            Thread.sleep(2);
+            repository.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            //then
+            assertThat(accepted).isNotEmpty();
+            for (Long id : accepted) {
+                assertThat(backend.findById(id)).isNotNull();
+            }
+            assertThat(repository.getPendingCount()).isZero();
+        }
+    }
+
+    static class RecordingRepository implements MemberRepository {
+
+        final Map<Long, Member> store = new ConcurrentHashMap<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void save(Member member) {
+            store.put(member.getId(), member);
+        }
+
+        @Override
+        public Member findById(Long memberId) {
+            return store.get(memberId);
+        }
+
+        @Override
+        public void saveAll(Iterable<Member> members) {
+            int size = 0;
+            for (Member member : members) {
+                save(member);
+                size++;
+            }
+            batchSizes.add(size);
+        }
+
+        int saveCount() {
+            return batchSizes.stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+}
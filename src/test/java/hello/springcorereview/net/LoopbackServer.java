@@ -0,0 +1,147 @@
+package hello.springcorereview.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PooledNetworkClient 테스트용 외부 서버 대역 (연결마다 스레드 하나, 블로킹 I/O)
+ * CALL 에는 "echo:" + 메시지로 응답하고, "fail" 이면 ERROR 로 응답한다.
+ * 한 번에 읽을 수 있는 요청을 모아서 거꾸로 된 순서로 응답한다.(correlation id 로 응답을 맞추는지 확인)
+ * 응답하기 전에 함께 읽은 요청 수(묶음 크기)를 기록해서, 응답을 기다리지 않고 여러 요청을 보냈는지 확인할 수 있다.
+ */
+class LoopbackServer {
+
+    private final ServerSocket serverSocket;
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+    volatile boolean answerPings = true;
+    volatile long delayMillis;
+    private final LongAdder batches = new LongAdder();
+    private final AtomicInteger maxBatchSize = new AtomicInteger();
+
+    LoopbackServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "loopback-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getConnectionCount() {
+        return sockets.size();
+    }
+
+    long getBatchCount() {
+        return batches.sum();
+    }
+
+    int getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void accept() {
+        try {
+            while (true) {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "loopback-handler");
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            //서버 종료
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                List<Frame> batch = new ArrayList<>();
+                do {
+                    batch.add(read(in));
+                } while (in.available() > 0 && batch.size() < 64);
+                batches.increment();
+                maxBatchSize.accumulateAndGet(batch.size(), Math::max);
+                if (delayMillis > 0) {
+                    Thread.sleep(delayMillis);
+                }
+                Collections.reverse(batch);
+                for (Frame frame : batch) {
+                    answer(frame, out);
+                }
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            //연결 종료
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    private Frame read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        long id = in.readLong();
+        byte type = in.readByte();
+        byte[] payload = new byte[length - PooledNetworkClient.HEADER_SIZE];
+        in.readFully(payload);
+        return new Frame(id, type, new String(payload, StandardCharsets.UTF_8));
+    }
+
+    private void answer(Frame frame, DataOutputStream out) throws IOException {
+        if (frame.type == PooledNetworkClient.PING) {
+            if (answerPings) {
+                write(out, frame.id, PooledNetworkClient.PONG, "");
+            }
+        } else if (frame.message.equals("fail")) {
+            write(out, frame.id, PooledNetworkClient.ERROR, "rejected");
+        } else {
+            write(out, frame.id, PooledNetworkClient.RESPONSE, "echo:" + frame.message);
+        }
+    }
+
+    private void write(DataOutputStream out, long id, byte type, String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(PooledNetworkClient.HEADER_SIZE + payload.length);
+        out.writeLong(id);
+        out.writeByte(type);
+        out.write(payload);
+    }
+
+    private static class Frame {
+
+        final long id;
+        final byte type;
+        final String message;
+
+        Frame(long id, byte type, String message) {
+            this.id = id;
+            this.type = type;
+            this.message = message;
+        }
+    }
+}
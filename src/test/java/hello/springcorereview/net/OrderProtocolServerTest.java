@@ -0,0 +1,99 @@
+package hello.springcorereview.net;
+
+import hello.springcorereview.discount.RateDiscountPolicy;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberServiceImpl;
+import hello.springcorereview.member.MemoryMemberRepository;
+import hello.springcorereview.order.Order;
+import hello.springcorereview.order.OrderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderProtocolServerTest {
+
+    MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+    OrderProtocolServer server = new OrderProtocolServer(
+            new OrderServiceImpl(memberRepository, new RateDiscountPolicy()), new MemberServiceImpl(memberRepository),
+            0, 2, 16 * 1024);
+    OrderProtocolClient client;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        server.start();
+        client = new OrderProtocolClient("localhost", server.getPort(), 16 * 1024);
+        client.connect();
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    @DisplayName("바이너리 프레임으로 주문을 생성하고 회원을 조회할 수 있어야 한다")
+    void roundTrip() throws IOException {
+        //given
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+
+        //when
+        Order order = client.createOrder(1L, "itemA", 10000);
+        Member member = client.findMember(1L);
+
+        //then
+        assertThat(order.getMemberId()).isEqualTo(1L);
+        assertThat(order.getItemName()).isEqualTo("itemA");
+        assertThat(order.getDiscountPrice()).isEqualTo(1000);
+        assertThat(member.getName()).isEqualTo("memberA");
+        assertThat(member.getGrade()).isEqualTo(Grade.VIP);
+        assertThat(client.findMember(2L)).isNull();
+    }
+
+    @Test
+    @DisplayName("한 연결에서 연달아 보낸 요청의 응답은 요청 순서대로 와야 한다")
+    void pipelining() throws IOException {
+        //given
+        int count = 2000;
+        for (long id = 1; id <= count; id++) {
+            memberRepository.save(new Member(id, "member" + id, id % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+
+        //when
+        for (long id = 1; id <= count; id++) {
+            client.sendCreateOrder(id, "item" + id, 10000);
+        }
+        client.flush();
+
+        //then
+        for (long id = 1; id <= count; id++) {
+            Order order = client.receiveOrder();
+            assertThat(order.getMemberId()).isEqualTo(id);
+            assertThat(order.getItemName()).isEqualTo("item" + id);
+            assertThat(order.getDiscountPrice()).isEqualTo(id % 2 == 0 ? 1000 : 0);
+        }
+        assertThat(server.getRequestCount()).isEqualTo(count);
+    }
+
+    @Test
+    @DisplayName("처리에 실패한 요청은 예외 내용 없이 오류로 응답하고 연결은 계속 사용할 수 있어야 한다")
+    void error() throws IOException {
+        //given
+        memberRepository.save(new Member(1L, "memberA", Grade.BASIC));
+
+        //when, then
+        assertThatThrownBy(() -> client.createOrder(99L, "itemA", 10000))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("server error : " + OrderProtocolServer.REQUEST_FAILED);
+        assertThat(client.createOrder(1L, "itemA", 10000).getDiscountPrice()).isZero();
+        assertThat(server.getErrorCount()).isEqualTo(1);
+        assertThat(server.getLastError()).contains("member not found : 99");
+    }
+}
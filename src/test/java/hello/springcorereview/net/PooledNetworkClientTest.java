@@ -0,0 +1,254 @@
+package hello.springcorereview.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PooledNetworkClientTest {
+
+    LoopbackServer server;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        server = new LoopbackServer();
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        server.close();
+    }
+
+    PooledNetworkClient client(int maxConnections, int maxInFlight, long healthCheckMillis) throws Exception {
+        PooledNetworkClient client = new PooledNetworkClient("localhost", server.getPort(),
+                maxConnections, maxInFlight, 1000, healthCheckMillis, TimeUnit.MILLISECONDS);
+        client.connect();
+        return client;
+    }
+
+    @Test
+    @DisplayName("동기 호출은 응답을 기다려서 반환하고 서버 오류는 예외가 되어야 한다")
+    void call() throws Exception {
+        //given
+        PooledNetworkClient client = client(2, 16, 60_000);
+
+        //when
+        String response = client.call("hello");
+
+        //then
+        assertThat(response).isEqualTo("echo:hello");
+        assertThatThrownBy(() -> client.call("fail"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("rejected");
+        client.disconnect();
+    }
+
+    @Test
+    @DisplayName("여러 요청을 한꺼번에 보내도 응답 순서와 관계없이 각 요청에 맞는 응답을 받아야 한다")
+    void pipelining() throws Exception {
+        //given
+        PooledNetworkClient client = client(4, 64, 60_000);
+
+        //when
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            futures.add(client.callAsync("message-" + i));
+        }
+
+        //then
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS)).isEqualTo("echo:message-" + i);
+        }
+        assertThat(client.getOpenConnectionCount()).isBetween(1, 4);
+        assertThat(server.getConnectionCount()).isLessThanOrEqualTo(4);
+        assertThat(client.getInFlightCount()).isZero();
+        client.disconnect();
+    }
+
+    @Test
+    @DisplayName("사용하지 않는 연결이 헬스체크에 응답하지 않으면 닫고 다음 요청에서 새로 연결해야 한다")
+    void healthCheck() throws Exception {
+        //given
+        PooledNetworkClient client = client(1, 16, 50);
+        server.answerPings = false;
+
+        //when
+        waitUntil(() -> client.getHealthCheckFailureCount() >= 1 && client.getOpenConnectionCount() == 0);
+        server.answerPings = true;
+        String response = client.call("after");
+
+        //then
+        assertThat(client.getConnectionsOpenedCount()).isGreaterThanOrEqualTo(2);
+        assertThat(response).isEqualTo("echo:after");
+        client.disconnect();
+    }
+
+    @Test
+    @DisplayName("종료할 때는 처리중인 요청의 응답을 받은 뒤 연결을 닫고 새 요청은 받지 않아야 한다")
+    void drainOnDisconnect() throws Exception {
+        //given
+        PooledNetworkClient client = client(2, 16, 60_000);
+        server.delayMillis = 200;
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(client.callAsync("slow-" + i));
+        }
+
+        //when
+        client.disconnect();
+
+        //then
+        for (int i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).getNow(null)).isEqualTo("echo:slow-" + i);
+        }
+        assertThat(client.getOpenConnectionCount()).isZero();
+        assertThatThrownBy(() -> client.callAsync("late").join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("종료와 동시에 보낸 요청도 응답을 받거나 실패해야 하고, 완료되지 않은 채로 남으면 안 된다")
+    void submitWhileDisconnecting() throws Exception {
+        //given
+        PooledNetworkClient client = client(2, 16, 60_000);
+        List<CompletableFuture<String>> futures = new CopyOnWriteArrayList<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> callers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread caller = new Thread(() -> {
+                while (!stop.get()) {
+                    CompletableFuture<String> future = client.callAsync("request");
+                    futures.add(future);
+                    if (future.isCompletedExceptionally()) {    //종료되어 바로 거절된 뒤에는 더 보내지 않는다
+                        return;
+                    }
+                }
+            });
+            caller.start();
+            callers.add(caller);
+        }
+        waitUntil(() -> futures.size() >= 1000);
+
+        //when
+        client.disconnect();
+        stop.set(true);
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        //then
+        waitUntil(() -> futures.stream().allMatch(CompletableFuture::isDone));
+        assertThat(futures.stream().allMatch(CompletableFuture::isDone)).isTrue();
+    }
+
+    @Test
+    @DisplayName("connect 하지 않은 클라이언트도 disconnect 할 수 있고, 요청은 실패해야 한다")
+    void disconnectWithoutConnect() throws Exception {
+        //given
+        PooledNetworkClient client = new PooledNetworkClient("localhost", server.getPort(),
+                1, 1, 1000, 60_000, TimeUnit.MILLISECONDS);
+
+        //when
+        client.disconnect();
+
+        //then
+        assertThatThrownBy(() -> client.callAsync("late").join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * 연결 하나의 동기 호출과 연결 풀 + 파이프라이닝의 처리량을 출력한다.
+     * 결과가 실행 환경(CPU 수, 부하)에 따라 크게 달라서 확인하는 값이 없으므로 단위 테스트에서 빼고 gradle benchmark 로 실행한다.
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("연결 하나의 동기 호출과 연결 풀 + 파이프라이닝의 처리량 비교")
+    void throughput() throws Exception {
+        int requests = 20_000;
+        PooledNetworkClient single = client(1, 1, 60_000);
+        PooledNetworkClient pooled = client(4, 128, 60_000);
+        for (int i = 0; i < 2_000; i++) {     //warmup
+            single.call("warmup");
+            pooled.callAsync("warmup");
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            single.call("request-" + i);
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<CompletableFuture<String>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(pooled.callAsync("request-" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        long pooledNanos = System.nanoTime() - start;
+
+        System.out.println("single synchronous connection = " + requests * 1_000_000_000L / singleNanos + " calls/s");
+        System.out.println("pooled pipelined (4 x 128)    = " + requests * 1_000_000_000L / pooledNanos + " calls/s");
+        single.disconnect();
+        pooled.disconnect();
+    }
+
+    @Test
+    @DisplayName("파이프라이닝은 응답을 기다리지 않고 한 연결로 여러 요청을 보내서 요청보다 적은 왕복으로 처리해야 한다")
+    void pipelinedRoundTrips() throws Exception {
+        //given
+        int requests = 32;
+        PooledNetworkClient client = client(1, requests, 60_000);
+        server.delayMillis = 100;   //서버가 첫 묶음을 붙잡고 있는 동안 나머지 요청이 도착한다
+
+        //when
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(client.callAsync("request-" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        //then
+        assertThat(server.getConnectionCount()).isEqualTo(1);
+        assertThat(server.getMaxBatchSize()).isGreaterThan(1);
+        assertThat(server.getBatchCount()).isLessThan(requests);
+        client.disconnect();
+    }
+
+    @Test
+    @DisplayName("연결당 처리중 요청이 1 이면 응답을 받은 뒤에 다음 요청을 보내야 한다")
+    void noPipeliningWithSingleInFlight() throws Exception {
+        //given
+        int requests = 32;
+        PooledNetworkClient client = client(1, 1, 60_000);
+
+        //when
+        for (int i = 0; i < requests; i++) {
+            assertThat(client.call("request-" + i)).isEqualTo("echo:request-" + i);
+        }
+
+        //then
+        assertThat(server.getMaxBatchSize()).isEqualTo(1);
+        assertThat(server.getBatchCount()).isEqualTo(requests);
+        client.disconnect();
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
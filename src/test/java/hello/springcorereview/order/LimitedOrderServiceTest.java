@@ -0,0 +1,127 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.common.ConcurrencyLimiter;
+import hello.springcorereview.common.OverloadException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LimitedOrderServiceTest {
+
+    @Test
+    @DisplayName("저장소가 느려지면 한도를 줄여서 넘치는 주문은 기다리지 않고 거절해야 한다")
+    void shedLoadWhenSlow() {
+        //given 시계를 직접 움직여서 지연시간을 정한다
+        AtomicLong now = new AtomicLong();
+        List<CompletableFuture<Order>> pending = new ArrayList<>();
+        OrderService delegate = new StubOrderService() {
+            @Override
+            public CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice) {
+                CompletableFuture<Order> future = new CompletableFuture<>();
+                pending.add(future);
+                return future;
+            }
+        };
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("createOrder", 16, 1, 64, 10, TimeUnit.MILLISECONDS, 0.9, now::get);
+        OrderService limited = new LimitedOrderService(delegate, limiter);
+
+        //when 받아들인 주문이 모두 20ms 뒤에 한꺼번에 끝난다
+        int slowAccepted = submit(limited, 20);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        complete(pending);
+
+        //then 한꺼번에 끝난 느린 호출은 한도를 한 번만 줄인다 (16 * 0.9)
+        assertThat(slowAccepted).isEqualTo(16);
+        assertThat(limiter.getLimit()).isEqualTo(14);
+
+        //when 다음 구간도 느리다
+        int stillSlowAccepted = submit(limited, 20);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+        complete(pending);
+
+        //then 줄어든 한도를 넘는 주문은 거절된다 (14 * 0.9)
+        assertThat(stillSlowAccepted).isEqualTo(14);
+        assertThat(limiter.getLimit()).isEqualTo(12);
+
+        //when 저장소가 다시 빨라진다
+        int fastAccepted = submit(limited, 20);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        complete(pending);
+
+        //then
+        assertThat(fastAccepted).isEqualTo(12);
+        assertThat(limiter.getLimit()).isGreaterThan(12);
+        assertThat(limiter.getRejectedCount()).isEqualTo(4 + 6 + 8);
+        assertThat(limiter.getSlowCallCount()).isEqualTo(16 + 14);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    @DisplayName("비동기 주문은 future 가 완료될 때까지 한도를 차지하고, 한도에 도달하면 실패한 future 를 반환해야 한다")
+    void createOrderAsync() {
+        //given
+        CompletableFuture<Order> pending = new CompletableFuture<>();
+        OrderService delegate = new StubOrderService() {
+            @Override
+            public CompletableFuture<Order> createOrderAsync(Long memberId, String itemName, int itemPrice) {
+                return pending;
+            }
+        };
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter("createOrder", 1, 1, 1, 10, TimeUnit.MILLISECONDS, 0.9);
+        OrderService limited = new LimitedOrderService(delegate, limiter);
+
+        //when
+        CompletableFuture<Order> first = limited.createOrderAsync(1L, "itemA", 10000);
+        CompletableFuture<Order> rejected = limited.createOrderAsync(1L, "itemA", 10000);
+        pending.complete(new Order(1L, "itemA", 10000, 0));
+
+        //then
+        assertThat(first.join().getItemName()).isEqualTo("itemA");
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(OverloadException.class);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    /**
+     * @return 거절되지 않은 주문 수
+     */
+    private static int submit(OrderService orderService, int count) {
+        int accepted = 0;
+        for (int i = 0; i < count; i++) {
+            if (!orderService.createOrderAsync(1L, "itemA", 10000).isCompletedExceptionally()) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private static void complete(List<CompletableFuture<Order>> pending) {
+        for (CompletableFuture<Order> future : pending) {
+            future.complete(new Order(1L, "itemA", 10000, 0));
+        }
+        pending.clear();
+    }
+
+    /**
+     * 동기 주문은 바로 처리한다. 각 테스트는 createOrderAsync 를 재정의해서 주문이 끝나는 시점을 직접 정한다.
+     */
+    static class StubOrderService implements OrderService {
+
+        @Override
+        public Order createOrder(Long memberId, String itemName, int itemPrice) {
+            return new Order(memberId, itemName, itemPrice, 0);
+        }
+
+        @Override
+        public void priceOrder(long memberId, int itemPrice, OrderPrice result) {
+            result.set(memberId, itemPrice, 0);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package hello.springcorereview.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberOrderIndexTest {
+
+    MemberOrderIndex index = new MemberOrderIndex(100);
+
+    @Test
+    @DisplayName("최신 주문부터 커서로 페이지를 나눠 조회하고, 조회 도중 주문이 추가되어도 항목이 밀리지 않아야 한다")
+    void pagination() {
+        //given
+        for (long orderId = 1; orderId <= 25; orderId++) {
+            index.add(1L, orderId);
+        }
+
+        //when
+        MemberOrderIndex.Page first = index.findRecent(1L, MemberOrderIndex.FIRST_PAGE, 10);
+        index.add(1L, 26L);     //첫 페이지를 받은 뒤에 추가된 주문
+        MemberOrderIndex.Page second = index.findRecent(1L, first.getNextCursor(), 10);
+        MemberOrderIndex.Page third = index.findRecent(1L, second.getNextCursor(), 10);
+
+        //then
+        assertThat(first.getOrderIds()).containsExactly(25, 24, 23, 22, 21, 20, 19, 18, 17, 16);
+        assertThat(second.getOrderIds()).containsExactly(15, 14, 13, 12, 11, 10, 9, 8, 7, 6);
+        assertThat(third.getOrderIds()).containsExactly(5, 4, 3, 2, 1);
+        assertThat(third.hasNext()).isFalse();
+        assertThat(index.findRecent(1L, MemberOrderIndex.FIRST_PAGE, 1).getOrderIds()).containsExactly(26);
+        assertThat(index.findRecent(2L, MemberOrderIndex.FIRST_PAGE, 10).getOrderIds()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("회원별 상한을 넘으면 가장 오래된 주문부터 조회되지 않아야 한다")
+    void perMemberCap() {
+        //given
+        for (long orderId = 1; orderId <= 250; orderId++) {
+            index.add(1L, orderId);
+        }
+
+        //when
+        List<Long> all = new ArrayList<>();
+        long cursor = MemberOrderIndex.FIRST_PAGE;
+        while (cursor != MemberOrderIndex.NO_MORE) {
+            MemberOrderIndex.Page page = index.findRecent(1L, cursor, 30);
+            for (long orderId : page.getOrderIds()) {
+                all.add(orderId);
+            }
+            cursor = page.getNextCursor();
+        }
+
+        //then
+        assertThat(all).hasSize(100);
+        assertThat(all.get(0)).isEqualTo(250L);
+        assertThat(all.get(99)).isEqualTo(151L);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 같은 회원에 동시에 추가해도 빠지는 주문이 없어야 한다")
+    void concurrentAppend() throws InterruptedException {
+        //given
+        MemberOrderIndex large = new MemberOrderIndex(1_000_000);
+        int threads = 8;
+        int perThread = 50_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long base = (long) t * perThread;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    large.add(i % 4, base + i);
+                }
+            }));
+        }
+
+        //when
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        //then
+        Set<Long> orderIds = new HashSet<>();
+        for (long memberId = 0; memberId < 4; memberId++) {
+            for (long orderId : large.findRecent(memberId, MemberOrderIndex.FIRST_PAGE, Integer.MAX_VALUE).getOrderIds()) {
+                orderIds.add(orderId);
+            }
+        }
+        assertThat(orderIds).hasSize(threads * perThread);
+        assertThat(large.getMemberCount()).isEqualTo(4);
+    }
+}
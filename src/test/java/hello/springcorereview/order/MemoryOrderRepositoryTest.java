@@ -0,0 +1,190 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.discount.RateDiscountPolicy;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemoryMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemoryOrderRepositoryTest {
+
+    AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+    OrderIdGenerator generator = new OrderIdGenerator(1, clock::get);
+    MemoryOrderRepository repository = new MemoryOrderRepository(1, 0, TimeUnit.MINUTES);
+
+    @Test
+    @DisplayName("id 로 조회하고 생성 시각 범위로 id 순서대로 조회할 수 있어야 한다")
+    void findByIdAndRange() {
+        //given
+        List<Order> orders = new ArrayList<>();
+        for (int minute = 0; minute < 5; minute++) {
+            orders.add(order("item" + minute));
+            clock.addAndGet(TimeUnit.MINUTES.toMillis(1));
+        }
+        long base = OrderIdGenerator.timestampOf(orders.get(0).getId());
+
+        //when
+        List<Order> range = repository.findByTimeRange(base + TimeUnit.MINUTES.toMillis(1), base + TimeUnit.MINUTES.toMillis(3));
+
+        //then
+        assertThat(repository.findById(orders.get(2).getId())).isSameAs(orders.get(2));
+        assertThat(repository.findById(generator.next())).isNull();
+        assertThat(range).containsExactly(orders.get(1), orders.get(2));
+        assertThat(repository.getPartitionCount()).isEqualTo(5);
+        assertThatThrownBy(() -> repository.save(new Order(1L, "noId", 1000, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("오래된 구간은 partition 단위로 버리고, retention 을 주면 새 구간을 만들 때 함께 버려야 한다")
+    void dropOldPartitions() {
+        //given
+        MemoryOrderRepository retained = new MemoryOrderRepository(1, 3, TimeUnit.MINUTES);
+        List<Order> orders = new ArrayList<>();
+        for (int minute = 0; minute < 10; minute++) {
+            Order order = order("item" + minute);
+            retained.save(order);
+            orders.add(order);
+            clock.addAndGet(TimeUnit.MINUTES.toMillis(1));
+        }
+
+        //when
+        long dropped = repository.dropBefore(OrderIdGenerator.timestampOf(orders.get(5).getId()));
+
+        //then
+        assertThat(dropped).isEqualTo(5);
+        assertThat(repository.size()).isEqualTo(5);
+        assertThat(repository.findById(orders.get(4).getId())).isNull();
+        assertThat(repository.findById(orders.get(5).getId())).isNotNull();
+        assertThat(retained.getPartitionCount()).isLessThanOrEqualTo(4);
+        assertThat(retained.findById(orders.get(9).getId())).isNotNull();
+        assertThat(retained.findById(orders.get(0).getId())).isNull();
+    }
+
+    @Test
+    @DisplayName("이미 버린 구간의 주문이 늦게 저장되면 partition 을 다시 만들지 않고 무시해야 한다")
+    void ignoreLateSaveIntoDroppedPartition() {
+        //given
+        MemoryOrderRepository retained = new MemoryOrderRepository(1, 3, TimeUnit.MINUTES);
+        Order late = new Order(1L, "late", 10000, 0);
+        late.setId(generator.next());     //id 는 먼저 만들고 저장은 늦게 한다
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(10));
+        retained.save(order("recent"));     //retention 이 지난 구간을 버린다
+
+        //when
+        retained.save(late);
+
+        //then
+        assertThat(retained.findById(late.getId())).isNull();
+        assertThat(retained.getPartitionCount()).isEqualTo(1);
+        assertThat(retained.size()).isEqualTo(1);
+        assertThat(retained.getExpiredSaveCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("저장과 오래된 구간 버리기가 동시에 일어나도 주문 수는 남아 있는 주문 수와 같아야 한다")
+    void saveDuringDrop() throws InterruptedException {
+        //given
+        long base = clock.get();
+        int perThread = 20_000;
+        List<Thread> savers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long node = t;
+            savers.add(new Thread(() -> {
+                AtomicLong now = new AtomicLong(base);
+                OrderIdGenerator ids = new OrderIdGenerator(node, now::get);
+                for (int i = 0; i < perThread; i++) {
+                    now.set(base + TimeUnit.MINUTES.toMillis(i / 1000));    //1000 건마다 다음 구간
+                    Order order = new Order(1L, "item", 10000, 1000);
+                    order.setId(ids.next());
+                    repository.save(order);
+                }
+            }));
+        }
+
+        //when
+        savers.forEach(Thread::start);
+        while (savers.stream().anyMatch(Thread::isAlive)) {
+            repository.dropBefore(clock.get() + TimeUnit.MINUTES.toMillis(5));
+            clock.addAndGet(TimeUnit.MINUTES.toMillis(1));
+        }
+        for (Thread saver : savers) {
+            saver.join();
+        }
+
+        //then
+        long remaining = repository.findByTimeRange(base, base + TimeUnit.MINUTES.toMillis(perThread / 1000 + 1)).size();
+        assertThat(repository.size()).isEqualTo(remaining);
+    }
+
+    @Test
+    @DisplayName("주문 서비스에 id 생성기와 저장소를 주입하면 생성한 주문을 id 로 다시 조회할 수 있어야 한다")
+    void createOrder() {
+        //given
+        MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderIdGenerator(new OrderIdGenerator(0));
+        orderService.setOrderRepository(repository);
+
+        //when
+        Order order = orderService.createOrder(1L, "itemA", 10000);
+
+        //then
+        assertThat(order.getId()).isNotNull();
+        assertThat(repository.findById(order.getId())).isSameAs(order);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("스레드 수별 저장 속도를 측정한다")
+    void insertionRate() throws InterruptedException {
+        //given
+        OrderIdGenerator realtime = new OrderIdGenerator(1);
+        int perThread = 200_000;
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            MemoryOrderRepository target = new MemoryOrderRepository(1, 0, TimeUnit.MINUTES);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Order order = new Order(1L, "item", 10000, 1000);
+                        order.setId(realtime.next());
+                        target.save(order);
+                    }
+                }));
+            }
+
+            //when
+            long start = System.nanoTime();
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            //then
+            System.out.println(threads + " threads : " + (long) threads * perThread * 1_000_000_000L / elapsedNanos + " orders/s");
+            assertThat(target.size()).isEqualTo((long) threads * perThread);
+        }
+    }
+
+    private Order order(String itemName) {
+        Order order = new Order(1L, itemName, 10000, 1000);
+        order.setId(generator.next());
+        repository.save(order);
+        return order;
+    }
+}
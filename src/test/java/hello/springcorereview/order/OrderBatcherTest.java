@@ -0,0 +1,270 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.common.LongHistogram;
+import hello.springcorereview.discount.RateDiscountPolicy;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemoryMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderBatcherTest {
+
+    static final int THREADS = 32;
+    static final long ROUND_TRIP_MICROS = 200;
+
+    @Test
+    @DisplayName("비동기 주문은 묶음마다 회원을 한 번에 조회하고, 없는 회원의 주문만 실패해야 한다")
+    void createOrderAsync() throws InterruptedException {
+        //given
+        RemoteMemberRepository memberRepository = new RemoteMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        memberRepository.save(new Member(2L, "memberB", Grade.BASIC));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setBatchOptions(11, TimeUnit.SECONDS.toMicros(10), 1024);     //11 건이 모이면 기다리지 않고 처리한다
+
+        //when
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(orderService.createOrderAsync(i % 2 == 0 ? 1L : 2L, "itemA", 10000));
+        }
+        CompletableFuture<Order> missing = orderService.createOrderAsync(3L, "itemA", 10000);
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        //then
+        assertThat(futures.get(0).join().getDiscountPrice()).isEqualTo(1000);
+        assertThat(futures.get(1).join().getDiscountPrice()).isZero();
+        assertThatThrownBy(missing::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(orderService.getOrderBatcher().getBatchCount()).isEqualTo(1);
+        assertThat(memberRepository.roundTrips.sum()).isEqualTo(1);
+        orderService.close();
+        assertThatThrownBy(() -> orderService.createOrderAsync(1L, "itemA", 10000).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("memberId 가 null 인 주문만 실패하고 같은 묶음의 다른 주문은 처리되어야 한다")
+    void nullMemberIdInBatch() throws InterruptedException {
+        //given
+        RemoteMemberRepository memberRepository = new RemoteMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        memberRepository.save(new Member(2L, "memberB", Grade.BASIC));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setBatchOptions(2, TimeUnit.SECONDS.toMicros(10), 1024);      //2 건이 모이면 기다리지 않고 처리한다
+
+        //when
+        CompletableFuture<Order> first = orderService.createOrderAsync(1L, "itemA", 10000);
+        CompletableFuture<Order> nullMember = orderService.createOrderAsync(null, "itemA", 10000);
+        CompletableFuture<Order> second = orderService.createOrderAsync(2L, "itemA", 10000);
+
+        //then
+        assertThatThrownBy(nullMember::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(first.join().getDiscountPrice()).isEqualTo(1000);
+        assertThat(second.join().getDiscountPrice()).isZero();
+        assertThat(orderService.getOrderBatcher().getBatchCount()).isEqualTo(1);
+        assertThatThrownBy(() -> orderService.createOrder(null, "itemA", 10000))
+                .isInstanceOf(IllegalArgumentException.class);
+        orderService.close();
+    }
+
+    @Test
+    @DisplayName("묶음을 처리하는 동안 들어온 주문은 다음 묶음에서 한 번의 조회로 처리해야 한다")
+    void batchWhileBusy() throws Exception {
+        //given
+        RemoteMemberRepository memberRepository = new RemoteMemberRepository();
+        for (long id = 1; id <= 10; id++) {
+            memberRepository.save(new Member(id, "member" + id, Grade.VIP));
+        }
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setBatchOptions(64, 0, 1024);      //기다리지 않고 큐에 있는 만큼 처리한다
+        memberRepository.gate = new CountDownLatch(1);
+
+        //when
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        futures.add(orderService.createOrderAsync(1L, "itemA", 10000));
+        assertThat(memberRepository.entered.await(5, TimeUnit.SECONDS)).isTrue();     //첫 묶음이 조회 중이다
+        for (long id = 1; id <= 10; id++) {
+            futures.add(orderService.createOrderAsync(id, "itemA", 10000));
+        }
+        memberRepository.gate.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        //then
+        OrderBatcher batcher = orderService.getOrderBatcher();
+        assertThat(batcher.getBatchCount()).isEqualTo(2);
+        assertThat(batcher.getBatchedRequestCount()).isEqualTo(11);
+        assertThat(memberRepository.roundTrips.sum()).isEqualTo(2);
+        orderService.close();
+    }
+
+    @Test
+    @DisplayName("submit 과 close 가 겹쳐도 받은 요청은 모두 완료되거나 실패해야 한다")
+    void closeWhileSubmitting() throws InterruptedException {
+        for (int round = 0; round < 200; round++) {
+            //given
+            OrderBatcher batcher = new OrderBatcher(16, 0, TimeUnit.MICROSECONDS, 1024,
+                    batch -> batch.forEach(request -> request.getFuture().complete(null)));
+            List<CompletableFuture<Order>> futures = new ArrayList<>();
+            Thread submitter = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    futures.add(batcher.submit(1L, "itemA", 10000));
+                }
+            });
+
+            //when
+            submitter.start();
+            batcher.close();
+            submitter.join();
+
+            //then
+            for (CompletableFuture<Order> future : futures) {
+                assertThat(future.isDone()).isTrue();
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("왕복 비용이 있는 저장소에서 주문마다 조회할 때와 묶음으로 조회할 때의 처리량과 지연시간을 비교한다")
+    void throughputAndLatency() throws InterruptedException {
+        //given
+        RemoteMemberRepository memberRepository = new RemoteMemberRepository();
+        for (long id = 1; id <= 1000; id++) {
+            memberRepository.save(new Member(id, "member" + id, id % 10 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setBatchOptions(64, ROUND_TRIP_MICROS, 4096);
+
+        //when
+        Result sync = run(() -> orderService.createOrder(nextMemberId(), "itemA", 10000), 1000);
+        long syncRoundTrips = memberRepository.roundTrips.sumThenReset();
+        Result batched = run(() -> orderService.createOrderAsync(nextMemberId(), "itemA", 10000).join(), 1000);
+        long batchedRoundTrips = memberRepository.roundTrips.sumThenReset();
+        OrderBatcher batcher = orderService.getOrderBatcher();
+
+        //then
+        System.out.println("createOrder      : " + sync + ", round trips = " + syncRoundTrips);
+        System.out.println("createOrderAsync : " + batched + ", round trips = " + batchedRoundTrips
+                + ", average batch = " + String.format("%.1f", batcher.getAverageBatchSize()));
+        assertThat(syncRoundTrips).isEqualTo(sync.orders.sum());                //주문마다 한 번
+        assertThat(batchedRoundTrips).isEqualTo(batcher.getBatchCount());        //묶음마다 한 번
+        assertThat(batcher.getBatchedRequestCount()).isEqualTo(batched.orders.sum());
+        assertThat(batcher.getAverageBatchSize()).isLessThanOrEqualTo(64.0);
+        orderService.close();
+    }
+
+    private static long nextMemberId() {
+        return ThreadLocalRandom.current().nextLong(1, 1001);
+    }
+
+    /**
+     * THREADS 개 스레드가 durationMillis 동안 주문을 하나씩 보내고 응답을 받으면 바로 다음 주문을 보낸다.
+     */
+    private static Result run(Runnable order, long durationMillis) throws InterruptedException {
+        Result result = new Result(durationMillis);
+        long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    order.run();
+                    result.latency.record(System.nanoTime() - start);
+                    result.orders.increment();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return result;
+    }
+
+    static class Result {
+        final long durationMillis;
+        final LongHistogram latency = new LongHistogram();
+        final LongAdder orders = new LongAdder();
+
+        Result(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            return orders.sum() * 1000 / durationMillis + " orders/s"
+                    + ", p50 = " + latency.getValueAtPercentile(50) / 1000 + "us"
+                    + ", p99 = " + latency.getValueAtPercentile(99) / 1000 + "us"
+                    + ", p99.9 = " + latency.getValueAtPercentile(99.9) / 1000 + "us";
+        }
+    }
+
+    /**
+     * 조회마다 ROUND_TRIP_MICROS 가 걸리고 동시에 2건까지만 조회할 수 있는 원격 저장소를 흉내낸다.
+     * findAllById 는 여러 회원을 한 번의 왕복으로 조회한다.
+     * gate 를 주면 조회를 시작한 뒤(entered) gate 가 열릴 때까지 응답하지 않는다.
+     */
+    static class RemoteMemberRepository extends MemoryMemberRepository {
+
+        final Semaphore connections = new Semaphore(2, true);
+        final LongAdder roundTrips = new LongAdder();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch gate;
+
+        @Override
+        public Member findById(Long memberId) {
+            roundTrip();
+            return super.findById(memberId);
+        }
+
+        @Override
+        public Map<Long, Member> findAllById(Collection<Long> memberIds) {
+            roundTrip();
+            Map<Long, Member> result = new HashMap<>();
+            for (Long memberId : memberIds) {
+                Member member = super.findById(memberId);
+                if (member != null) {
+                    result.put(memberId, member);
+                }
+            }
+            return result;
+        }
+
+        private void roundTrip() {
+            connections.acquireUninterruptibly();
+            try {
+                roundTrips.increment();
+                entered.countDown();
+                if (gate != null) {
+                    gate.await();
+                }
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(ROUND_TRIP_MICROS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                connections.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package hello.springcorereview.order;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderIdGeneratorTest {
+
+    @Test
+    @DisplayName("id 에서 생성 시각과 노드를 꺼낼 수 있어야 한다")
+    void decode() {
+        //given
+        long now = System.currentTimeMillis();
+        OrderIdGenerator generator = new OrderIdGenerator(513, () -> now);
+
+        //when
+        long id = generator.next();
+
+        //then
+        assertThat(id).isPositive();
+        assertThat(OrderIdGenerator.timestampOf(id)).isEqualTo(now);
+        assertThat(OrderIdGenerator.nodeOf(id)).isEqualTo(513);
+        assertThat(OrderIdGenerator.minIdAt(now)).isLessThanOrEqualTo(id);
+        assertThat(OrderIdGenerator.minIdAt(now + 1)).isGreaterThan(id);
+        assertThatThrownBy(() -> new OrderIdGenerator(1024)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("1ms 에 순번을 다 쓰거나 시계가 뒤로 가도 id 는 증가해야 한다")
+    void sequenceOverflowAndClockBackwards() {
+        //given
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        OrderIdGenerator generator = new OrderIdGenerator(1, clock::get);
+
+        //when
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(generator.next());
+        }
+        clock.addAndGet(-5_000);
+        ids.add(generator.next());
+
+        //then
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(ids.get(i)).isGreaterThan(ids.get(i - 1));
+        }
+        assertThat(OrderIdGenerator.timestampOf(ids.get(999)) - OrderIdGenerator.timestampOf(ids.get(0))).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 만들어도 id 가 중복되지 않아야 한다")
+    void unique() throws InterruptedException {
+        //given
+        OrderIdGenerator generator = new OrderIdGenerator(7);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.next());
+                }
+            }));
+        }
+
+        //when
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        //then
+        assertThat(ids).hasSize(4 * 10_000);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("여러 스레드가 동시에 만들어도 id 가 중복되지 않아야 하고, 스레드 수별 생성 속도를 측정한다")
+    void uniqueAcrossThreads() throws InterruptedException {
+        //given
+        OrderIdGenerator generator = new OrderIdGenerator(7);
+        int perThread = 200_000;
+        int maxThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            //when
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Thread(() -> {
+                    long[] local = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        local[i] = generator.next();
+                    }
+                    for (long id : local) {
+                        ids.add(id);
+                    }
+                }));
+            }
+            long start = System.nanoTime();
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            //then
+            System.out.println(threads + " threads : " + (long) threads * perThread * 1_000_000_000L / elapsedNanos + " ids/s (includes set insert)");
+            assertThat(ids).hasSize(threads * perThread);
+        }
+    }
+}
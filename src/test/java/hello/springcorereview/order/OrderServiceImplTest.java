@@ -1,15 +1,25 @@
 package hello.springcorereview.order;
 
 import hello.springcorereview.discount.FixDiscountPolicy;
+import hello.springcorereview.discount.RateDiscountPolicy;
 import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.GradeIndexingMemberRepository;
 import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberGradeIndex;
 import hello.springcorereview.member.MemoryMemberRepository;
+import hello.springcorereview.member.OffHeapMemberRepository;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class OrderServiceImplTest {
 
+    int lookups;
+
     /**
      * 생성자 주입을 사용
      * 누락 데이터의 경우 컴파일 오류를 통해 확인할 수 있다.
@@ -25,8 +35,146 @@ class OrderServiceImplTest {
         MemoryMemberRepository memberRepository = new MemoryMemberRepository();
         memberRepository.save(new Member(1L, "name", Grade.VIP));
 
-        OrderServiceImpl orderService = new OrderServiceImpl(new MemoryMemberRepository(), new FixDiscountPolicy());
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new FixDiscountPolicy());
         Order order = orderService.createOrder(1L, "itemA", 10000);
         assertThat(order.getDiscountPrice()).isEqualTo(1000);
     }
-}
\ No newline at end of file
+
+    /**
+     * 등급 색인을 갱신하는 저장소를 주입하면 회원 조회 없이 색인의 등급으로 할인한다. 색인에 없는 회원은 감싼 저장소에서 조회한다.
+     * 색인은 그 저장소의 save 로만 갱신되므로, 같은 저장소를 쓰는 서비스만 색인을 사용한다.
+     */
+    @Test
+    void createOrderWithGradeIndex() {
+        MemoryMemberRepository store = new MemoryMemberRepository() {
+            @Override
+            public Member findById(Long memberId) {
+                lookups++;
+                return super.findById(memberId);
+            }
+        };
+        GradeIndexingMemberRepository memberRepository = new GradeIndexingMemberRepository(store, new MemberGradeIndex(16));
+        memberRepository.save(new Member(1L, "name", Grade.VIP));
+        store.save(new Member(2L, "not indexed", Grade.VIP));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+
+        Order indexed = orderService.createOrder(1L, "itemA", 10000);
+        assertThat(lookups).isZero();
+        Order notIndexed = orderService.createOrder(2L, "itemA", 10000);
+        assertThat(lookups).isEqualTo(1);
+        memberRepository.save(new Member(1L, "name", Grade.BASIC));
+        Order downgraded = orderService.createOrder(1L, "itemA", 10000);
+
+        assertThat(indexed.getDiscountPrice()).isEqualTo(1000);
+        assertThat(notIndexed.getDiscountPrice()).isEqualTo(1000);
+        assertThat(downgraded.getDiscountPrice()).isZero();
+        assertThat(lookups).isEqualTo(1);
+        assertThatThrownBy(() -> orderService.createOrder(3L, "itemA", 10000))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        //색인을 갱신하지 않는 저장소를 쓰는 서비스는 저장소에서 조회한다
+        store.save(new Member(1L, "name", Grade.VIP));
+        OrderServiceImpl withoutIndex = new OrderServiceImpl(store, new RateDiscountPolicy());
+        assertThat(withoutIndex.createOrder(1L, "itemA", 10000).getDiscountPrice()).isEqualTo(1000);
+        assertThat(lookups).isEqualTo(3);
+    }
+
+    /**
+     * 묶음 주문도 저장소의 findGrades 로 등급을 읽으므로 색인에 있는 회원은 조회하지 않고, 없는 회원의 주문만 실패한다.
+     */
+    @Test
+    void createOrderAsyncWithGradeIndex() throws InterruptedException {
+        MemoryMemberRepository store = new MemoryMemberRepository() {
+            @Override
+            public Member findById(Long memberId) {
+                lookups++;
+                return super.findById(memberId);
+            }
+        };
+        GradeIndexingMemberRepository memberRepository = new GradeIndexingMemberRepository(store, new MemberGradeIndex(16));
+        memberRepository.save(new Member(1L, "name", Grade.VIP));
+        memberRepository.save(new Member(1L, "name", Grade.BASIC));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+
+        CompletableFuture<Order> basic = orderService.createOrderAsync(1L, "itemA", 10000);
+        CompletableFuture<Order> missing = orderService.createOrderAsync(2L, "itemA", 10000);
+
+        assertThat(basic.join().getDiscountPrice()).isZero();
+        assertThatThrownBy(missing::join).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThat(lookups).isEqualTo(1);   //색인에 없는 2L 만 조회한다
+        orderService.close();
+    }
+
+    /**
+     * 할인 계산은 저장소의 findGrade 로 등급만 읽는다. OffHeapMemberRepository 는 레코드를 역직렬화(findById)하지 않는다.
+     */
+    @Test
+    void createOrderWithOffHeapRepository() {
+        OffHeapMemberRepository memberRepository = new OffHeapMemberRepository(4 * 1024, 16, 0.5) {
+            @Override
+            public Member findById(Long memberId) {
+                lookups++;
+                return super.findById(memberId);
+            }
+        };
+        memberRepository.save(new Member(1L, "name", Grade.VIP));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+
+        Order order = orderService.createOrder(1L, "itemA", 10000);
+        OrderPrice price = new OrderPrice();
+        orderService.priceOrder(1L, 20000, price);
+
+        assertThat(order.getDiscountPrice()).isEqualTo(1000);
+        assertThat(price.getDiscountPrice()).isEqualTo(2000);
+        assertThat(lookups).isZero();
+        assertThatThrownBy(() -> orderService.createOrder(2L, "itemA", 10000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("member not found : 2");
+    }
+
+    /**
+     * 스레드별 할당량(com.sun.management.ThreadMXBean)으로 priceOrder 가 객체를 할당하지 않는지 확인한다.
+     * memberId 는 Long 캐시 범위(-128 ~ 127) 안의 값을 사용해서 autoboxing 할당이 생기지 않게 한다.
+     * 측정에 사용하는 ThreadMXBean 호출 자체도 약간 할당하므로 0 byte 가 아니라 호출당 평균으로 확인한다.
+     */
+    @Test
+    void priceOrderAllocatesNothing() {
+        MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+        memberRepository.save(new Member(1L, "name", Grade.VIP));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        OrderPrice result = new OrderPrice();
+
+        int iterations = 100_000;
+        for (int i = 0; i < iterations; i++) {  //warm up
+            orderService.priceOrder(1L, 10000, result);
+            orderService.createOrder(1L, "itemA", 10000);
+        }
+
+        long priceOrderBytes = allocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                orderService.priceOrder(1L, 10000, result);
+            }
+        });
+        long createOrderBytes = allocatedBytes(() -> {
+            for (int i = 0; i < iterations; i++) {
+                orderService.createOrder(1L, "itemA", 10000);
+            }
+        });
+        System.out.println("priceOrder allocated = " + priceOrderBytes + " bytes, createOrder allocated = " + createOrderBytes + " bytes");
+
+        assertThat(result.calculatePrice()).isEqualTo(9000);
+        //JIT 의 escape analysis 에 기대지 않는 느슨한 기준으로 확인한다. (-Xint, C1 만 사용하는 경우에도 성립)
+        //priceOrder 에는 할당하는 코드가 없으므로 호출 1번당 객체 하나(최소 16 byte)보다 작아야 하고,
+        //주문마다 Order 를 만드는 createOrder 보다 적게 할당해야 한다.
+        assertThat(priceOrderBytes / iterations).isLessThan(16L);
+        assertThat(priceOrderBytes).isLessThan(createOrderBytes);
+    }
+
+    private static long allocatedBytes(Runnable task) {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        task.run();
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+}
@@ -6,6 +6,8 @@ import hello.springcorereview.member.Member;
 import hello.springcorereview.member.MemberService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -14,11 +16,16 @@ class OrderServiceTest {
     MemberService memberService;
     OrderService orderService;
 
+    /**
+     * MemoryMemberRepository 는 인스턴스마다 저장소를 가진다.
+     * AppConfig 를 직접 호출하면 memberRepository() 를 부를 때마다 새 저장소가 만들어지기 때문에
+     * 스프링 컨테이너를 통해 같은 memberRepository 를 공유하도록 한다.
+     */
     @BeforeEach
     void beforeEach() {
-        AppConfig appConfig = new AppConfig();
-        memberService = appConfig.memberService();
-        orderService = appConfig.orderService();
+        ApplicationContext ac = new AnnotationConfigApplicationContext(AppConfig.class);
+        memberService = ac.getBean("memberService", MemberService.class);
+        orderService = ac.getBean("orderService", OrderService.class);
     }
 
     @Test
@@ -0,0 +1,96 @@
+package hello.springcorereview.order;
+
+import hello.springcorereview.discount.RateDiscountPolicy;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemoryMemberRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatisticsTest {
+
+    AtomicLong clock = new AtomicLong(1_000_000_000L);
+    OrderStatistics statistics = new OrderStatistics(clock::get);
+
+    @Test
+    @DisplayName("창마다 등급별 주문 수, 매출, 할인 금액을 집계하고 창을 벗어난 구간은 빠져야 한다")
+    void windows() {
+        //given
+        statistics.record(Grade.VIP, 10000, 1000);
+        statistics.record(Grade.BASIC, 20000, 0);
+
+        //when
+        Map<String, OrderStatistics.WindowStats> now = statistics.snapshot();
+        clock.addAndGet(2_000);
+        Map<String, OrderStatistics.WindowStats> after2s = statistics.snapshot();
+        clock.addAndGet(16 * 60_000);
+        Map<String, OrderStatistics.WindowStats> after16m = statistics.snapshot();
+
+        //then
+        OrderStatistics.WindowStats second = now.get("1s");
+        assertThat(second.getOrders()).isEqualTo(2);
+        assertThat(second.getRevenue()).isEqualTo(9000 + 20000);
+        assertThat(second.getDiscount()).isEqualTo(1000);
+        assertThat(second.getByGrade().get(Grade.VIP).getDiscount()).isEqualTo(1000);
+        assertThat(second.getByGrade().get(Grade.BASIC).getRevenue()).isEqualTo(20000);
+
+        assertThat(after2s.get("1s").getOrders()).isZero();
+        assertThat(after2s.get("1m").getOrders()).isEqualTo(2);
+        assertThat(after2s.get("15m").getOrders()).isEqualTo(2);
+        assertThat(after16m.get("15m").getOrders()).isZero();
+    }
+
+    @Test
+    @DisplayName("여러 스레드가 동시에 기록해도 빠짐없이 집계되어야 한다")
+    void concurrentRecord() throws InterruptedException {
+        //given
+        int threads = 8;
+        int perThread = 100_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Grade grade = t % 2 == 0 ? Grade.VIP : Grade.BASIC;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    statistics.record(grade, 100, 10);
+                }
+            }));
+        }
+
+        //when
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        //then
+        OrderStatistics.WindowStats minute = statistics.snapshot().get("1m");
+        assertThat(minute.getOrders()).isEqualTo((long) threads * perThread);
+        assertThat(minute.getRevenue()).isEqualTo((long) threads * perThread * 90);
+        assertThat(minute.getByGrade().get(Grade.VIP).getOrders()).isEqualTo((long) threads / 2 * perThread);
+    }
+
+    @Test
+    @DisplayName("주문 서비스에 주입하면 주문을 생성할 때마다 집계되어야 한다")
+    void createOrder() {
+        //given
+        MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        OrderServiceImpl orderService = new OrderServiceImpl(memberRepository, new RateDiscountPolicy());
+        orderService.setOrderStatistics(statistics);
+
+        //when
+        orderService.createOrder(1L, "itemA", 10000);
+
+        //then
+        OrderStatistics.WindowStats second = statistics.snapshot().get("1s");
+        assertThat(second.getByGrade().get(Grade.VIP).getOrders()).isEqualTo(1);
+        assertThat(second.getByGrade().get(Grade.VIP).getDiscount()).isEqualTo(1000);
+    }
+}
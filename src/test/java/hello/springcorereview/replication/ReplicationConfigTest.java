@@ -0,0 +1,62 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.SpringCoreReviewApplication;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberService;
+import hello.springcorereview.order.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 스프링 부트로 리더와 팔로워를 띄워서, 이름으로 조회하는 서비스(memberService, orderService)가 복제 저장소를 사용하는지 확인한다.
+ */
+class ReplicationConfigTest {
+
+    @Test
+    @DisplayName("리더의 memberService 로 가입한 회원은 팔로워의 memberService, orderService 에서 조회할 수 있어야 한다")
+    void joinOnLeaderVisibleOnFollower() throws InterruptedException {
+        //given
+        try (ConfigurableApplicationContext leader = run("replication.role=leader", "replication.port=0");
+             ConfigurableApplicationContext follower = run("replication.role=follower",
+                     "replication.port=" + leader.getBean(ReplicationLeader.class).getPort())) {
+            MemberService leaderMemberService = leader.getBean("memberService", MemberService.class);
+            MemberService followerMemberService = follower.getBean("memberService", MemberService.class);
+
+            //when
+            leaderMemberService.join(new Member(1L, "memberA", Grade.VIP));
+            await(() -> followerMemberService.findMember(1L) != null);
+
+            //then
+            assertThat(leader.getBean(ReplicatedMemberRepository.class).getLog().getLastSequence()).isEqualTo(1);
+            assertThat(followerMemberService.findMember(1L).getName()).isEqualTo("memberA");
+            assertThat(follower.getBean("orderService", OrderService.class).createOrder(1L, "itemA", 10000).getDiscountPrice())
+                    .isEqualTo(1000);
+            assertThatThrownBy(() -> followerMemberService.join(new Member(2L, "memberB", Grade.BASIC)))
+                    .isInstanceOf(UnsupportedOperationException.class);
+        }
+    }
+
+    private static ConfigurableApplicationContext run(String... properties) {
+        return new SpringApplicationBuilder(SpringCoreReviewApplication.class)
+                .properties("server.port=0")
+                .properties(properties)
+                .run();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+}
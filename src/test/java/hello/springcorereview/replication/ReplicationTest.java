@@ -0,0 +1,265 @@
+package hello.springcorereview.replication;
+
+import hello.springcorereview.ReplicationNodeApp;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemoryMemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicationTest {
+
+    ReplicatedMemberRepository leaderRepository = new ReplicatedMemberRepository(new MemoryMemberRepository(), new ReplicationLog(100));
+    ReplicationLeader leader = new ReplicationLeader(leaderRepository, 0);
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        leader.start();
+    }
+
+    @AfterEach
+    void afterEach() throws Exception {
+        leader.close();
+    }
+
+    @Test
+    @DisplayName("tail 보다 오래된 팔로워는 스냅샷과 이후 로그로 따라잡고, 이후에는 로그만 받아야 한다")
+    void snapshotAndTail() throws Exception {
+        //given
+        saveMembers(0, 1000);
+        ReplicaMemberRepository replica = new ReplicaMemberRepository("localhost", leader.getPort());
+
+        //when
+        replica.start();
+        await(() -> replica.getAppliedSequence() == 1000);
+        saveMembers(1000, 1050);
+        leaderRepository.save(new Member(7L, "renamed", Grade.VIP));
+        await(() -> replica.getAppliedSequence() == 1051);
+
+        //then
+        assertThat(replica.getSnapshotCount()).isEqualTo(1);
+        assertThat(replica.size()).isEqualTo(1050);
+        assertThat(replica.findById(1049L).getName()).isEqualTo("member1049");
+        assertThat(replica.findById(7L).getName()).isEqualTo("renamed");
+        assertThat(replica.getLag()).isZero();
+        assertThat(replica.getLagMillis()).isZero();
+        assertThatThrownBy(() -> replica.save(new Member(1L, "x", Grade.BASIC)))
+                .isInstanceOf(UnsupportedOperationException.class);
+        replica.close();
+    }
+
+    @Test
+    @DisplayName("연결이 끊어진 팔로워는 다시 연결해서 놓친 로그부터 이어서 받아야 한다")
+    void reconnect() throws Exception {
+        //given
+        ReplicaMemberRepository replica = new ReplicaMemberRepository("localhost", leader.getPort());
+        replica.start();
+        saveMembers(0, 10);
+        await(() -> replica.getAppliedSequence() == 10);
+
+        //when
+        leader.disconnectFollowers();
+        saveMembers(10, 20);
+        await(() -> replica.getAppliedSequence() == 20);
+
+        //then
+        assertThat(replica.getReconnectCount()).isGreaterThanOrEqualTo(1);
+        assertThat(replica.getSnapshotCount()).isEqualTo(1);   //처음 연결할 때만 스냅샷을 받는다
+        assertThat(replica.findById(19L).getName()).isEqualTo("member19");
+        replica.close();
+    }
+
+    @Test
+    @DisplayName("리더는 항목 묶음을 보내기 전에 자신의 마지막 순번을 알려야 한다")
+    void heartbeatBeforeEntries() throws Exception {
+        //given
+        try (Socket socket = new Socket("localhost", leader.getPort())) {
+            socket.setSoTimeout(10_000);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeLong(0);
+            out.writeLong(0);
+            out.flush();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            assertThat(in.readByte()).isEqualTo(ReplicationLeader.SNAPSHOT);
+            in.readLong();
+            assertThat(in.readLong()).isZero();
+            assertThat(in.readInt()).isZero();
+
+            //when
+            saveMembers(0, 50);
+
+            //then
+            long leaderSequence = 0;
+            long received = 0;
+            while (received < 50) {
+                byte type = in.readByte();
+                if (type == ReplicationLeader.HEARTBEAT) {
+                    leaderSequence = in.readLong();
+                    in.readLong();
+                    continue;
+                }
+                assertThat(type).isEqualTo(ReplicationLeader.ENTRY);
+                received = in.readLong();
+                assertThat(leaderSequence).isGreaterThanOrEqualTo(received);
+                in.readLong();
+                in.readLong();
+                in.readUTF();
+                in.readByte();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("적용한 순번이 리더의 마지막 순번보다 뒤처져 있으면 lag 가 0 보다 커야 한다")
+    void lag() throws Exception {
+        //given
+        try (ServerSocket fakeLeader = new ServerSocket(0)) {
+            ReplicaMemberRepository replica = new ReplicaMemberRepository("localhost", fakeLeader.getLocalPort());
+            replica.start();
+
+            //when
+            try (Socket socket = fakeLeader.accept()) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                in.readLong();
+                in.readLong();
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                out.writeByte(ReplicationLeader.SNAPSHOT);
+                out.writeLong(1);
+                out.writeLong(0);
+                out.writeInt(0);
+                out.writeByte(ReplicationLeader.HEARTBEAT);   //리더는 10 까지 기록했고, 그중 3 개만 보낸다
+                out.writeLong(10);
+                out.writeLong(System.currentTimeMillis());
+                long writtenMillis = System.currentTimeMillis() - 1000;
+                for (long sequence = 1; sequence <= 3; sequence++) {
+                    out.writeByte(ReplicationLeader.ENTRY);
+                    out.writeLong(sequence);
+                    out.writeLong(writtenMillis);
+                    out.writeLong(sequence);
+                    out.writeUTF("member" + sequence);
+                    out.writeByte(Grade.VIP.code());
+                }
+                out.flush();
+                await(() -> replica.getAppliedSequence() == 3);
+
+                //then
+                assertThat(replica.getLeaderSequence()).isEqualTo(10);
+                assertThat(replica.getLag()).isEqualTo(7);
+                assertThat(replica.getLagMillis()).isGreaterThanOrEqualTo(1000);
+                replica.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("다른 JVM 의 팔로워들이 루프백으로 복제하고 로컬에서 조회할 수 있어야 한다")
+    void multipleJvms() throws Exception {
+        //given
+        leader.close();     //팔로워가 tail 을 놓치지 않도록 로그를 크게 잡은 리더를 사용한다
+        leaderRepository = new ReplicatedMemberRepository(new MemoryMemberRepository(), new ReplicationLog(100_000));
+        leader = new ReplicationLeader(leaderRepository, 0);
+        leader.start();
+        List<Node> followers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            followers.add(new Node("role=follower", "host=localhost", "port=" + leader.getPort()));
+        }
+
+        //when
+        long start = System.nanoTime();
+        saveMembers(0, 10_000);
+        for (Node follower : followers) {
+            assertThat(follower.command("await 10000", "applied")).isEqualTo("applied 10000");
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        //then
+        System.out.println("replicated 10000 saves to " + followers.size() + " JVMs in " + elapsedMillis + "ms");
+        for (Node follower : followers) {
+            assertThat(follower.command("get 4242", "member")).isEqualTo("member 4242 member4242 VIP");
+            assertThat(follower.command("status", "follower")).contains("lag=0");
+            follower.quit();
+        }
+        assertThat(leader.getSnapshotsSentCount()).isEqualTo(2);
+    }
+
+    private void saveMembers(int from, int to) {
+        for (int i = from; i < to; i++) {
+            leaderRepository.save(new Member((long) i, "member" + i, i % 2 == 0 ? Grade.VIP : Grade.BASIC));
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * ReplicationNodeApp 을 별도 JVM 으로 실행하고 표준 입출력으로 명령을 주고받는다
+     */
+    static class Node {
+
+        final Process process;
+        final PrintWriter writer;
+        final BufferedReader reader;
+
+        Node(String... options) throws IOException {
+            List<String> command = new ArrayList<>(List.of(
+                    System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                    "-cp", System.getProperty("java.class.path"), ReplicationNodeApp.class.getName()));
+            command.addAll(List.of(options));
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            writer = new PrintWriter(process.getOutputStream(), true);
+            reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            readUntil("ready");
+        }
+
+        String command(String line, String responsePrefix) throws IOException {
+            writer.println(line);
+            return readUntil(responsePrefix);
+        }
+
+        /**
+         * 로그 등 다른 출력은 건너뛰고 prefix 로 시작하는 줄을 반환한다
+         */
+        String readUntil(String prefix) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(prefix)) {
+                    return line;
+                }
+            }
+            throw new IOException("node exited before '" + prefix + "'");
+        }
+
+        void quit() throws InterruptedException {
+            writer.println("quit");
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
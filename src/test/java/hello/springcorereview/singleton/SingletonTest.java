@@ -20,10 +20,10 @@ class SingletonTest {
     void pureContainer() {
         AppConfig appConfig = new AppConfig();
         //1.조회 : 호출할 때마다 객체를 생성
-        MemberService memberService1 = appConfig.memberService();
+        MemberService memberService1 = appConfig.memberService(appConfig.memberRepository());
 
         //2.조히 : 호출할 때마다 객체를 생성
-        MemberService memberService2 = appConfig.memberService();
+        MemberService memberService2 = appConfig.memberService(appConfig.memberRepository());
 
         //참조갑싱 다른것을 확인
         System.out.println("memberService1 = " + memberService1);
@@ -0,0 +1,67 @@
+package hello.springcorereview.startup;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StartupBenchmarkTest {
+
+    @Test
+    @DisplayName("새 JVM 에서 설정 방식마다 컨테이너를 띄우고 시작 비용을 읽어와야 한다")
+    void fork() throws Exception {
+        for (String style : List.of("java", "scan", "xml", "compiled-xml")) {
+            //when
+            Map<String, Long> result = StartupBenchmark.fork(style, List.of());
+
+            //then
+            System.out.println(style + " startup = " + result);
+            assertThat(result.get("beans")).as(style).isPositive();
+            assertThat(result.get("classes")).as(style).isPositive();
+            assertThat(result.get("heapKb")).as(style).isPositive();
+            assertThat(result.get("uptimeMs")).as(style).isGreaterThanOrEqualTo(result.get("refreshMs"));
+        }
+    }
+
+    @Test
+    @DisplayName("결과 줄에서 style 을 제외한 지표를 읽어야 한다")
+    void parseResult() {
+        //when
+        Map<String, Long> result = StartupBenchmark.parseResult("startup style=scan uptimeMs=412 refreshMs=230 beans=12 classes=3120 heapKb=9120");
+
+        //then
+        assertThat(result).hasSize(5);
+        assertThat(result.get("uptimeMs")).isEqualTo(412L);
+        assertThat(result.get("heapKb")).isEqualTo(9120L);
+    }
+
+    @Test
+    @DisplayName("baseline 의 중앙값보다 허용치 넘게 커진 지표만 회귀로 판단해야 한다")
+    void findRegressions() {
+        //given
+        Map<String, long[]> java = new LinkedHashMap<>();
+        Map<String, long[]> xml = new LinkedHashMap<>();
+        for (String metric : StartupBenchmark.METRICS) {
+            java.put(metric, new long[]{100, 300, 110});    //중앙값 110
+            xml.put(metric, new long[]{200, 200, 200});
+        }
+        Map<String, Long> medians = StartupBenchmark.medians(Map.of("java", java, "xml", xml));
+        Properties baseline = new Properties();
+        baseline.setProperty("java.uptimeMs", "100");   //+10%
+        baseline.setProperty("java.classes", "105");    //+4.8%
+        baseline.setProperty("xml.heapKb", "250");      //-20%
+
+        //when
+        List<String> regressions = StartupBenchmark.findRegressions(medians, baseline, 5);
+
+        //then
+        assertThat(medians.get("java.uptimeMs")).isEqualTo(110L);
+        assertThat(regressions).hasSize(1);
+        assertThat(regressions.get(0)).startsWith("java.uptimeMs 100 -> 110");
+    }
+}
@@ -0,0 +1,158 @@
+package hello.springcorereview.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.springcorereview.discount.RateDiscountPolicy;
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemoryMemberRepository;
+import hello.springcorereview.order.Order;
+import hello.springcorereview.order.OrderPrice;
+import hello.springcorereview.order.OrderService;
+import hello.springcorereview.order.OrderServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+class OrderBulkControllerTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+    MemoryMemberRepository memberRepository = new MemoryMemberRepository();
+    MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new OrderBulkController(new OrderServiceImpl(memberRepository, new RateDiscountPolicy()),
+                    new StaticListableBeanFactory().getBeanProvider(ObjectMapper.class)))
+            .build();
+
+    @Test
+    @DisplayName("요청 순서대로 한 줄에 하나씩 결과를 돌려주고, 실패한 줄은 줄 번호와 오류를 돌려준다")
+    void createOrders() throws Exception {
+        //given
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        String body = "{\"memberId\":1,\"itemName\":\"itemA\",\"itemPrice\":10000}\n" +
+                "{\"memberId\":1,\"itemName\":\n" +
+                "\n" +
+                "{\"memberId\":2,\"itemName\":\"itemB\",\"itemPrice\":20000}\n";
+
+        //when
+        String[] lines = postBulk(body);
+
+        //then
+        assertThat(lines).hasSize(3);
+        JsonNode order = objectMapper.readTree(lines[0]);
+        assertThat(order.get("memberId").asLong()).isEqualTo(1L);
+        assertThat(order.get("discountPrice").asInt()).isEqualTo(1000);
+
+        JsonNode invalid = objectMapper.readTree(lines[1]);
+        assertThat(invalid.get("line").asInt()).isEqualTo(2);
+        assertThat(invalid.get("error").asText()).startsWith("invalid order");
+
+        JsonNode failed = objectMapper.readTree(lines[2]);
+        assertThat(failed.get("line").asInt()).isEqualTo(4);
+        assertThat(failed.get("error").asText()).isEqualTo(OrderBulkController.MEMBER_NOT_FOUND);
+    }
+
+    @Test
+    @DisplayName("CHUNK_SIZE 보다 많은 주문도 빠짐없이 순서대로 처리되어야 한다")
+    void createOrdersOverChunks() throws Exception {
+        //given
+        int count = 1000;
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            memberRepository.save(new Member((long) i, "member" + i, Grade.BASIC));
+            body.append("{\"memberId\":").append(i).append(",\"itemName\":\"itemA\",\"itemPrice\":10000}\n");
+        }
+
+        //when
+        String[] lines = postBulk(body.toString());
+
+        //then
+        assertThat(lines).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(objectMapper.readTree(lines[i]).get("memberId").asLong()).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    @DisplayName("주문 처리 중 발생한 예외의 내용은 응답에 포함하지 않는다")
+    void hideFailureDetails() throws Exception {
+        //given
+        memberRepository.save(new Member(1L, "memberA", Grade.VIP));
+        MockMvc failing = MockMvcBuilders
+                .standaloneSetup(new OrderBulkController(new OrderService() {
+                    @Override
+                    public Order createOrder(Long memberId, String itemName, int itemPrice) {
+                        throw new IllegalStateException("internal detail");
+                    }
+
+                    @Override
+                    public void priceOrder(long memberId, int itemPrice, OrderPrice result) {
+                        throw new IllegalStateException("internal detail");
+                    }
+                }, new StaticListableBeanFactory().getBeanProvider(ObjectMapper.class)))
+                .build();
+
+        //when
+        String response = failing.perform(post("/orders/bulk")
+                        .contentType(OrderBulkController.NDJSON)
+                        .content("{\"memberId\":1,\"itemName\":\"itemA\",\"itemPrice\":10000}\n"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        JsonNode failed = objectMapper.readTree(response.trim());
+        assertThat(failed.get("line").asInt()).isEqualTo(1);
+        assertThat(failed.get("error").asText()).isEqualTo(OrderBulkController.ORDER_FAILED);
+    }
+
+    @Test
+    @DisplayName("주문마다 회원은 주문 서비스에서 한 번만 조회한다")
+    void lookupMemberOnce() throws Exception {
+        //given
+        AtomicInteger lookups = new AtomicInteger();
+        MemoryMemberRepository countingRepository = new MemoryMemberRepository() {
+            @Override
+            public Grade findGrade(long memberId) {
+                lookups.incrementAndGet();
+                return super.findGrade(memberId);
+            }
+        };
+        countingRepository.save(new Member(1L, "memberA", Grade.VIP));
+        MockMvc counting = MockMvcBuilders
+                .standaloneSetup(new OrderBulkController(new OrderServiceImpl(countingRepository, new RateDiscountPolicy()),
+                        new StaticListableBeanFactory().getBeanProvider(ObjectMapper.class)))
+                .build();
+
+        //when
+        String response = counting.perform(post("/orders/bulk")
+                        .contentType(OrderBulkController.NDJSON)
+                        .content("{\"memberId\":1,\"itemName\":\"itemA\",\"itemPrice\":10000}\n" +
+                                "{\"memberId\":2,\"itemName\":\"itemB\",\"itemPrice\":20000}\n"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        String[] lines = response.split("\n");
+        assertThat(lookups.get()).isEqualTo(2);
+        assertThat(objectMapper.readTree(lines[0]).get("discountPrice").asInt()).isEqualTo(1000);
+        assertThat(objectMapper.readTree(lines[1]).get("error").asText()).isEqualTo(OrderBulkController.MEMBER_NOT_FOUND);
+    }
+
+    private String[] postBulk(String body) throws Exception {
+        String response = mockMvc.perform(post("/orders/bulk")
+                        .contentType(OrderBulkController.NDJSON)
+                        .content(body))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return response.split("\n");
+    }
+}
@@ -0,0 +1,228 @@
+package hello.springcorereview.xml;
+
+import hello.springcorereview.member.Grade;
+import hello.springcorereview.member.Member;
+import hello.springcorereview.member.MemberRepository;
+import hello.springcorereview.member.MemberService;
+import hello.springcorereview.order.OrderService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledBeanDefinitionLoaderTest {
+
+    static final int GROUPS = 1000;     //그룹마다 빈 4개
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("컴파일된 빈 정의로 XML 과 같은 빈을 등록해야 한다")
+    void loadCompiled() throws IOException {
+        //given
+        Path xml = writeSyntheticXml();
+        compile(xml);
+
+        //when
+        GenericApplicationContext ac = new GenericApplicationContext();
+        CompiledBeanDefinitionLoader loader = new CompiledBeanDefinitionLoader(ac);
+        int count = loader.loadBeanDefinitions(new FileSystemResource(xml));
+        ac.refresh();
+
+        //then
+        assertThat(count).isEqualTo(GROUPS * 4);
+        assertThat(loader.getCompiledLoadCount()).isEqualTo(1);
+        assertThat(ac.getBeanDefinitionNames()).containsExactlyInAnyOrder(xmlContext(xml).getBeanDefinitionNames());
+        ac.getBean("memberRepository7", MemberRepository.class).save(new Member(1L, "memberA", Grade.VIP));
+        assertThat(ac.getBean("orderService7", OrderService.class).createOrder(1L, "itemA", 10000).getDiscountPrice()).isEqualTo(1000);
+        assertThat(ac.getBean("ms7", MemberService.class)).isSameAs(ac.getBean("memberService7"));   //alias
+        ac.close();
+    }
+
+    @Test
+    @DisplayName("컴파일한 뒤에 XML 내용이 바뀌었으면 XML 을 읽어야 한다")
+    void fallbackToXml() throws IOException {
+        //given
+        Path xml = writeSyntheticXml();
+        compile(xml);
+        Files.write(xml, "<!-- changed -->\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        //when
+        GenericApplicationContext ac = new GenericApplicationContext();
+        CompiledBeanDefinitionLoader loader = new CompiledBeanDefinitionLoader(ac);
+        loader.loadBeanDefinitions(new FileSystemResource(xml));
+
+        //then
+        assertThat(loader.getXmlLoadCount()).isEqualTo(1);
+        assertThat(loader.getCompiledLoadCount()).isZero();
+        assertThat(ac.getBeanDefinitionCount()).isEqualTo(GROUPS * 4);
+    }
+
+    @Test
+    @DisplayName("XML 의 수정 시각만 바뀌고 내용이 같으면 컴파일된 파일을 사용해야 한다")
+    void ignoreModifiedTime() throws IOException {
+        //given classpath 로 복사하면서 XML 이 컴파일된 파일보다 최근 시각을 가지게 된 경우
+        Path xml = writeSyntheticXml();
+        Path compiled = compile(xml);
+        Files.setLastModifiedTime(xml, FileTime.fromMillis(Files.getLastModifiedTime(compiled).toMillis() + 10_000));
+
+        //when
+        GenericApplicationContext ac = new GenericApplicationContext();
+        CompiledBeanDefinitionLoader loader = new CompiledBeanDefinitionLoader(ac);
+        loader.loadBeanDefinitions(new FileSystemResource(xml));
+
+        //then
+        assertThat(loader.getCompiledLoadCount()).isEqualTo(1);
+        assertThat(loader.getXmlLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("파일 형식에 담지 못하는 설정이 있으면 빼고 옮기지 않고 컴파일이 실패해야 한다")
+    void unsupportedFeature() throws IOException {
+        //given
+        Path lookupMethod = writeXml("lookup.xml", "<bean id=\"memberService\" class=\"hello.springcorereview.member.MemberServiceImpl\">\n"
+                + "    <lookup-method name=\"getMemberRepository\" bean=\"memberRepository\"/>\n"
+                + "</bean>\n");
+        Path qualifier = writeXml("qualifier.xml", "<bean id=\"discountPolicy\" class=\"hello.springcorereview.discount.RateDiscountPolicy\">\n"
+                + "    <qualifier value=\"mainDiscountPolicy\"/>\n"
+                + "</bean>\n");
+
+        //when, then
+        assertThatThrownBy(() -> XmlBeanDefinitionCompiler.compile(new FileSystemResource(lookupMethod), new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("lookup-method");
+        assertThatThrownBy(() -> XmlBeanDefinitionCompiler.compile(new FileSystemResource(qualifier), new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("qualifier");
+    }
+
+    @Test
+    @DisplayName("<import> 가 있으면 가져온 XML 의 변경을 알 수 없으므로 컴파일이 실패해야 한다")
+    void rejectImport() throws IOException {
+        //given
+        writeXml("imported.xml", "<bean id=\"discountPolicy\" class=\"hello.springcorereview.discount.RateDiscountPolicy\"/>\n");
+        Path root = writeXml("root.xml", "<import resource=\"imported.xml\"/>\n");
+
+        //when, then
+        assertThatThrownBy(() -> XmlBeanDefinitionCompiler.compile(new FileSystemResource(root), new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("<import>")
+                .hasMessageContaining("imported.xml");
+    }
+
+    @Test
+    @DisplayName("appConfig.xml 도 컴파일 여부와 관계없이 같은 방법으로 읽을 수 있어야 한다")
+    void appConfig() {
+        CompiledXmlApplicationContext ac = new CompiledXmlApplicationContext("appConfig.xml");
+        MemberService memberService = ac.getBean("memberService", MemberService.class);
+
+        assertThat(memberService).isInstanceOf(MemberService.class);
+        assertThat(ac.getLoader().getCompiledLoadCount() + ac.getLoader().getXmlLoadCount()).isEqualTo(1);
+        ac.close();
+    }
+
+    /**
+     * 빈 정의 등록 시간, 컨텍스트 시작(refresh)까지의 시간을 XML 과 비교해서 출력한다.
+     * 앞의 반복은 JIT 워밍업이고 마지막 반복의 값을 출력한다.
+     * 확인하는 값이 없고 오래 걸리므로 단위 테스트에서 빼고 gradle benchmark 로 실행한다.
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("큰 XML 의 시작 시간 비교")
+    void startupTime() throws IOException {
+        Path xml = writeSyntheticXml();
+        compile(xml);
+
+        long[] xmlTimes = new long[2];
+        long[] compiledTimes = new long[2];
+        for (int i = 0; i < 5; i++) {
+            xmlTimes = measure(xml, false);
+            compiledTimes = measure(xml, true);
+        }
+        System.out.println("beans = " + GROUPS * 4 + ", xml size = " + Files.size(xml) / 1024 + "KB, compiled size = "
+                + Files.size(compiledPath(xml)) / 1024 + "KB");
+        System.out.println("xml      : register = " + xmlTimes[0] / 1_000_000 + "ms, register + refresh = " + xmlTimes[1] / 1_000_000 + "ms");
+        System.out.println("compiled : register = " + compiledTimes[0] / 1_000_000 + "ms, register + refresh = " + compiledTimes[1] / 1_000_000 + "ms");
+    }
+
+    private long[] measure(Path xml, boolean compiled) throws IOException {
+        long start = System.nanoTime();
+        GenericApplicationContext ac = new GenericApplicationContext();
+        if (compiled) {
+            new CompiledBeanDefinitionLoader(ac).loadBeanDefinitions(new FileSystemResource(xml));
+        } else {
+            new XmlBeanDefinitionReader(ac).loadBeanDefinitions(new FileSystemResource(xml));
+        }
+        long registered = System.nanoTime();
+        ac.refresh();
+        long refreshed = System.nanoTime();
+        ac.close();
+        return new long[]{registered - start, refreshed - start};
+    }
+
+    private GenericApplicationContext xmlContext(Path xml) {
+        GenericApplicationContext ac = new GenericApplicationContext();
+        new XmlBeanDefinitionReader(ac).loadBeanDefinitions(new FileSystemResource(xml));
+        return ac;
+    }
+
+    private Path compile(Path xml) throws IOException {
+        Path compiled = compiledPath(xml);
+        try (OutputStream os = Files.newOutputStream(compiled)) {
+            XmlBeanDefinitionCompiler.compile(new FileSystemResource(xml), os);
+        }
+        return compiled;
+    }
+
+    private Path compiledPath(Path xml) {
+        return xml.resolveSibling(xml.getFileName() + ".beans");
+    }
+
+    private Path writeSyntheticXml() throws IOException {
+        StringBuilder xml = new StringBuilder();
+        for (int i = 0; i < GROUPS; i++) {
+            xml.append("    <bean id=\"memberRepository").append(i).append("\" class=\"hello.springcorereview.member.MemoryMemberRepository\">\n")
+                    .append("        <constructor-arg index=\"0\" value=\"64\"/>\n")
+                    .append("    </bean>\n")
+                    .append("    <bean id=\"memberService").append(i).append("\" name=\"ms").append(i)
+                    .append("\" class=\"hello.springcorereview.member.MemberServiceImpl\" lazy-init=\"true\">\n")
+                    .append("        <constructor-arg name=\"memberRepository\" ref=\"memberRepository").append(i).append("\"/>\n")
+                    .append("    </bean>\n")
+                    .append("    <bean id=\"discountPolicy").append(i).append("\" class=\"hello.springcorereview.discount.RateDiscountPolicy\"/>\n")
+                    .append("    <bean id=\"orderService").append(i).append("\" class=\"hello.springcorereview.order.OrderServiceImpl\"")
+                    .append(" depends-on=\"memberService").append(i).append("\">\n")
+                    .append("        <constructor-arg name=\"memberRepository\" ref=\"memberRepository").append(i).append("\"/>\n")
+                    .append("        <constructor-arg name=\"discountPolicy\" ref=\"discountPolicy").append(i).append("\"/>\n")
+                    .append("    </bean>\n");
+        }
+        return writeXml("large.xml", xml.toString());
+    }
+
+    private Path writeXml(String fileName, String beans) throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+                + "       xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+                + "       xsi:schemaLocation=\"http://www.springframework.org/schema/beans http://www.springframework.org/schema/beans/spring-beans.xsd\">\n"
+                + beans
+                + "</beans>\n";
+        Path path = dir.resolve(fileName);
+        Files.write(path, xml.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+}